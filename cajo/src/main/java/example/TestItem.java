@@ -32,7 +32,7 @@ public class TestItem extends BaseItem {
 		this.proxy = proxy;
 		System.out.print("\nProxy async callback from ");
 		try {
-			System.out.print(java.rmi.server.RemoteServer.getClientHost());
+			System.out.print(Remote.getClientHost());
 		} catch (java.rmi.server.ServerNotActiveException x) {
 			System.out.print("local item");
 		}
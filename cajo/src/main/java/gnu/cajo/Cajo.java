@@ -75,7 +75,7 @@ public final class Cajo implements Grail {
 		 */
 		public Object multicast(Multicast multicast) {
 			try {
-				java.rmi.server.RemoteServer.getClientHost();
+				Remote.getClientHost();
 				throw new RuntimeException("multicast cannot be called remotely");
 			} catch (java.rmi.server.ServerNotActiveException x) {
 			}
@@ -104,6 +104,7 @@ public final class Cajo implements Grail {
 					for (int i = 0; i < elements.length; i++)
 						if (!(duds.contains(elements[i])))
 							items.add(elements[i]);
+					regref.invalidate("request");
 				}
 		}
 
@@ -153,6 +154,7 @@ public final class Cajo implements Grail {
 				synchronized (items) {
 					items.remove(object); // discard non-working reference
 					duds.add(object); // blacklist, to prevent re-registration
+					regref.invalidate("request");
 				}
 				throw x;
 			}
@@ -269,6 +271,12 @@ public final class Cajo implements Grail {
 	 * <i><u>Note</u>:</i> invoke gnu.cajo.invoke.Remote.config, and construct a
 	 * gnu.cajo.utils.CodebaseServer if needed, to configure the JVM <i>before</i>
 	 * invoking this constructor.
+	 * <p>
+	 * The registry's contents are {@link Remote#cache cached} by its wrapper,
+	 * so repeated remote requests for them are answered from an encoded copy;
+	 * they neither reach the registrar's request method, nor count in
+	 * {@link Remote#getInvocationsInFlight getInvocationsInFlight}. The copy
+	 * is invalidated whenever the registry changes.
 	 *
 	 * @param ttl
 	 *            The time for interface export announcements to live, it is
@@ -289,7 +297,7 @@ public final class Cajo implements Grail {
 	 */
 	public Cajo(int ttl, String address, int port) throws IOException {
 		this.ttl = ttl;
-		regref = new Remote(registrar);
+		regref = new Remote(registrar).cache("request");
 		multicast = new Multicast(address, port);
 		multicast.listen(registrar);
 		multicast.announce(regref, ttl);
@@ -356,6 +364,7 @@ public final class Cajo implements Grail {
 		}
 		Remote retval = new Remote(new Searchable(object, target));
 		items.add(retval);
+		regref.invalidate("request");
 		multicast.announce(regref, ttl);
 		return retval;
 	}
@@ -373,7 +382,9 @@ public final class Cajo implements Grail {
 	 *         either already been, or never has been, exported
 	 */
 	public boolean unexport(Remote object) {
-		return items.remove(object);
+		boolean removed = items.remove(object);
+		regref.invalidate("request");
+		return removed;
 	}
 
 	/**
@@ -429,6 +440,7 @@ public final class Cajo implements Grail {
 				synchronized (items) {
 					items.remove(elements[i]);
 					duds.add(elements[i]);
+					regref.invalidate("request");
 				}
 			} catch (Exception x) {
 			} // method or field types unknown
@@ -0,0 +1,254 @@
+package gnu.cajo.invoke;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.rmi.server.ServerNotActiveException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/*
+ * Batched Invocation (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Batch.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class holds a sequence of invocations on a single item, made in one
+ * request via {@link Remote#invokeBatch(Object, String[], Object[], boolean)
+ * Remote.invokeBatch}, and once executed, their outcomes. The batch is
+ * unpacked by the item's {@link Remote Remote} wrapper, so each invocation
+ * passes individually through any {@link Invoke Invoke} wrapper, such as a
+ * {@link gnu.cajo.utils.MonitorItem MonitorItem}, exactly as if it had been
+ * made on its own.
+ * <p>
+ * The invocations are made either in order, each once the previous has
+ * returned, by the thread serving the request; or concurrently, by that
+ * thread and up to {@link #THREADS} pooled threads, each taking the next
+ * invocation not yet started. A batch may hold at most {@link #LIMIT}
+ * invocations. If an invocation returns a CompletionStage, the batch is returned
+ * when all such stages have completed, with their outcomes in place of the
+ * stages.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public final class Batch implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The method name under which a batch is sent to an item.
+	 */
+	static final String METHOD = "invokeBatch";
+
+	/**
+	 * The most invocations a batch may hold; larger batches are rejected, by
+	 * the client, and by the server.
+	 */
+	public static final int LIMIT = 0x10000;
+
+	/**
+	 * The most pooled threads a parallel batch uses, besides the thread
+	 * serving the request.
+	 */
+	public static final int THREADS = 8;
+
+	private final String methods[];
+	private final boolean parallel;
+	private transient Object args[]; // discarded once executed
+	private transient Object results[];
+	private boolean failed[];
+
+	Batch(String methods[], Object args[], boolean parallel) {
+		if (methods == null)
+			throw new IllegalArgumentException("null methods");
+		if (args != null && args.length != methods.length)
+			throw new IllegalArgumentException("methods and args differ in length");
+		if (methods.length > LIMIT)
+			throw new IllegalArgumentException("more than " + LIMIT + " invocations");
+		this.methods = (String[]) methods.clone();
+		this.args = args != null ? (Object[]) args.clone() : new Object[methods.length];
+		this.parallel = parallel;
+	}
+
+	/**
+	 * This method executes the invocations on the item provided.
+	 *
+	 * @param item
+	 *            The object on which to invoke the methods, if it implements
+	 *            the {@link Invoke Invoke} interface, each call is passed to it
+	 * @return This batch, with its outcomes, or a CompletableFuture to be
+	 *         completed with it, if any outcome is not yet known
+	 */
+	Object run(final Object item) {
+		final Object args[] = this.args;
+		final CompletableFuture done[] = new CompletableFuture[methods.length];
+		this.args = null;
+		results = new Object[methods.length];
+		failed = new boolean[methods.length];
+		for (int i = 0; i < done.length; i++)
+			done[i] = new CompletableFuture();
+		if (parallel && methods.length > 1) {
+			String host;
+			try { // pass the caller's address on, for Remote.getClientHost
+				host = Remote.getClientHost();
+			} catch (ServerNotActiveException x) {
+				host = null;
+			}
+			final String client = host;
+			final AtomicInteger next = new AtomicInteger();
+			Runnable worker = new Runnable() {
+				public void run() {
+					MuxServer.clientHost(client);
+					try {
+						for (int i; (i = next.getAndIncrement()) < methods.length;)
+							call(item, i, args[i], done[i]);
+					} finally {
+						MuxServer.clientHost(null);
+					}
+				}
+			};
+			try {
+				for (int i = Math.min(THREADS, methods.length - 1); i > 0; i--)
+					MuxServer.executor.execute(worker);
+			} catch (RejectedExecutionException x) { // the rest are left to this thread
+			}
+			for (int i; (i = next.getAndIncrement()) < methods.length;)
+				call(item, i, args[i], done[i]);
+		} else
+			for (int i = 0; i < methods.length; i++)
+				call(item, i, args[i], done[i]);
+		CompletableFuture all = CompletableFuture.allOf(done);
+		return all.isDone() ? (Object) this : all.thenApply(new Function() {
+			public Object apply(Object o) {
+				return Batch.this;
+			}
+		});
+	}
+
+	private void call(Object item, final int i, Object args, final CompletableFuture done) {
+		try {
+			Object result = Remote.invoke(item, methods[i], args);
+			if (result instanceof CompletionStage) {
+				((CompletionStage) result).whenComplete(new BiConsumer() {
+					public void accept(Object result, Object t) {
+						if (t instanceof CompletionException && ((Throwable) t).getCause() != null)
+							t = ((Throwable) t).getCause();
+						results[i] = t != null ? t : result;
+						failed[i] = t != null;
+						done.complete(null);
+					}
+				});
+				return;
+			}
+			results[i] = result;
+		} catch (Throwable t) {
+			results[i] = t;
+			failed[i] = true;
+		}
+		done.complete(null);
+	}
+
+	/**
+	 * This method returns the number of invocations in the batch.
+	 *
+	 * @return The number of invocations
+	 */
+	public int size() {
+		return methods.length;
+	}
+
+	/**
+	 * This method returns the name of an invoked method.
+	 *
+	 * @param i
+	 *            The index of the invocation in the batch
+	 * @return The method name
+	 */
+	public String getMethod(int i) {
+		return methods[i];
+	}
+
+	/**
+	 * This method reports whether an invocation threw an exception.
+	 *
+	 * @param i
+	 *            The index of the invocation in the batch
+	 * @return true if it failed, false if it returned normally
+	 * @throws IllegalStateException
+	 *             If the batch has not yet been executed
+	 */
+	public boolean failed(int i) {
+		if (failed == null)
+			throw new IllegalStateException("batch not executed");
+		return failed[i];
+	}
+
+	/**
+	 * This method returns the outcome of an invocation.
+	 *
+	 * @param i
+	 *            The index of the invocation in the batch
+	 * @return The data, if any, resulting from the invocation
+	 * @throws IllegalStateException
+	 *             If the batch has not yet been executed
+	 * @throws Exception
+	 *             The exception thrown by the invocation, if it failed; an
+	 *             error is rethrown as it is
+	 */
+	public Object get(int i) throws Exception {
+		if (!failed(i))
+			return results[i];
+		Throwable t = (Throwable) results[i];
+		if (t instanceof Error)
+			throw (Error) t;
+		throw t instanceof Exception ? (Exception) t : new Exception(t.getMessage(), t);
+	}
+
+	private static Object[] serializable(Object array[], boolean lists) {
+		if (array == null)
+			return null;
+		Object copy[] = new Object[array.length];
+		for (int i = 0; i < array.length; i++)
+			copy[i] = lists && array[i] instanceof Object[] ? serializable((Object[]) array[i], false)
+					: Remote.serializable(array[i]);
+		return copy;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject(); // non-serialisable objects are sent as proxies
+		out.writeObject(serializable(args, true));
+		out.writeObject(serializable(results, false));
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (methods == null || methods.length > LIMIT)
+			throw new InvalidObjectException("invalid batch size");
+		args = (Object[]) in.readObject();
+		results = (Object[]) in.readObject();
+		if (args != null && args.length != methods.length || results != null && results.length != methods.length)
+			throw new InvalidObjectException("methods and outcomes differ in length");
+	}
+}
@@ -0,0 +1,1335 @@
+package gnu.cajo.invoke;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.rmi.MarshalledObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/*
+ * Zedmob Compression Codec
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Codec.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class is the compression layer of a zipped marshalled object, or
+ * {@link Remote#zedmob(OutputStream, Object, Codec) zedmob}. A zedmob begins
+ * with a four byte header: the characters <tt>zm</tt>, the format version,
+ * and the identifier of the codec which compressed the rest of it; so that a
+ * reader need not know in advance how it was written. Zedmobs written before
+ * the header was introduced were always GZIP compressed, these are
+ * recognised by the GZIP signature in place of the header, and still read.
+ * <p>
+ * The built in codecs are {@link #NONE NONE}, {@link #LZ LZ}, a fast
+ * dictionary coder; {@link #deflate deflate}, at any compression level, and
+ * {@link #GZIP GZIP}, which writes the original headerless format, and is the
+ * default, so that peers running earlier releases of the library can read
+ * them. An application may add its own, by extending this class,
+ * and {@link #register(Codec) registering} an instance, before any zedmobs
+ * using it are read.
+ * <p>
+ * Small objects, typically those of a few hundred bytes, barely compress, as
+ * most of their content is class, and field names, which occur only once in
+ * each. A preset dictionary, of strings occurring frequently in them, makes
+ * such objects compressible; it is supplied to a
+ * {@link #deflate(int, byte[]) deflate} codec, and to the
+ * {@link Remote#dictionary multiplexed transport}. A dictionary is identified
+ * by the Adler-32 checksum of its content, as zlib does, so any number of
+ * versions may be {@link #register(byte[]) registered} for reading at once.
+ * One can be trained from sample data, including the object logs of a
+ * {@link gnu.cajo.utils.MonitorItem MonitorItem}, via the {@link #main main}
+ * method of this class.
+ * <p>
+ * The built in codecs keep the zlib contexts, and buffers, of their streams
+ * in a small pool once the streams are closed, for reuse by later ones, as
+ * allocating and releasing them would otherwise dominate the cost of small
+ * zedmobs. A stream which is not closed simply leaves them to the garbage
+ * collector.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public abstract class Codec {
+	private static final int MAGIC0 = 'z', MAGIC1 = 'm', VERSION = 2;
+	private static final int CHUNK = 8192; // initial inflated block capacity
+	/**
+	 * The last format version whose content is a java.rmi.MarshalledObject,
+	 * written to an unannotated object stream; later versions contain the
+	 * object itself, written to a {@link MarshalOutputStream
+	 * MarshalOutputStream}. The original, headerless, format is taken as
+	 * version zero.
+	 */
+	static final int MARSHALLED = 1;
+	private static final Codec codecs[] = new Codec[256];
+	private static final LinkedHashMap dictionaries = new LinkedHashMap(); // id -> byte[]
+
+	/**
+	 * The identifier written in the header of the zedmobs this codec
+	 * compresses, from 0 to 255. Identifiers below 16 are reserved for the
+	 * codecs built into the library.
+	 */
+	public final int id;
+
+	/**
+	 * The name of the codec, for diagnostic purposes.
+	 */
+	public final String name;
+
+	/**
+	 * The constructor assigns the codec's identity.
+	 *
+	 * @param id
+	 *            The identifier of the codec, from 0 to 255
+	 * @param name
+	 *            The name of the codec
+	 * @throws IllegalArgumentException
+	 *             If the identifier is out of range
+	 */
+	protected Codec(int id, String name) {
+		if (id < 0 || id > 255)
+			throw new IllegalArgumentException("invalid codec id " + id);
+		this.id = id;
+		this.name = name;
+	}
+
+	/**
+	 * This method wraps a stream, compressing the data written to it.
+	 * Closing the returned stream must complete the compressed data, and
+	 * close the stream provided.
+	 *
+	 * @param os
+	 *            The stream on which to write the compressed data
+	 * @return The stream on which to write the uncompressed data
+	 * @throws IOException
+	 *             If the compressed stream could not be started
+	 */
+	public abstract OutputStream encoder(OutputStream os) throws IOException;
+
+	/**
+	 * This method wraps a stream, decompressing the data read from it. It
+	 * must not read beyond the end of the compressed data, if it can avoid
+	 * doing so. Closing the returned stream must close the stream provided.
+	 *
+	 * @param is
+	 *            The stream from which to read the compressed data
+	 * @return The stream from which to read the uncompressed data
+	 * @throws IOException
+	 *             If the compressed stream is invalid
+	 */
+	public abstract InputStream decoder(InputStream is) throws IOException;
+
+	/**
+	 * This method returns the name of the codec.
+	 *
+	 * @return The name
+	 */
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * This method makes a codec available to read zedmobs. Registering a
+	 * codec is only needed to read them, any codec can be used to write them.
+	 *
+	 * @param codec
+	 *            The codec to be registered
+	 * @throws IllegalArgumentException
+	 *             If another codec is already registered with its identifier
+	 */
+	public static void register(Codec codec) {
+		synchronized (codecs) {
+			if (codecs[codec.id] != null && codecs[codec.id] != codec)
+				throw new IllegalArgumentException("codec id " + codec.id + " in use by " + codecs[codec.id]);
+			codecs[codec.id] = codec;
+		}
+	}
+
+	/**
+	 * This method makes a preset dictionary available, to decompress data
+	 * compressed with it.
+	 *
+	 * @param dictionary
+	 *            The dictionary, of at most 32kB, it must not be modified
+	 *            hereafter
+	 * @return Its identifier, the Adler-32 checksum of its content
+	 */
+	public static int register(byte dictionary[]) {
+		Adler32 adler = new Adler32();
+		adler.update(dictionary, 0, dictionary.length);
+		Integer id = new Integer((int) adler.getValue());
+		synchronized (dictionaries) {
+			dictionaries.remove(id); // the most recent last
+			dictionaries.put(id, dictionary);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * This method returns a registered dictionary.
+	 *
+	 * @param id
+	 *            The identifier of the dictionary
+	 * @return The dictionary, or null, if none is registered with it
+	 */
+	static byte[] dictionary(int id) {
+		synchronized (dictionaries) {
+			return (byte[]) dictionaries.get(new Integer(id));
+		}
+	}
+
+	/**
+	 * This method returns the identifiers of the registered dictionaries.
+	 *
+	 * @return The identifiers, in order of registration
+	 */
+	static int[] dictionaries() {
+		synchronized (dictionaries) {
+			int ids[] = new int[dictionaries.size()], i = 0;
+			for (Iterator it = dictionaries.keySet().iterator(); it.hasNext();)
+				ids[i++] = ((Integer) it.next()).intValue();
+			return ids;
+		}
+	}
+
+	/**
+	 * This method returns a codec by its identifier.
+	 *
+	 * @param id
+	 *            The identifier of the codec
+	 * @return The codec, or null, if none is registered with the identifier
+	 */
+	public static Codec get(int id) {
+		synchronized (codecs) {
+			return id >= 0 && id < codecs.length ? codecs[id] : null;
+		}
+	}
+
+	/**
+	 * This method starts a zedmob, writing its header, and returns a stream
+	 * on which to write its content.
+	 *
+	 * @param os
+	 *            The stream on which to write the zedmob
+	 * @param codec
+	 *            The codec with which to compress it
+	 * @return The stream on which to write its content
+	 * @throws IOException
+	 *             If the zedmob could not be started
+	 */
+	static OutputStream output(OutputStream os, Codec codec) throws IOException {
+		if (codec != GZIP) // the gzip signature identifies the original format
+			os.write(new byte[] { MAGIC0, MAGIC1, VERSION, (byte) codec.id });
+		return codec.encoder(os);
+	}
+
+	/**
+	 * This method reads the header of a zedmob, of either the current or an
+	 * earlier format, and returns a stream from which to read its content.
+	 *
+	 * @param is
+	 *            The stream from which to read the zedmob
+	 * @param version
+	 *            An array in which to return the format version, as its first
+	 *            element
+	 * @return The stream from which to read its content
+	 * @throws IOException
+	 *             If the header is invalid, or its codec unknown
+	 */
+	static InputStream input(InputStream is, int version[]) throws IOException {
+		PushbackInputStream pis = new PushbackInputStream(is, 2);
+		int b0 = pis.read(), b1 = pis.read();
+		if (b0 == 0x1f && b1 == 0x8b) { // the original format
+			pis.unread(new byte[] { (byte) b0, (byte) b1 });
+			version[0] = 0;
+			return GZIP.decoder(pis);
+		}
+		if (b1 == -1)
+			throw new EOFException("empty zedmob");
+		if (b0 != MAGIC0 || b1 != MAGIC1)
+			throw new StreamCorruptedException("not a zedmob");
+		int v = pis.read(), id = pis.read();
+		if (id == -1)
+			throw new EOFException("truncated zedmob header");
+		if (v < MARSHALLED || v > VERSION)
+			throw new StreamCorruptedException("unsupported zedmob version " + v);
+		version[0] = v;
+		Codec codec = get(id);
+		if (codec == null)
+			throw new StreamCorruptedException("unknown zedmob codec " + id);
+		return codec.decoder(pis);
+	}
+
+	/**
+	 * This method returns a stream which embeds the data written to it in
+	 * another stream, such as a zedmob within an object stream, or a file. The
+	 * data is written in chunks, of up to 8kB, each preceded by its length;
+	 * so neither it, nor its length, need be held in memory, yet a reader can
+	 * find its end. Closing the stream ends the embedded data, but leaves the
+	 * other stream open.
+	 *
+	 * @param os
+	 *            The stream in which to embed the data
+	 * @return The stream on which to write the data
+	 */
+	public static OutputStream embed(OutputStream os) {
+		return new EmbeddedOutputStream(os);
+	}
+
+	/**
+	 * This method returns a stream which reads data {@link #embed embedded}
+	 * in another stream, reading no further than its end, as it is consumed.
+	 * Closing the stream skips any of the data not yet read, but leaves the
+	 * other stream open, positioned after it.
+	 *
+	 * @param is
+	 *            The stream in which the data is embedded
+	 * @return The stream from which to read the data
+	 */
+	public static InputStream embedded(InputStream is) {
+		return new EmbeddedInputStream(is);
+	}
+
+	/**
+	 * This codec stores data without compression. It is best suited for
+	 * zedmobs which are transferred between hosts on a fast network, or
+	 * locally, or whose contents are already compressed.
+	 */
+	public static final Codec NONE = new Codec(0, "none") {
+		public OutputStream encoder(OutputStream os) {
+			return os;
+		}
+
+		public InputStream decoder(InputStream is) {
+			return is;
+		}
+	};
+
+	/**
+	 * This codec compresses data in blocks of up to 64kB, each replacing
+	 * repeated sequences of at least four bytes with references to their
+	 * previous occurrence, in the manner of LZ4. Its compression ratio is
+	 * lower than deflate's, but it is several times faster, in both
+	 * directions. Only this release of the library, and later ones, can read
+	 * it, so it must be selected explicitly, e.g. via {@link Remote#codec
+	 * Remote.codec}.
+	 */
+	public static final Codec LZ = new Codec(1, "lz") {
+		public OutputStream encoder(OutputStream os) {
+			return new LZOutputStream(os);
+		}
+
+		public InputStream decoder(InputStream is) {
+			return new LZInputStream(is);
+		}
+	};
+
+	/**
+	 * This method returns a codec compressing data by the deflate algorithm,
+	 * at the given level. The level is not needed to decompress the data, so
+	 * the zedmobs of all levels are read by the same codec.
+	 *
+	 * @param level
+	 *            From 1, the fastest, to 9, the most compact; or -1 for
+	 *            zlib's default, level 6
+	 * @return The codec
+	 * @throws IllegalArgumentException
+	 *             If the level is out of range
+	 */
+	public static Codec deflate(int level) {
+		return deflate(level, null);
+	}
+
+	/**
+	 * This method returns a codec compressing data by the deflate algorithm,
+	 * at the given level, with a preset dictionary. The dictionary is
+	 * registered, so the codec's zedmobs can be read in this VM; other VMs
+	 * must register it too, before they can read them.
+	 *
+	 * @param level
+	 *            From 1, the fastest, to 9, the most compact; or -1 for
+	 *            zlib's default, level 6
+	 * @param dictionary
+	 *            The dictionary, of at most 32kB, it must not be modified
+	 *            hereafter, or null for none
+	 * @return The codec
+	 * @throws IllegalArgumentException
+	 *             If the level is out of range
+	 */
+	public static Codec deflate(final int level, final byte dictionary[]) {
+		if (level < -1 || level > 9)
+			throw new IllegalArgumentException("invalid deflate level " + level);
+		if (dictionary != null)
+			register(dictionary);
+		return new Codec(2, "deflate") {
+			public OutputStream encoder(OutputStream os) throws IOException {
+				return new DeflateOutputStream(os, level, dictionary, false);
+			}
+
+			public InputStream decoder(InputStream is) throws IOException {
+				return new InflateInputStream(is, false);
+			}
+		};
+	}
+
+	/**
+	 * This codec writes zedmobs in the original format, a GZIP stream,
+	 * without a header, so that earlier releases of the library can read them.
+	 * It is the default.
+	 */
+	public static final Codec GZIP = new Codec(3, "gzip") {
+		public OutputStream encoder(OutputStream os) throws IOException {
+			return new DeflateOutputStream(os, Deflater.DEFAULT_COMPRESSION, null, true);
+		}
+
+		public InputStream decoder(InputStream is) throws IOException {
+			return new InflateInputStream(is, true);
+		}
+	};
+
+	static {
+		register(NONE);
+		register(LZ);
+		register(deflate(Deflater.DEFAULT_COMPRESSION));
+		register(GZIP);
+	}
+
+	// the idle compression contexts, and buffers, reused by the streams, as
+	// allocating them, natively for zlib, dominates the cost of small zedmobs
+	private static final class Pool {
+		private final Object idle[] = new Object[IDLE];
+		private int count;
+
+		private synchronized Object take() {
+			if (count == 0)
+				return null;
+			Object o = idle[--count];
+			idle[count] = null;
+			return o;
+		}
+
+		private synchronized boolean give(Object o) {
+			if (count == idle.length)
+				return false;
+			idle[count++] = o;
+			return true;
+		}
+
+		private synchronized int size() {
+			return count;
+		}
+	}
+
+	/**
+	 * The most idle objects kept by each of the pools.
+	 */
+	static final int IDLE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+	private static final Pool deflaters = new Pool(), gzipDeflaters = new Pool();
+	private static final Pool inflaters = new Pool(), gzipInflaters = new Pool();
+	private static final Pool buffers = new Pool(), scratches = new Pool();
+	private static final Pool pools[] = { deflaters, gzipDeflaters, inflaters, gzipInflaters, buffers, scratches };
+
+	/**
+	 * This method reports how many idle objects are kept by the pools of a
+	 * kind, for monitoring.
+	 *
+	 * @return The number of idle objects in each pool: deflaters, and those
+	 *         for gzip; inflaters, and those for gzip; stream buffers, and LZ
+	 *         scratch buffers
+	 */
+	static int[] pooled() {
+		int sizes[] = new int[pools.length];
+		for (int i = 0; i < pools.length; i++)
+			sizes[i] = pools[i].size();
+		return sizes;
+	}
+
+	private static byte[] buffer() {
+		byte buf[] = (byte[]) buffers.take();
+		return buf != null ? buf : new byte[8192];
+	}
+
+	private static Deflater deflater(int level, boolean gzip) {
+		Deflater deflater = (Deflater) (gzip ? gzipDeflaters : deflaters).take();
+		if (deflater == null)
+			return new Deflater(level, gzip);
+		deflater.setLevel(level);
+		return deflater;
+	}
+
+	private static void release(Deflater deflater, boolean gzip) {
+		deflater.reset();
+		if (!(gzip ? gzipDeflaters : deflaters).give(deflater))
+			deflater.end();
+	}
+
+	private static Inflater inflater(boolean gzip) {
+		Inflater inflater = (Inflater) (gzip ? gzipInflaters : inflaters).take();
+		return inflater != null ? inflater : new Inflater(gzip);
+	}
+
+	private static void release(Inflater inflater, boolean gzip) {
+		inflater.reset();
+		if (!(gzip ? gzipInflaters : inflaters).give(inflater))
+			inflater.end();
+	}
+
+	private static void dictionary(Inflater inflater) throws ZipException {
+		byte dictionary[] = dictionary(inflater.getAdler());
+		if (dictionary == null)
+			throw new ZipException("unknown deflate dictionary " + Integer.toHexString(inflater.getAdler()));
+		inflater.setDictionary(dictionary);
+	}
+
+	/**
+	 * This method compresses a small block of data, such as a frame of the
+	 * multiplexed transport, with a preset dictionary.
+	 *
+	 * @param b
+	 *            The data
+	 * @param off
+	 *            The offset of the data
+	 * @param len
+	 *            The length of the data
+	 * @param dictionary
+	 *            The dictionary, or null for none
+	 * @return The compressed data, in zlib format, or null, if it would be no
+	 *         smaller than the original
+	 */
+	static byte[] deflate(byte b[], int off, int len, byte dictionary[]) {
+		Deflater deflater = deflater(Deflater.DEFAULT_COMPRESSION, false);
+		try {
+			if (dictionary != null)
+				deflater.setDictionary(dictionary);
+			deflater.setInput(b, off, len);
+			deflater.finish();
+			byte out[] = new byte[len];
+			int n = 0;
+			while (!deflater.finished() && n < len)
+				n += deflater.deflate(out, n, len - n);
+			return deflater.finished() && n < len ? Arrays.copyOf(out, n) : null;
+		} finally {
+			release(deflater, false);
+		}
+	}
+
+	/**
+	 * This method decompresses a small block of data, compressed by
+	 * {@link #deflate(byte[], int, int, byte[]) deflate}, with any registered
+	 * dictionary. The output array grows only as the data actually inflates,
+	 * so a false size cannot allocate more than twice what the data holds.
+	 *
+	 * @param b
+	 *            The compressed data
+	 * @param off
+	 *            The offset of the compressed data
+	 * @param len
+	 *            The length of the compressed data
+	 * @param size
+	 *            The length of the original data, exactly
+	 * @return The original data
+	 * @throws IOException
+	 *             If the compressed data is invalid, its dictionary unknown, or
+	 *             its original length not as given
+	 */
+	static byte[] inflate(byte b[], int off, int len, int size) throws IOException {
+		Inflater inflater = inflater(false);
+		try {
+			inflater.setInput(b, off, len);
+			byte out[] = new byte[Math.min(size, CHUNK)];
+			int n = 0;
+			while (!inflater.finished()) {
+				if (n == out.length && n < size)
+					out = Arrays.copyOf(out, (int) Math.min(size, 2L * n));
+				int r = inflater.inflate(out, n, out.length - n);
+				n += r;
+				if (r == 0)
+					if (inflater.needsDictionary())
+						dictionary(inflater);
+					else if (n == size) { // may yet be followed by its checksum
+						n += inflater.inflate(new byte[1]);
+						if (n > size || !inflater.finished())
+							break;
+					} else if (inflater.needsInput())
+						break;
+			}
+			if (n != size || !inflater.finished())
+				throw new ZipException("corrupt deflated data");
+			return out;
+		} catch (DataFormatException x) {
+			throw new ZipException(x.getMessage());
+		} finally {
+			release(inflater, false);
+		}
+	}
+
+	// a deflate stream, with the zlib wrapper, or the gzip one
+	private static final class DeflateOutputStream extends OutputStream {
+		private final OutputStream os;
+		private final Deflater deflater;
+		private final CRC32 crc;
+		private byte buf[];
+
+		private DeflateOutputStream(OutputStream os, int level, byte dictionary[], boolean gzip)
+				throws IOException {
+			Deflater deflater = deflater(level, gzip);
+			if (dictionary != null)
+				deflater.setDictionary(dictionary);
+			if (gzip)
+				os.write(new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 });
+			this.os = os;
+			this.deflater = deflater;
+			this.crc = gzip ? new CRC32() : null;
+			buf = buffer();
+		}
+
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		public void write(byte b[], int off, int len) throws IOException {
+			if (buf == null)
+				throw new IOException("stream closed");
+			if (crc != null)
+				crc.update(b, off, len);
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput())
+				deflate(Deflater.NO_FLUSH);
+		}
+
+		private void deflate(int flush) throws IOException {
+			int n = deflater.deflate(buf, 0, buf.length, flush);
+			if (n > 0)
+				os.write(buf, 0, n);
+		}
+
+		public void flush() throws IOException {
+			if (buf == null)
+				throw new IOException("stream closed");
+			os.flush(); // as a DeflaterOutputStream, pending input is kept
+		}
+
+		public void close() throws IOException {
+			if (buf == null)
+				return;
+			try {
+				deflater.finish();
+				while (!deflater.finished())
+					deflate(Deflater.NO_FLUSH);
+				if (crc != null)
+					os.write(trailer(crc.getValue(), deflater.getBytesRead()));
+				os.flush();
+			} finally {
+				release();
+				os.close();
+			}
+		}
+
+		private void release() {
+			Codec.release(deflater, crc != null);
+			buffers.give(buf);
+			buf = null;
+		}
+	}
+
+	private static byte[] trailer(long crc, long size) {
+		byte b[] = new byte[8];
+		for (int i = 0; i < 4; i++) {
+			b[i] = (byte) (crc >>> 8 * i);
+			b[i + 4] = (byte) (size >>> 8 * i);
+		}
+		return b;
+	}
+
+	private static final class InflateInputStream extends InputStream {
+		private final InputStream is;
+		private final Inflater inflater;
+		private final CRC32 crc;
+		private byte buf[];
+		private int filled;
+		private boolean eof;
+
+		private InflateInputStream(InputStream is, boolean gzip) throws IOException {
+			this.is = is;
+			if (gzip)
+				header();
+			this.inflater = inflater(gzip);
+			this.crc = gzip ? new CRC32() : null;
+			buf = buffer();
+		}
+
+		private int next() throws IOException {
+			int b = is.read();
+			if (b == -1)
+				throw new EOFException("truncated gzip stream");
+			return b;
+		}
+
+		private void header() throws IOException { // as written by any gzip encoder
+			if (next() != 0x1f || next() != 0x8b || next() != Deflater.DEFLATED)
+				throw new ZipException("not in gzip format");
+			int flags = next();
+			for (int i = 0; i < 6; i++) // time, extra flags, os
+				next();
+			if ((flags & 4) != 0) // extra field
+				for (int i = next() | next() << 8; i > 0; i--)
+					next();
+			if ((flags & 8) != 0) // file name
+				while (next() != 0)
+					;
+			if ((flags & 16) != 0) // comment
+				while (next() != 0)
+					;
+			if ((flags & 2) != 0) // header crc
+				next();
+		}
+
+		public int read() throws IOException {
+			byte b[] = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+		}
+
+		public int read(byte b[], int off, int len) throws IOException {
+			if (buf == null)
+				throw new IOException("stream closed");
+			if (len == 0)
+				return 0;
+			try {
+				while (!eof) {
+					int n = inflater.inflate(b, off, len);
+					if (n > 0) {
+						if (crc != null)
+							crc.update(b, off, n);
+						return n;
+					}
+					if (inflater.finished()) {
+						eof = true;
+						if (crc != null)
+							trailer();
+					} else if (inflater.needsDictionary())
+						dictionary(inflater);
+					else if (inflater.needsInput()) {
+						filled = is.read(buf, 0, buf.length);
+						if (filled == -1)
+							throw new EOFException("truncated deflate stream");
+						inflater.setInput(buf, 0, filled);
+					}
+				}
+			} catch (DataFormatException x) {
+				throw new ZipException(x.getMessage());
+			}
+			return -1;
+		}
+
+		private void trailer() throws IOException {
+			byte b[] = new byte[8];
+			int n = Math.min(inflater.getRemaining(), 8);
+			System.arraycopy(buf, filled - inflater.getRemaining(), b, 0, n);
+			while (n < 8)
+				b[n++] = (byte) next();
+			if (!Arrays.equals(b, Codec.trailer(crc.getValue(), inflater.getBytesWritten())))
+				throw new ZipException("corrupt gzip trailer");
+		}
+
+		public void close() throws IOException {
+			if (buf == null)
+				return;
+			release(inflater, crc != null);
+			buffers.give(buf);
+			buf = null;
+			is.close();
+		}
+	}
+
+	// the LZ block format: a sequence of blocks, each its uncompressed length,
+	// and compressed length, as big endian ints, or equal if stored as is,
+	// followed by its data; ending with a zero length. A compressed block is a
+	// sequence of tokens, each holding a count of literal bytes to copy, and
+	// the length of the following match, if any, less four; if either is 15 or
+	// more, the remainder follows in bytes of 255 or less, then the literals,
+	// then the match's distance back, as a two byte little endian value.
+	private static final int BLOCK = 1 << 16, HASH = 14;
+
+	private static final class Scratch { // the buffers of an LZ stream
+		private byte block[], packed[]; // grown as needed
+		private int table[];
+
+		private static Scratch take() {
+			Scratch s = (Scratch) scratches.take();
+			return s != null ? s : new Scratch();
+		}
+	}
+
+	private static final class LZOutputStream extends OutputStream {
+		private final OutputStream os;
+		private Scratch s = Scratch.take();
+		private int count;
+
+		private LZOutputStream(OutputStream os) {
+			this.os = os;
+			if (s.block == null)
+				s.block = new byte[512];
+		}
+
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		public void write(byte b[], int off, int len) throws IOException {
+			if (s == null)
+				throw new IOException("stream closed");
+			while (len > 0) {
+				if (count == s.block.length)
+					grow();
+				int n = Math.min(len, s.block.length - count);
+				System.arraycopy(b, off, s.block, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void grow() throws IOException {
+			if (s.block.length < BLOCK) {
+				byte b[] = new byte[s.block.length * 2];
+				System.arraycopy(s.block, 0, b, 0, count);
+				s.block = b;
+			} else
+				block();
+		}
+
+		private void block() throws IOException {
+			if (count == 0)
+				return;
+			int bits = Math.max(8, Math.min(HASH, 32 - Integer.numberOfLeadingZeros(count)));
+			if (s.table == null || s.table.length < 1 << bits)
+				s.table = new int[1 << bits];
+			if (s.packed == null || s.packed.length < count + count / 255 + 16)
+				s.packed = new byte[s.block.length + s.block.length / 255 + 16];
+			int n = compress(s.block, count, s.packed, s.table, bits);
+			writeInt(count);
+			if (n < count) {
+				writeInt(n);
+				os.write(s.packed, 0, n);
+			} else { // incompressible, store it
+				writeInt(count);
+				os.write(s.block, 0, count);
+			}
+			count = 0;
+		}
+
+		private void writeInt(int i) throws IOException {
+			os.write(new byte[] { (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i });
+		}
+
+		public void flush() throws IOException {
+			if (s == null)
+				throw new IOException("stream closed");
+			block();
+			os.flush();
+		}
+
+		public void close() throws IOException {
+			if (s == null)
+				return;
+			try {
+				block();
+				writeInt(0);
+				os.flush();
+			} finally {
+				scratches.give(s);
+				s = null;
+				os.close();
+			}
+		}
+	}
+
+	private static final class LZInputStream extends InputStream {
+		private final DataInputStream is;
+		private Scratch s = Scratch.take();
+		private int pos, limit;
+		private boolean eof;
+
+		private LZInputStream(InputStream is) {
+			this.is = new DataInputStream(is);
+		}
+
+		private boolean fill() throws IOException {
+			if (s == null)
+				throw new IOException("stream closed");
+			while (pos == limit && !eof) {
+				int n = is.readInt();
+				if (n == 0) {
+					eof = true;
+					break;
+				}
+				int c = is.readInt();
+				if (n < 0 || n > BLOCK || c <= 0 || c > n)
+					throw new StreamCorruptedException("corrupt lz block header");
+				if (s.block == null || s.block.length < n)
+					s.block = new byte[n];
+				if (c == n)
+					is.readFully(s.block, 0, n);
+				else {
+					if (s.packed == null || s.packed.length < c)
+						s.packed = new byte[c];
+					is.readFully(s.packed, 0, c);
+					decompress(s.packed, c, s.block, n);
+				}
+				pos = 0;
+				limit = n;
+			}
+			return pos < limit;
+		}
+
+		public int read() throws IOException {
+			return fill() ? s.block[pos++] & 0xff : -1;
+		}
+
+		public int read(byte b[], int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!fill())
+				return -1;
+			int n = Math.min(len, limit - pos);
+			System.arraycopy(s.block, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		public int available() {
+			return limit - pos;
+		}
+
+		public void close() throws IOException {
+			if (s == null)
+				return;
+			scratches.give(s);
+			s = null;
+			is.close();
+		}
+	}
+
+	private static int compress(byte src[], int n, byte dst[], int table[], int bits) {
+		Arrays.fill(table, 0, 1 << bits, -1);
+		int ip = 0, anchor = 0, op = 0;
+		while (ip < n - 4) {
+			int seq = int32(src, ip), h = seq * 0x9e3779b1 >>> 32 - bits, ref = table[h];
+			table[h] = ip;
+			if (ref < 0 || ip - ref > 0xffff || int32(src, ref) != seq) {
+				ip += 1 + (ip - anchor >>> 6); // skip faster over incompressible data
+				continue;
+			}
+			int len = 4;
+			while (ip + len < n && src[ref + len] == src[ip + len])
+				len++;
+			op = sequence(src, anchor, ip - anchor, dst, op, ip - ref, len);
+			ip += len;
+			anchor = ip;
+		}
+		return sequence(src, anchor, n - anchor, dst, op, 0, 0);
+	}
+
+	private static int int32(byte b[], int i) {
+		return b[i] << 24 | (b[i + 1] & 0xff) << 16 | (b[i + 2] & 0xff) << 8 | b[i + 3] & 0xff;
+	}
+
+	private static int sequence(byte src[], int anchor, int literals, byte dst[], int op, int offset, int match) {
+		int token = op++;
+		dst[token] = (byte) (Math.min(literals, 15) << 4 | (match == 0 ? 0 : Math.min(match - 4, 15)));
+		if (literals >= 15)
+			op = length(dst, op, literals - 15);
+		System.arraycopy(src, anchor, dst, op, literals);
+		op += literals;
+		if (match > 0) {
+			dst[op++] = (byte) offset;
+			dst[op++] = (byte) (offset >>> 8);
+			if (match - 4 >= 15)
+				op = length(dst, op, match - 19);
+		}
+		return op;
+	}
+
+	private static int length(byte dst[], int op, int length) {
+		for (; length >= 255; length -= 255)
+			dst[op++] = (byte) 255;
+		dst[op++] = (byte) length;
+		return op;
+	}
+
+	private static void decompress(byte src[], int c, byte dst[], int n) throws IOException {
+		int ip = 0, op = 0; // src and dst are pooled, so bounded by c and n, not their lengths
+		decode: while (ip < c) {
+			int token = src[ip++] & 0xff, literals = token >>> 4;
+			if (literals == 15)
+				for (int b = 255; b == 255; literals += b) {
+					if (ip == c)
+						break decode;
+					b = src[ip++] & 0xff;
+				}
+			if (literals > c - ip || literals > n - op)
+				break;
+			System.arraycopy(src, ip, dst, op, literals);
+			ip += literals;
+			op += literals;
+			if (ip == c) {
+				if (op == n)
+					return;
+				break;
+			}
+			if (c - ip < 2)
+				break;
+			int offset = src[ip++] & 0xff | (src[ip++] & 0xff) << 8, match = token & 15;
+			if (match == 15)
+				for (int b = 255; b == 255; match += b) {
+					if (ip == c)
+						break decode;
+					b = src[ip++] & 0xff;
+				}
+			match += 4;
+			if (offset == 0 || offset > op || match > n - op)
+				break;
+			if (offset >= match) {
+				System.arraycopy(dst, op - offset, dst, op, match);
+				op += match;
+			} else // overlapping, a repeating pattern
+				for (int i = op - offset, end = op + match; op < end;)
+					dst[op++] = dst[i++];
+		}
+		throw new StreamCorruptedException("corrupt lz block");
+	}
+
+	private static final class EmbeddedOutputStream extends OutputStream {
+		private final OutputStream os;
+		private byte buf[] = buffer();
+		private int count;
+
+		private EmbeddedOutputStream(OutputStream os) {
+			this.os = os;
+		}
+
+		private void chunk() throws IOException {
+			if (buf == null)
+				throw new IOException("stream closed");
+			if (count > 0) {
+				length(count);
+				os.write(buf, 0, count);
+				count = 0;
+			}
+		}
+
+		private void length(int n) throws IOException {
+			os.write(new byte[] { (byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n });
+		}
+
+		public void write(int b) throws IOException {
+			if (buf == null || count == buf.length)
+				chunk();
+			buf[count++] = (byte) b;
+		}
+
+		public void write(byte b[], int off, int len) throws IOException {
+			while (len > 0) {
+				if (buf == null || count == buf.length)
+					chunk();
+				int n = Math.min(len, buf.length - count);
+				System.arraycopy(b, off, buf, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		public void flush() throws IOException {
+			chunk();
+			os.flush();
+		}
+
+		public void close() throws IOException {
+			if (buf == null)
+				return;
+			chunk();
+			length(0); // the end
+			os.flush();
+			buffers.give(buf);
+			buf = null;
+		}
+	}
+
+	private static final class EmbeddedInputStream extends InputStream {
+		private final DataInputStream is;
+		private int remaining; // of the current chunk
+		private boolean ended;
+
+		private EmbeddedInputStream(InputStream is) {
+			this.is = new DataInputStream(is);
+		}
+
+		private boolean next() throws IOException { // whether data remains
+			while (remaining == 0) {
+				if (ended)
+					return false;
+				int n = is.readInt();
+				if (n < 0)
+					throw new StreamCorruptedException("invalid chunk length " + n);
+				if (n == 0)
+					ended = true;
+				remaining = n;
+			}
+			return true;
+		}
+
+		public int read() throws IOException {
+			if (!next())
+				return -1;
+			int b = is.read();
+			if (b == -1)
+				throw new EOFException("truncated embedded data");
+			remaining--;
+			return b;
+		}
+
+		public int read(byte b[], int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!next())
+				return -1;
+			int n = is.read(b, off, Math.min(len, remaining));
+			if (n == -1)
+				throw new EOFException("truncated embedded data");
+			remaining -= n;
+			return n;
+		}
+
+		public int available() throws IOException {
+			return Math.min(remaining, is.available());
+		}
+
+		public void close() throws IOException {
+			while (next()) {
+				int n = is.skipBytes(remaining);
+				if (n == 0)
+					read(); // fails at the end of the stream
+				else
+					remaining -= n;
+			}
+		}
+	}
+
+	private static int hash(byte b[], int i) { // of the eight bytes there
+		long k = 0;
+		for (int j = 0; j < 8; j++)
+			k = k << 8 | b[i + j] & 0xff;
+		return (int) (k * 0x9e3779b97f4a7c15L >>> 64 - 22);
+	}
+
+	/**
+	 * This method builds a preset dictionary from sample data, such as
+	 * captured invocation payloads. It selects the segments of the samples
+	 * containing the most sequences found in many samples, rather than often
+	 * within a few, and places the best at the end of the dictionary, where
+	 * they are cheapest to refer to.
+	 *
+	 * @param samples
+	 *            The sample data, each typically a single message
+	 * @param size
+	 *            The maximum size of the dictionary, at most 32kB is useful
+	 * @return The dictionary
+	 */
+	public static byte[] train(byte samples[][], int size) {
+		final int SEGMENT = 32;
+		int frequency[] = new int[1 << 22], seen[] = new int[1 << 22];
+		Arrays.fill(seen, -1);
+		int candidates = 0;
+		for (int s = 0; s < samples.length; s++) {
+			for (int i = 0; i + 8 <= samples[s].length; i++) {
+				int h = hash(samples[s], i);
+				if (seen[h] != s) { // count each sequence once per sample
+					seen[h] = s;
+					frequency[h]++;
+				}
+			}
+			candidates += samples[s].length / (SEGMENT / 2);
+		}
+		int sample[] = new int[candidates], offset[] = new int[candidates];
+		long order[] = new long[candidates]; // score, and candidate index
+		int n = 0;
+		for (int s = 0; s < samples.length; s++)
+			for (int i = 0; i + SEGMENT <= samples[s].length; i += SEGMENT / 2) {
+				long score = 0;
+				for (int j = i; j + 8 <= i + SEGMENT; j++)
+					score += frequency[hash(samples[s], j)] - 1;
+				sample[n] = s;
+				offset[n] = i;
+				order[n] = score << 32 | n;
+				n++;
+			}
+		Arrays.sort(order, 0, n);
+		Arrays.fill(seen, 0); // now whether covered by the dictionary
+		ArrayList segments = new ArrayList();
+		int length = 0;
+		for (int c = n - 1; c >= 0 && length < size; c--) {
+			int k = (int) order[c], s = sample[k], i = offset[k], start = -1, end = 0;
+			long score = 0;
+			for (int j = i; j + 8 <= i + SEGMENT; j++) {
+				int h = hash(samples[s], j);
+				if (seen[h] == 0)
+					score += frequency[h] - 1;
+				if (frequency[h] > 1) { // trimmed to the sequences shared
+					if (start < 0)
+						start = j;
+					end = j + 8;
+				}
+			}
+			if (score <= 0 || score < (order[c] >> 32) / 2)
+				continue; // mostly covered already
+			end = Math.min(end, start + size - length);
+			for (int j = start; j + 8 <= end; j++)
+				seen[hash(samples[s], j)] = 1;
+			segments.add(Arrays.copyOfRange(samples[s], start, end));
+			length += end - start;
+		}
+		byte dictionary[] = new byte[length];
+		for (int i = 0, j = length; i < segments.size(); i++) { // the best last
+			byte segment[] = (byte[]) segments.get(i);
+			j -= segment.length;
+			System.arraycopy(segment, 0, dictionary, j, segment.length);
+		}
+		return dictionary;
+	}
+
+	private static byte[] payload(ByteBuffer frame, int header) {
+		return Arrays.copyOfRange(frame.array(), 4 + header, frame.limit());
+	}
+
+	/**
+	 * The application method trains a preset dictionary, and reports how
+	 * well the samples compress with it. It is invoked as:
+	 * <blockquote><tt>
+	 * java -cp cajo.jar:app.jar gnu.cajo.invoke.Codec dictionary size
+	 * sample...</tt></blockquote>
+	 * where the dictionary is the file to which to write it, and the size its
+	 * maximum size in bytes. Each sample file is either an object log written
+	 * by a {@link gnu.cajo.utils.MonitorItem MonitorItem}, optionally GZIP
+	 * compressed, from which each invocation's arguments, and result, are
+	 * taken as individual samples, encoded as the multiplexed transport would
+	 * send them; or any other file, which is taken as a single sample. The
+	 * classes of the logged objects must be on the classpath. The dictionary
+	 * can then be loaded by the application, and registered, or given to
+	 * {@link Remote#dictionary Remote.dictionary}.
+	 *
+	 * @param args
+	 *            The dictionary file, its size, and the sample files
+	 * @throws Exception
+	 *             If a file could not be read, or written
+	 */
+	public static void main(String args[]) throws Exception {
+		if (args.length < 3) {
+			System.err.println("usage: Codec dictionary size sample...");
+			return;
+		}
+		ArrayList samples = new ArrayList();
+		int skipped = 0;
+		for (int f = 2; f < args.length; f++) {
+			InputStream is = new BufferedInputStream(new FileInputStream(args[f]));
+			try {
+				is.mark(4);
+				int b0 = is.read(), b1 = is.read();
+				is.reset();
+				if (b0 == 0x1f && b1 == 0x8b) {
+					is = new BufferedInputStream(new GZIPInputStream(is));
+					is.mark(4);
+					b0 = is.read();
+					b1 = is.read();
+					is.reset();
+				}
+				if (b0 != 0xac || b1 != 0xed) { // not an object log
+					ByteArrayOutputStream baos = new ByteArrayOutputStream();
+					byte buf[] = new byte[8192];
+					for (int r; (r = is.read(buf)) != -1;)
+						baos.write(buf, 0, r);
+					samples.add(baos.toByteArray());
+					continue;
+				}
+				ObjectInputStream ois = new ObjectInputStream(is);
+				try {
+					while (true) {
+						Object record[];
+						try {
+							record = (Object[]) ((MarshalledObject) ois.readObject()).get();
+						} catch (EOFException x) {
+							break;
+						} catch (ClassNotFoundException x) {
+							skipped++;
+							continue;
+						}
+						samples.add(payload(
+								MuxFrame.request(0, 0, MuxFrame.INVOKE, (String) record[2], 0, record[3], null),
+								MuxFrame.REQUEST));
+						samples.add(payload(MuxFrame.response(0, record[4], record[4] instanceof Throwable, null),
+								MuxFrame.RESPONSE));
+					}
+				} finally {
+					ois.close();
+				}
+			} finally {
+				is.close();
+			}
+		}
+		byte data[][] = (byte[][]) samples.toArray(new byte[samples.size()][]);
+		byte dictionary[] = train(data, Integer.parseInt(args[1]));
+		FileOutputStream fos = new FileOutputStream(args[0]);
+		try {
+			fos.write(dictionary);
+		} finally {
+			fos.close();
+		}
+		long original = 0, plain = 0, preset = 0;
+		for (int i = 0; i < data.length; i++) {
+			byte z[] = deflate(data[i], 0, data[i].length, null);
+			byte d[] = deflate(data[i], 0, data[i].length, dictionary);
+			original += data[i].length;
+			plain += z != null ? z.length : data[i].length;
+			preset += d != null ? d.length : data[i].length;
+		}
+		System.out.println(data.length + " samples, " + original + " bytes" + (skipped > 0 ? ", " + skipped
+				+ " log records skipped, their classes were not found" : ""));
+		System.out.println("dictionary " + Integer.toHexString(register(dictionary)) + ", " + dictionary.length
+				+ " bytes, written to " + args[0]);
+		System.out.println("compressed without it: " + plain + " bytes, with it: " + preset + " bytes");
+	}
+}
@@ -0,0 +1,270 @@
+package gnu.cajo.invoke;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/*
+ * Compiled Method Invoker (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Invoker.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class performs the invocation of a method selected
+ * by a {@link MethodTable MethodTable}. There is one instance per resolved
+ * method, shared by all of the signatures which select it.
+ * <p>
+ * Normally the method is invoked by reflection. When compilation has been
+ * enabled via {@link Remote#compile Remote.compile}, an instance method
+ * taking up to three arguments is turned, on its first use, into a direct
+ * call site generated by the java.lang.invoke.LambdaMetafactory, which
+ * the JIT can inline like any other call. Methods which cannot be compiled,
+ * e.g. static methods, or those of classes not visible to the library's
+ * classloader, silently continue to use reflection. Compilation needs a
+ * private lookup of the item class, which requires JRE 9+; on JRE 1.8, all
+ * methods are invoked by reflection. Once compilation is disabled again, so
+ * are methods already compiled, until it is re-enabled.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class Invoker {
+	// The call site shapes generated by the LambdaMetafactory, by arity. They
+	// are public, as they are implemented in the package of the item class.
+	public interface Call0 {
+		Object call(Object item) throws Exception;
+	}
+
+	public interface Call1 {
+		Object call(Object item, Object a) throws Exception;
+	}
+
+	public interface Call2 {
+		Object call(Object item, Object a, Object b) throws Exception;
+	}
+
+	public interface Call3 {
+		Object call(Object item, Object a, Object b, Object c) throws Exception;
+	}
+
+	public interface Send0 {
+		void send(Object item) throws Exception;
+	}
+
+	public interface Send1 {
+		void send(Object item, Object a) throws Exception;
+	}
+
+	public interface Send2 {
+		void send(Object item, Object a, Object b) throws Exception;
+	}
+
+	public interface Send3 {
+		void send(Object item, Object a, Object b, Object c) throws Exception;
+	}
+
+	private static final Class CALLS[] = { Call0.class, Call1.class, Call2.class, Call3.class },
+			SENDS[] = { Send0.class, Send1.class, Send2.class, Send3.class };
+	private static final Object UNCOMPILABLE = new Object();
+	static volatile boolean compile;
+
+	/**
+	 * The method this object invokes.
+	 */
+	final Method method;
+	private final Class[] types;
+	private final boolean primitive, send;
+	private volatile Object compiled;
+
+	Invoker(Method method) {
+		this.method = method;
+		types = method.getParameterTypes();
+		boolean primitive = false;
+		for (int i = 0; i < types.length; i++)
+			primitive |= types[i].isPrimitive();
+		this.primitive = primitive;
+		send = method.getReturnType() == void.class;
+		try {
+			method.setAccessible(true);
+		} catch (RuntimeException x) {
+			/* security manager, or module encapsulation */ }
+		if (types.length > 3 || Modifier.isStatic(method.getModifiers()))
+			compiled = UNCOMPILABLE;
+	}
+
+	private static Exception unwrap(Throwable t) {
+		return t instanceof Exception ? (Exception) t : new Exception(t.getMessage(), t);
+	}
+
+	private synchronized Object compile() {
+		if (compiled != null)
+			return compiled;
+		try {
+			Class type = method.getDeclaringClass();
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			MethodHandle target = lookup.unreflect(method);
+			Class erased[] = new Class[types.length + 1], instantiated[] = new Class[types.length + 1];
+			erased[0] = Object.class;
+			instantiated[0] = type;
+			for (int i = 0; i < types.length; i++) {
+				erased[i + 1] = Object.class;
+				instantiated[i + 1] = Remote.autobox(types[i]);
+			}
+			Class sam = send ? SENDS[types.length] : CALLS[types.length];
+			Class result = send ? void.class : Object.class;
+			CallSite site = LambdaMetafactory.metafactory(lookup, send ? "send" : "call",
+					MethodType.methodType(sam), MethodType.methodType(result, erased), target,
+					MethodType.methodType(send ? void.class : Remote.autobox(method.getReturnType()), instantiated));
+			compiled = site.getTarget().invokeWithArguments(new Object[0]);
+		} catch (Throwable t) { // inaccessible lookup class, invisible interface, or JRE 1.8
+			compiled = UNCOMPILABLE;
+		}
+		return compiled;
+	}
+
+	private Object compiled() { // kept once compiled, but used only while enabled
+		if (!compile)
+			return null;
+		Object call = compiled;
+		if (call == null)
+			call = compile();
+		return call != UNCOMPILABLE ? call : null;
+	}
+
+	/**
+	 * This method invokes the method on the item provided. The arguments must
+	 * have been matched against the method's signature already.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, ignored if static
+	 * @param args
+	 *            The arguments, or null, if the method takes none
+	 * @return The result, or null, if the method is declared void
+	 * @throws Exception
+	 *             Whatever the method threw, unwrapped from its
+	 *             InvocationTargetException; a java.lang.Error will be
+	 *             converted to an Exception, with the error as its cause
+	 */
+	Object invoke(Object item, Object args[]) throws Exception {
+		Object call = compiled();
+		if (call != null && !(primitive && hasNull(args)))
+			try {
+				switch (types.length) {
+				case 0:
+					if (send) {
+						((Send0) call).send(item);
+						return null;
+					}
+					return ((Call0) call).call(item);
+				case 1:
+					if (send) {
+						((Send1) call).send(item, args[0]);
+						return null;
+					}
+					return ((Call1) call).call(item, args[0]);
+				case 2:
+					if (send) {
+						((Send2) call).send(item, args[0], args[1]);
+						return null;
+					}
+					return ((Call2) call).call(item, args[0], args[1]);
+				default:
+					if (send) {
+						((Send3) call).send(item, args[0], args[1], args[2]);
+						return null;
+					}
+					return ((Call3) call).call(item, args[0], args[1], args[2]);
+				}
+			} catch (Error e) {
+				throw unwrap(e);
+			}
+		try {
+			return method.invoke(item, args);
+		} catch (InvocationTargetException x) {
+			throw unwrap(x.getTargetException());
+		}
+	}
+
+	/**
+	 * This method invokes a method taking no arguments, on the item provided.
+	 * If the method is compiled, the invocation allocates nothing beyond the
+	 * boxing of a primitive result.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, ignored if static
+	 * @return The result, or null, if the method is declared void
+	 * @throws Exception
+	 *             As described for the general invoke method
+	 */
+	Object invoke0(Object item) throws Exception {
+		Object call = compiled();
+		if (call != null)
+			try {
+				if (send) {
+					((Send0) call).send(item);
+					return null;
+				}
+				return ((Call0) call).call(item);
+			} catch (Error e) {
+				throw unwrap(e);
+			}
+		return invoke(item, (Object[]) null);
+	}
+
+	/**
+	 * This method invokes a method taking a single argument, on the item
+	 * provided, without wrapping the argument in an array. If the method is
+	 * compiled, the invocation allocates nothing beyond the boxing of a
+	 * primitive result; otherwise the argument is wrapped in an array for
+	 * reflection.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, ignored if static
+	 * @param arg
+	 *            The sole argument to the method
+	 * @return The result, or null, if the method is declared void
+	 * @throws Exception
+	 *             As described for the general invoke method
+	 */
+	Object invoke1(Object item, Object arg) throws Exception {
+		Object call = compiled();
+		if (call != null && !(primitive && arg == null))
+			try {
+				if (send) {
+					((Send1) call).send(item, arg);
+					return null;
+				}
+				return ((Call1) call).call(item, arg);
+			} catch (Error e) {
+				throw unwrap(e);
+			}
+		return invoke(item, new Object[] { arg });
+	}
+
+	private static boolean hasNull(Object args[]) { // reflection rejects these
+		for (int i = 0; args != null && i < args.length; i++)
+			if (args[i] == null)
+				return true;
+		return false;
+	}
+}
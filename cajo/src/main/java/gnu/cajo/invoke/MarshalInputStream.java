@@ -0,0 +1,85 @@
+package gnu.cajo.invoke;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.rmi.server.RMIClassLoader;
+
+/*
+ * Codebase Resolving Object Input Stream
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MarshalInputStream.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This stream reads objects written by a
+ * {@link MarshalOutputStream MarshalOutputStream}. Classes are loaded from
+ * their annotated codebase, if the RMI class loading policy of this VM
+ * permits, otherwise via the classloader provided, as the get method of a
+ * java.rmi.MarshalledObject would.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class MarshalInputStream extends ObjectInputStream {
+	private final ClassLoader loader;
+
+	/**
+	 * The constructor reads the stream header.
+	 *
+	 * @param is
+	 *            The stream from which to read the objects
+	 * @param loader
+	 *            The classloader with which to resolve classes not annotated
+	 *            with a codebase, null for the context classloader
+	 * @throws IOException
+	 *             If the stream header could not be read
+	 */
+	public MarshalInputStream(InputStream is, ClassLoader loader) throws IOException {
+		super(is);
+		this.loader = loader;
+	}
+
+	/**
+	 * This method loads a class from its annotated codebase.
+	 *
+	 * @param desc
+	 *            The description of the class
+	 * @return The class
+	 */
+	protected Class resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+		String codebase = (String) readObject();
+		try {
+			return RMIClassLoader.loadClass(codebase, desc.getName(), loader);
+		} catch (ClassNotFoundException x) { // e.g. primitive types
+			return super.resolveClass(desc);
+		}
+	}
+
+	/**
+	 * This method loads a dynamic proxy class from its annotated codebase.
+	 *
+	 * @param interfaces
+	 *            The names of the interfaces it implements
+	 * @return The proxy class
+	 */
+	protected Class resolveProxyClass(String interfaces[]) throws IOException, ClassNotFoundException {
+		String codebase = (String) readObject();
+		return RMIClassLoader.loadProxyClass(codebase, interfaces, loader);
+	}
+}
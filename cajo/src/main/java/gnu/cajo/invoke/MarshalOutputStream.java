@@ -0,0 +1,94 @@
+package gnu.cajo.invoke;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.rmi.NoSuchObjectException;
+import java.rmi.server.RMIClassLoader;
+import java.rmi.server.RemoteObject;
+
+/*
+ * Codebase Annotating Object Output Stream
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MarshalOutputStream.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This stream serialises objects as a java.rmi.MarshalledObject does: each
+ * class is annotated with the codebase from which it may be loaded, and
+ * exported remote objects are replaced with their stubs. Unlike a
+ * MarshalledObject, it writes straight to the underlying stream, rather
+ * than to an array of bytes, which must then be serialised again. It is read
+ * by a {@link MarshalInputStream MarshalInputStream}, and so only by this
+ * release of the library, or later ones; objects which wrap their content in
+ * a MarshalledObject for earlier releases may omit the wrapper on it.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class MarshalOutputStream extends ObjectOutputStream {
+	/**
+	 * The constructor writes the stream header.
+	 *
+	 * @param os
+	 *            The stream on which to write the objects
+	 * @throws IOException
+	 *             If the stream header could not be written
+	 */
+	public MarshalOutputStream(OutputStream os) throws IOException {
+		super(os);
+		enableReplaceObject(true);
+	}
+
+	/**
+	 * This method writes the codebase of a class, null if it has none.
+	 *
+	 * @param c
+	 *            The class being written
+	 */
+	protected void annotateClass(Class c) throws IOException {
+		writeObject(RMIClassLoader.getClassAnnotation(c));
+	}
+
+	/**
+	 * This method writes the codebase of a dynamic proxy class.
+	 *
+	 * @param c
+	 *            The proxy class being written
+	 */
+	protected void annotateProxyClass(Class c) throws IOException {
+		writeObject(RMIClassLoader.getClassAnnotation(c));
+	}
+
+	/**
+	 * This method substitutes exported remote objects with their stubs.
+	 *
+	 * @param o
+	 *            The object being written
+	 * @return The object to be written in its place
+	 */
+	protected Object replaceObject(Object o) throws IOException {
+		if (o instanceof java.rmi.Remote && !Proxy.isProxyClass(o.getClass())
+				&& !(o instanceof java.rmi.server.RemoteStub))
+			try {
+				return RemoteObject.toStub((java.rmi.Remote) o);
+			} catch (NoSuchObjectException x) {
+				/* not exported, e.g. already a stub */ }
+		return o;
+	}
+}
@@ -0,0 +1,453 @@
+package gnu.cajo.invoke;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Per-Class Method Dispatch Table (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MethodTable.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class holds the method selection cache used by
+ * {@link Remote#findBestMethod findBestMethod}, one table per item class. The
+ * tables are attached to their classes via a java.lang.ClassValue, so when a
+ * proxy classloader is discarded, its tables are collected along with it.
+ * <p>
+ * Lookups are lock-free; the bucket array is replaced copy-on-write whenever a
+ * new signature is resolved, which is rare once a class has warmed up. A cache
+ * hit is a single hash probe over the method name and argument classes, and
+ * allocates nothing. Signatures with argument classes from a classloader other
+ * than the item class', or one of its parents, are kept apart, in a small
+ * table holding their classes only weakly, so as not to keep that loader from
+ * being collected; it holds the last {@link #FOREIGN FOREIGN} of them, and
+ * lookups in it are a linear scan, under a lock. Signatures beyond those are
+ * resolved again on every call, as counted by
+ * {@link Remote#getDispatchForeign getDispatchForeign}.
+ * <p>
+ * Each table also numbers the class' public method names, in sorted order, so
+ * remote clients may call by method id rather than by name. An id selects the
+ * table's own interned copy of the name, which is then matched by identity.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class MethodTable {
+	private static final Class[] CLASS = {};
+	private static final int FAILURES = 64; // most unmatched signatures kept
+	/**
+	 * The most signatures with argument classes from foreign classloaders
+	 * kept per table.
+	 */
+	static final int FOREIGN = 32;
+	private static final LongAdder hits = new LongAdder(), misses = new LongAdder(), foreign = new LongAdder();
+	private static final ClassValue tables = new ClassValue() {
+		protected Object computeValue(Class type) {
+			return new MethodTable(type);
+		}
+	};
+
+	private static final class Entry {
+		private final String name;
+		private final Class[] args;
+		private final Invoker invoker;
+		private final int hash;
+		private final Entry next;
+
+		private Entry(String name, Class[] args, Invoker invoker, int hash, Entry next) {
+			this.name = name;
+			this.args = args;
+			this.invoker = invoker;
+			this.hash = hash;
+			this.next = next;
+		}
+
+		private boolean matches(String name, int length) {
+			return (this.name == name || name != null && name.equals(this.name)) && args.length == length;
+		}
+
+		private boolean matches(String name, Class[] args) {
+			if (!matches(name, args.length))
+				return false;
+			for (int i = 0; i < args.length; i++)
+				if (this.args[i] != args[i])
+					return false;
+			return true;
+		}
+
+		private boolean matches(String name, Object[] args) {
+			if (!matches(name, args.length))
+				return false;
+			for (int i = 0; i < args.length; i++)
+				if (this.args[i] != (args[i] != null ? args[i].getClass() : null))
+					return false;
+			return true;
+		}
+	}
+
+	private static final class Foreign { // its argument classes held weakly
+		private final String name;
+		private final WeakReference[] args;
+		private final Invoker invoker;
+
+		private Foreign(String name, Class[] args, Invoker invoker) {
+			this.name = name;
+			this.args = new WeakReference[args.length];
+			for (int i = 0; i < args.length; i++)
+				if (args[i] != null)
+					this.args[i] = new WeakReference(args[i]);
+			this.invoker = invoker;
+		}
+
+		private boolean matches(String name, Class[] args) {
+			if (!this.name.equals(name) || this.args.length != args.length)
+				return false;
+			for (int i = 0; i < args.length; i++)
+				if (this.args[i] == null ? args[i] != null : args[i] == null || this.args[i].get() != args[i])
+					return false;
+			return true;
+		}
+	}
+
+	private final Class type;
+	private final HashMap methods = new HashMap(); // name -> Method[], read only
+	private final HashMap invokers = new HashMap(); // Method -> Invoker, guarded
+	/**
+	 * The sorted names of the class' public methods, indexed by method id.
+	 */
+	final String[] names;
+	/**
+	 * Whether the class implements {@link Invoke Invoke}, so that its instances
+	 * are invoked through it, rather than dispatched by this table; it spares
+	 * the interface tests, which are costly when they fail.
+	 */
+	final boolean invoke;
+	private volatile Entry[] table = new Entry[16];
+	private int size, failures;
+	private final Foreign[] foreigns = new Foreign[FOREIGN]; // guarded
+	private int next; // the foreign entry to be replaced next
+
+	private MethodTable(Class type) {
+		this.type = type;
+		invoke = Invoke.class.isAssignableFrom(type);
+		Method ms[] = type.getMethods();
+		HashMap lists = new HashMap();
+		for (int i = 0; i < ms.length; i++) {
+			ArrayList list = (ArrayList) lists.get(ms[i].getName());
+			if (list == null) {
+				list = new ArrayList();
+				lists.put(ms[i].getName(), list);
+			}
+			list.add(ms[i]);
+		}
+		Object names[] = lists.keySet().toArray();
+		for (int i = 0; i < names.length; i++)
+			methods.put(names[i], ((ArrayList) lists.get(names[i])).toArray(new Method[0]));
+		this.names = (String[]) lists.keySet().toArray(new String[names.length]);
+		Arrays.sort(this.names); // method names are interned
+		for (int i = 0; i < ms.length; i++) { // pre-resolve the declared signatures
+			Class margs[] = ms[i].getParameterTypes();
+			for (int j = 0; j < margs.length; j++)
+				margs[j] = Remote.autobox(margs[j]);
+			if (visible(margs)) // foreign ones are left to their first lookup
+				insert(ms[i].getName(), margs, hash(ms[i].getName(), margs));
+		}
+	}
+
+	private static int hash(String name) {
+		return name != null ? name.hashCode() : 0;
+	}
+
+	private static int hash(int hash, Class arg) {
+		return hash * 31 + (arg != null ? arg.hashCode() : 0);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int hash(String name, Class[] args) {
+		int hash = hash(name);
+		for (int i = 0; i < args.length; i++)
+			hash = hash(hash, args[i]);
+		return spread(hash);
+	}
+
+	private Method resolve(String name, Class[] args) {
+		if (name == null)
+			return null;
+		Method ms[] = (Method[]) methods.get(name);
+		if (ms == null)
+			return null;
+		ArrayList matchList = new ArrayList();
+		if (args.length > 0) { // if arguments...
+			list: for (int i = 0; i < ms.length; i++) { // list compatible methods
+				Class margs[] = ms[i].getParameterTypes();
+				if (margs.length == args.length) {
+					for (int j = 0; j < args.length; j++)
+						if (args[j] != null && !Remote.autobox(margs[j]).isAssignableFrom(Remote.autobox(args[j])))
+							continue list;
+					matchList.add(ms[i]);
+				}
+			}
+			if (matchList.size() == 0)
+				return null; // no joy :(
+		} else
+			try {
+				matchList.add(type.getMethod(name, null));
+			} catch (NoSuchMethodException x) {
+				return null;
+			} // no no-arg method :(
+		Method best = matchList.size() == 1 ? (Method) matchList.get(0) : null;
+		if (best == null) { // if more than one method match...
+			for (int i = 0, goodness = -1; i < matchList.size(); i++) {
+				int closeness = 0;
+				Method m = (Method) matchList.get(i);
+				Class margs[] = m.getParameterTypes();
+				for (int j = 0; j < args.length; j++)
+					if (args[j] != null && Remote.autobox(args[j]).isAssignableFrom(Remote.autobox(margs[j])))
+						closeness++;
+				if (closeness > goodness) {
+					best = m;
+					if (closeness == args.length)
+						break; // won't find better fit
+					goodness = closeness;
+				}
+			}
+		}
+		return best;
+	}
+
+	private synchronized Invoker invoker(Method method) { // one per method
+		if (method == null)
+			return null;
+		Invoker invoker = (Invoker) invokers.get(method);
+		if (invoker == null) {
+			invoker = new Invoker(method);
+			invokers.put(method, invoker);
+		}
+		return invoker;
+	}
+
+	private boolean visible(Class arg) { // i.e. it lives at least as long
+		if (arg == null)
+			return true;
+		ClassLoader loader = arg.getClassLoader();
+		if (loader == null)
+			return true;
+		for (ClassLoader l = type.getClassLoader(); l != null; l = l.getParent())
+			if (l == loader)
+				return true;
+		return false;
+	}
+
+	private boolean visible(Class[] args) {
+		for (int i = 0; i < args.length; i++)
+			if (!visible(args[i]))
+				return false;
+		return true;
+	}
+
+	private Invoker foreign(String name, Class[] args) {
+		synchronized (foreigns) {
+			for (int i = 0; i < foreigns.length; i++)
+				if (foreigns[i] != null && foreigns[i].matches(name, args)) {
+					hits.increment();
+					return foreigns[i].invoker;
+				}
+		}
+		misses.increment();
+		foreign.increment();
+		Invoker invoker = invoker(resolve(name, args));
+		synchronized (foreigns) {
+			foreigns[next] = new Foreign(name, args, invoker);
+			next = (next + 1) % foreigns.length;
+		}
+		return invoker;
+	}
+
+	private Invoker put(String name, Class[] args, int hash) {
+		if (name == null || !methods.containsKey(name)) {
+			misses.increment();
+			return null; // not a method at all, so not worth an entry
+		}
+		if (!visible(args)) // an entry would keep its loader alive
+			return foreign(name, args);
+		misses.increment();
+		return insert(name, args, hash);
+	}
+
+	private synchronized Invoker insert(String name, Class[] args, int hash) {
+		Entry tab[] = table;
+		for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+			if (e.hash == hash && e.matches(name, args))
+				return e.invoker; // resolved concurrently
+		Invoker invoker = invoker(resolve(name, args));
+		if (invoker == null && failures >= FAILURES)
+			return null; // bound the entries a caller can create
+		else if (invoker == null)
+			failures++;
+		if (++size > tab.length * 3 / 4) { // grow
+			Entry grown[] = new Entry[tab.length * 2];
+			for (int i = 0; i < tab.length; i++)
+				for (Entry e = tab[i]; e != null; e = e.next) {
+					int index = e.hash & (grown.length - 1);
+					grown[index] = new Entry(e.name, e.args, e.invoker, e.hash, grown[index]);
+				}
+			tab = grown;
+		} else
+			tab = (Entry[]) tab.clone();
+		int index = hash & (tab.length - 1);
+		tab[index] = new Entry(name, args.length > 0 ? (Class[]) args.clone() : CLASS, invoker, hash, tab[index]);
+		table = tab; // publish
+		return invoker;
+	}
+
+	/**
+	 * This method returns the dispatch table of the class provided, building it
+	 * on first use.
+	 *
+	 * @param type
+	 *            The class whose public methods are to be dispatched
+	 * @return The table, shared by all instances of the class
+	 */
+	static MethodTable of(Class type) {
+		return (MethodTable) tables.get(type);
+	}
+
+	/**
+	 * This method returns the most applicable public method for the name and
+	 * argument classes provided, following the rules of
+	 * {@link Remote#findBestMethod findBestMethod}. Signatures of existing
+	 * methods, which match none of them, are cached as well, up to a limit, so
+	 * repeated failing lookups are just as cheap; names which are not methods
+	 * at all are rejected without an entry.
+	 *
+	 * @param name
+	 *            The name of the method to be invoked
+	 * @param args
+	 *            The argument classes, never null, elements may be null
+	 * @return The invoker of the most applicable method, or null, if none
+	 *         match
+	 */
+	Invoker lookup(String name, Class[] args) {
+		int hash = hash(name, args);
+		Entry tab[] = table;
+		for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+			if (e.hash == hash && e.matches(name, args)) {
+				hits.increment();
+				return e.invoker;
+			}
+		return put(name, args, hash);
+	}
+
+	/**
+	 * This method returns the invoker for a method taking no arguments, without
+	 * allocating an argument class array.
+	 *
+	 * @param name
+	 *            The name of the method to be invoked
+	 * @return The invoker of the method, or null, if there is none
+	 */
+	Invoker lookup(String name) {
+		int hash = spread(hash(name));
+		Entry tab[] = table;
+		for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+			if (e.hash == hash && e.matches(name, 0)) {
+				hits.increment();
+				return e.invoker;
+			}
+		return put(name, CLASS, hash);
+	}
+
+	/**
+	 * This method returns the most applicable invoker for a single argument of
+	 * the class provided, without allocating an argument class array.
+	 *
+	 * @param name
+	 *            The name of the method to be invoked
+	 * @param arg
+	 *            The class of the argument, it can be null
+	 * @return The invoker of the most applicable method, or null, if none
+	 *         match
+	 */
+	Invoker lookup(String name, Class arg) {
+		int hash = spread(hash(hash(name), arg));
+		Entry tab[] = table;
+		for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+			if (e.hash == hash && e.matches(name, 1) && e.args[0] == arg) {
+				hits.increment();
+				return e.invoker;
+			}
+		return put(name, new Class[] { arg }, hash);
+	}
+
+	/**
+	 * This method returns the most applicable invoker for the argument objects
+	 * provided, without allocating an argument class array.
+	 *
+	 * @param name
+	 *            The name of the method to be invoked
+	 * @param args
+	 *            The arguments, never null, elements may be null
+	 * @return The invoker of the most applicable method, or null, if none
+	 *         match
+	 */
+	Invoker lookup(String name, Object[] args) {
+		int hash = hash(name);
+		for (int i = 0; i < args.length; i++)
+			hash = hash(hash, args[i] != null ? args[i].getClass() : null);
+		hash = spread(hash);
+		Entry tab[] = table;
+		for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+			if (e.hash == hash && e.matches(name, args)) {
+				hits.increment();
+				return e.invoker;
+			}
+		Class types[] = new Class[args.length];
+		for (int i = 0; i < args.length; i++)
+			types[i] = args[i] != null ? args[i].getClass() : null;
+		return put(name, types, hash);
+	}
+
+	/**
+	 * The number of method lookups satisfied by the tables, since startup.
+	 */
+	static long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * The number of method lookups which required resolution, since startup.
+	 */
+	static long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * The number of method lookups with argument classes from foreign
+	 * classloaders which required resolution, since startup.
+	 */
+	static long foreign() {
+		return foreign.sum();
+	}
+}
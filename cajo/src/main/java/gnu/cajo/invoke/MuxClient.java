@@ -0,0 +1,458 @@
+package gnu.cajo.invoke;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/*
+ * Multiplexed Transport Client (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxClient.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class is the client side of the multiplexed
+ * transport. There is a single persistent connection per server, shared by
+ * all of the {@link MuxStub MuxStubs} referring to it. Calling threads write
+ * their request frames directly, and wait for their own response; a single
+ * reader thread per connection matches the responses, which may arrive in any
+ * order, to the waiting requests. Responses are decoded by the thread which
+ * made the call, using its context classloader, as RMI would; or for
+ * asynchronous calls, by a thread of the executor provided.
+ * <p>
+ * Clients on the same host as a server offering a Unix domain socket file
+ * connect via the file, if they can open it, otherwise via TCP. They then
+ * ask the server for a {@link MuxSegment shared memory segment}; if offered,
+ * subsequent calls are made over it, for as long as the socket connection
+ * on which it was negotiated remains open.
+ * <p>
+ * Clients connecting via TCP, if either side holds a preset
+ * {@link Remote#dictionary dictionary}, exchange with the server the
+ * identifiers of the dictionaries they can read; thereafter each compresses
+ * the larger object streams it sends with its own dictionary, if the other
+ * can read it.
+ * <p>
+ * Connections are opened outside of any shared lock, so a slow server delays
+ * only the callers waiting on that server's connection. If a server cannot
+ * be reached, it is not retried for a few seconds, during which its stubs
+ * revert to RMI. If a connection is lost, all of its pending
+ * calls fail with a java.rmi.RemoteException, and the next call reconnects.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class MuxClient implements Runnable {
+	private static final ConcurrentHashMap clients = new ConcurrentHashMap(); // address -> client, or its future
+	private static final ConcurrentHashMap unreachable = new ConcurrentHashMap(); // address -> time
+	private static final long RETRY = 5000; // ms before reconnecting
+
+	/**
+	 * A response, as read from the connection, yet to be decoded.
+	 */
+	static final class Reply {
+		final boolean failed;
+		final byte payload[];
+
+		private Reply(boolean failed, byte payload[]) {
+			this.failed = failed;
+			this.payload = payload;
+		}
+
+		/**
+		 * This method decodes the response.
+		 *
+		 * @param loader
+		 *            The classloader with which to resolve classes not
+		 *            annotated with a codebase, null for the context classloader
+		 *            of the calling thread
+		 * @return The result of the invocation
+		 * @throws Exception
+		 *             The exception thrown by the invocation, or if the response
+		 *             could not be decoded; an error is rethrown as it is
+		 */
+		Object get(ClassLoader loader) throws Exception {
+			Object result;
+			try {
+				result = MuxFrame.read(ByteBuffer.wrap(payload), loader);
+			} catch (IOException x) {
+				throw new java.rmi.UnmarshalException("error unmarshalling return", x);
+			}
+			if (!failed)
+				return result;
+			if (result instanceof Error)
+				throw (Error) result;
+			throw result instanceof Exception ? (Exception) result
+					: new Exception(((Throwable) result).getMessage(), (Throwable) result);
+		}
+	}
+
+	private final String address;
+	private final Closeable socket;
+	private final OutputStream out;
+	private final DataInputStream in;
+	private final ConcurrentHashMap pending = new ConcurrentHashMap(); // id -> future
+	private final AtomicLong ids = new AtomicLong();
+	private volatile boolean closed, negotiated;
+	private volatile MuxClient shared; // via a shared memory segment
+	private volatile byte dictionary[]; // agreed with the server
+
+	private MuxClient(String host, int port, String address) throws IOException {
+		this.address = address;
+		Socket socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		this.socket = socket;
+		out = socket.getOutputStream();
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+		start();
+		negotiate();
+	}
+
+	private MuxClient(SocketAddress path, String address) throws IOException {
+		this.address = address;
+		final SocketChannel channel = SocketChannel.open(StandardProtocolFamily.valueOf("UNIX"));
+		try {
+			channel.connect(path);
+		} catch (IOException x) {
+			channel.close();
+			throw x;
+		}
+		socket = channel;
+		out = new OutputStream() { // the Channels streams serialise reads and writes
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			public void write(byte b[], int off, int len) throws IOException {
+				for (ByteBuffer bb = ByteBuffer.wrap(b, off, len); bb.hasRemaining();)
+					channel.write(bb);
+			}
+		};
+		in = new DataInputStream(new BufferedInputStream(new InputStream() {
+			public int read() throws IOException {
+				byte b[] = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+			}
+
+			public int read(byte b[], int off, int len) throws IOException {
+				return channel.read(ByteBuffer.wrap(b, off, len));
+			}
+		}, 8192));
+		start();
+	}
+
+	private MuxClient(MuxSegment segment, String address) {
+		this.address = address;
+		final MuxSegment closer = segment;
+		socket = new Closeable() {
+			public void close() {
+				closer.close();
+			}
+		};
+		out = segment.output(MuxSegment.REQUESTS);
+		in = new DataInputStream(new BufferedInputStream(segment.input(MuxSegment.RESPONSES), 8192));
+		start();
+	}
+
+	private void start() {
+		Thread reader = new Thread(this, "cajo mux client " + address);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	private void negotiate() { // without waiting, requests are sent plain until agreed
+		int ids[] = MuxFrame.dictionaries();
+		if (ids.length > 0)
+			try {
+				send(0, MuxFrame.DICTIONARY, null, 0, ids).thenAccept(new Consumer() {
+					public void accept(Object reply) {
+						try {
+							dictionary = MuxFrame.agree((int[]) ((Reply) reply).get(null));
+						} catch (Exception x) { // the server holds none
+						}
+					}
+				});
+			} catch (RemoteException x) { // the connection is lost already
+			}
+	}
+
+	/**
+	 * This method returns the connection to the server specified, opening it
+	 * if necessary. The server's Unix domain socket file is preferred, if it
+	 * offers one, and is on this host.
+	 *
+	 * @param host
+	 *            The server's host name or address
+	 * @param port
+	 *            The server's multiplexed transport port
+	 * @param hostId
+	 *            The server's {@link MuxFrame#hostId host identifier}, null if
+	 *            it has no socket file
+	 * @param path
+	 *            The path of the server's socket file, null if none
+	 * @return The connection, or null, if the server could not be reached
+	 *         recently
+	 */
+	static MuxClient get(String host, int port, String hostId, String path) {
+		boolean local = hostId != null && hostId.equals(MuxFrame.hostId());
+		MuxClient client = local && path != null ? get(null, 0, path) : null;
+		if (client != null) { // segments are only offered over the socket file
+			MuxClient shared = client.shared();
+			return shared != null ? shared : client;
+		}
+		return get(host, port, null);
+	}
+
+	/**
+	 * This method returns a connection to the same server via a shared memory
+	 * segment, negotiating it on the first call.
+	 *
+	 * @return The connection, or null, if the server offers none, or it could
+	 *         not be opened
+	 */
+	private MuxClient shared() {
+		if (!negotiated)
+			synchronized (this) {
+				if (!negotiated)
+					try {
+						String path = (String) invoke(0, MuxFrame.SHARE, null, 0, null);
+						if (path != null)
+							shared = new MuxClient(MuxSegment.open(path), "shm:" + address);
+					} catch (Exception x) { // the segment is unusable
+					} catch (LinkageError x) { // prior to JRE 9
+					} finally {
+						negotiated = true;
+					}
+				if (closed && shared != null) // lost during the negotiation
+					shared.close(new IOException("connection to " + address + " lost"));
+			}
+		MuxClient shared = this.shared;
+		return shared != null && !shared.closed ? shared : null;
+	}
+
+	private static MuxClient connect(String host, int port, String path, String address) throws IOException {
+		if (path == null)
+			return new MuxClient(host, port, address);
+		SocketAddress unix = MuxFrame.unix(path);
+		if (unix == null || !new File(path).exists())
+			throw new IOException("no socket file " + path);
+		return new MuxClient(unix, address);
+	}
+
+	private static MuxClient get(String host, int port, String path) {
+		String address = path != null ? "unix:" + path : host + ':' + port;
+		for (;;) {
+			Object entry = clients.get(address);
+			if (entry instanceof MuxClient) {
+				if (!((MuxClient) entry).closed)
+					return (MuxClient) entry;
+				clients.remove(address, entry); // lost, so reconnect
+				continue;
+			}
+			if (entry != null) // being connected by another thread
+				return (MuxClient) ((CompletableFuture) entry).join();
+			Long failed = (Long) unreachable.get(address);
+			if (failed != null && System.currentTimeMillis() - failed.longValue() < RETRY)
+				return null;
+			CompletableFuture connecting = new CompletableFuture();
+			if (clients.putIfAbsent(address, connecting) != null)
+				continue; // another thread got there first
+			MuxClient client = null;
+			try { // outside any lock, as it may take the whole connect timeout
+				client = connect(host, port, path, address);
+				unreachable.remove(address);
+			} catch (IOException x) {
+				unreachable.put(address, new Long(System.currentTimeMillis()));
+			} finally {
+				if (client == null || !clients.replace(address, connecting, client))
+					clients.remove(address, connecting);
+				connecting.complete(client);
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * This method sends a request, and returns immediately.
+	 *
+	 * @param object
+	 *            The id of the target object on the server
+	 * @param kind
+	 *            The kind of request
+	 * @param method
+	 *            The method name, when invoking by name
+	 * @param index
+	 *            The method id, when invoking by id
+	 * @param args
+	 *            The arguments to the invocation
+	 * @return The future response, to be decoded via its get method
+	 * @throws RemoteException
+	 *             If the arguments could not be serialised, or the request could
+	 *             not be sent
+	 */
+	CompletableFuture send(int object, byte kind, String method, int index, Object args) throws RemoteException {
+		return send(new Long(ids.incrementAndGet()), object, kind, method, index, args);
+	}
+
+	private CompletableFuture send(Long key, int object, byte kind, String method, int index, Object args)
+			throws RemoteException {
+		long id = key.longValue();
+		ByteBuffer frame;
+		try {
+			frame = MuxFrame.request(id, object, kind, method, index, args, dictionary);
+		} catch (IOException x) {
+			throw new java.rmi.MarshalException("error marshalling arguments", x);
+		}
+		CompletableFuture reply = new CompletableFuture();
+		pending.put(key, reply);
+		try {
+			synchronized (out) {
+				out.write(frame.array(), 0, frame.limit());
+			}
+		} catch (IOException x) {
+			pending.remove(key);
+			close(x);
+			throw new RemoteException("error sending request to " + address, x);
+		}
+		if (closed && pending.remove(key) != null) // lost during the write
+			throw new RemoteException("connection to " + address + " lost");
+		return reply;
+	}
+
+	/**
+	 * This method sends a request, and waits for its response. Like an RMI
+	 * call, the wait is not interruptible.
+	 *
+	 * @return The result of the invocation
+	 * @throws Exception
+	 *             The exception thrown by the invocation, or a
+	 *             java.rmi.RemoteException for transport related reasons
+	 */
+	Object invoke(int object, byte kind, String method, int index, Object args) throws Exception {
+		try {
+			return ((Reply) send(object, kind, method, index, args).join()).get(null);
+		} catch (CompletionException x) {
+			throw (Exception) x.getCause();
+		}
+	}
+
+	/**
+	 * This method sends a request, and returns a future for its result. The
+	 * result is decoded, and the future completed, on the executor provided,
+	 * never on the connection's reader thread; so dependent actions may freely
+	 * make further remote calls. If the future is cancelled, or completed
+	 * exceptionally, e.g. by a timeout, before the response arrives, the
+	 * response will be discarded.
+	 *
+	 * @param executor
+	 *            The executor on which to decode the result, and complete the
+	 *            future
+	 * @return The future result of the invocation
+	 * @throws RemoteException
+	 *             If the arguments could not be serialised, or the request could
+	 *             not be sent
+	 */
+	CompletableFuture invokeAsync(int object, byte kind, String method, int index, Object args,
+			final Executor executor) throws RemoteException {
+		final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		final Long key = new Long(ids.incrementAndGet());
+		final CompletableFuture reply = send(key, object, kind, method, index, args);
+		final CompletableFuture result = new CompletableFuture();
+		reply.whenComplete(new BiConsumer() {
+			public void accept(final Object r, final Object t) {
+				try {
+					executor.execute(new Runnable() {
+						public void run() {
+							if (t != null)
+								result.completeExceptionally(t instanceof CompletionException
+										? ((Throwable) t).getCause() : (Throwable) t);
+							else
+								try {
+									result.complete(((Reply) r).get(loader));
+								} catch (Exception x) {
+									result.completeExceptionally(x);
+								}
+						}
+					});
+				} catch (RejectedExecutionException x) { // its queue is full
+					result.completeExceptionally(x);
+				}
+			}
+		});
+		result.whenComplete(new BiConsumer() {
+			public void accept(Object r, Object t) {
+				if (t != null && !reply.isDone())
+					pending.remove(key, reply); // abandoned by the caller
+			}
+		});
+		return result;
+	}
+
+	private void close(Exception cause) {
+		closed = true;
+		MuxClient shared = this.shared;
+		if (shared != null && shared != this) // it depends on this connection
+			shared.close(cause);
+		clients.remove(address, this);
+		try {
+			socket.close();
+		} catch (IOException x) {
+		}
+		for (Iterator i = pending.values().iterator(); i.hasNext();) {
+			((CompletableFuture) i.next()).completeExceptionally(
+					new RemoteException("connection to " + address + " lost", cause));
+			i.remove();
+		}
+	}
+
+	public void run() {
+		try {
+			while (true) {
+				int length = in.readInt();
+				if (length < MuxFrame.RESPONSE || length > MuxFrame.MAX)
+					throw new IOException("invalid frame length " + length);
+				long id = in.readLong();
+				boolean failed = in.readByte() == MuxFrame.EXCEPTION;
+				byte payload[] = new byte[length - MuxFrame.RESPONSE];
+				in.readFully(payload);
+				CompletableFuture reply = (CompletableFuture) pending.remove(new Long(id));
+				if (reply != null)
+					reply.complete(new Reply(failed, payload));
+			}
+		} catch (IOException x) {
+			close(x);
+		}
+	}
+}
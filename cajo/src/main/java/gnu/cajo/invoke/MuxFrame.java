@@ -0,0 +1,575 @@
+package gnu.cajo.invoke;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+
+/*
+ * Multiplexed Transport Frame Codec (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxFrame.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class defines the wire format of the multiplexed
+ * transport, used by {@link MuxServer MuxServer} and
+ * {@link MuxClient MuxClient}. Every message is a length prefixed frame,
+ * tagged with the id of the request it belongs to, so that any number of
+ * requests can be outstanding on a connection, and answered in any order.
+ * <p>
+ * A request frame consists of:
+ * <ul>
+ * <li>int, the number of bytes following
+ * <li>long, the request id, chosen by the client
+ * <li>int, the id of the target object on the server
+ * <li>byte, the kind of request: invoke by name, invoke by id, fetch the
+ * method table, negotiate a shared memory segment, or exchange the
+ * identifiers of the preset dictionaries each side holds
+ * <li>the payload, the method name, or id, and the arguments, as a value
+ * </ul>
+ * A response frame consists of:
+ * <ul>
+ * <li>int, the number of bytes following
+ * <li>long, the id of the request answered
+ * <li>byte, the status: a result, or an exception
+ * <li>the payload, the result, or exception, as a value
+ * </ul>
+ * A value begins with a tag byte. Null, the primitive wrappers, strings, the
+ * arrays of bytes, ints, longs, and doubles, and arrays of objects holding
+ * only such values, as invocation arguments usually do, are written
+ * compactly, in their raw binary form, without class descriptors; unless an
+ * array appears in the value more than once, as the compact form would
+ * deliver each appearance as a copy of its own. Any other value, or one
+ * sharing arrays, is written as an object stream, with class annotations, and
+ * exported remote objects replaced by their stubs, exactly as by RMI; so
+ * items cannot tell which transport delivered them, short of comparing the
+ * identities of equal strings or primitive wrappers. If a preset
+ * {@link Remote#dictionary dictionary} has been agreed on the connection,
+ * such an object stream, if large enough, is deflated with it; unless it
+ * would inflate more than {@link #RATIO RATIO} fold, as a reader rejects any
+ * deflated value claiming more, rather than allocate for it.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class MuxFrame {
+	static final byte INVOKE = 0, INVOKE_ID = 1, METHODS = 2, SHARE = 3, DICTIONARY = 4; // request kinds
+	static final byte RESULT = 0, EXCEPTION = 1; // response status
+	static final int REQUEST = 13, RESPONSE = 9; // header bytes after length
+	static final int MAX = 64 << 20; // largest frame accepted
+	private static final byte NULL = 0, OBJECT = 1, TRUE = 2, FALSE = 3, BYTE = 4, SHORT = 5, CHAR = 6, INT = 7,
+			LONG = 8, FLOAT = 9, DOUBLE = 10, LATIN1 = 11, UTF16 = 12, BYTES = 13, INTS = 14, LONGS = 15,
+			DOUBLES = 16, ARRAY = 17, DEFLATED = 18; // value tags
+	private static final int DEPTH = 4; // of nested arrays written compactly
+	private static final int DEFLATE = 128; // smallest object stream deflated
+	private static final int RATIO = 64; // largest deflated expansion accepted
+
+	private MuxFrame() {
+	}
+
+	/**
+	 * The growable buffer into which a frame is written, its header is filled
+	 * in once the payload length is known.
+	 */
+	static final class Buffer extends ByteArrayOutputStream {
+		Buffer(int header) {
+			super(256);
+			count = 4 + header;
+		}
+
+		ByteBuffer reserve(int n) { // appends n bytes to be filled in
+			if (count + n > buf.length)
+				buf = java.util.Arrays.copyOf(buf, Math.max(2 * buf.length, count + n));
+			ByteBuffer bb = ByteBuffer.wrap(buf, count, n);
+			count += n;
+			return bb;
+		}
+
+		void deflate(int start, byte dictionary[]) { // what follows start
+			int n = count - start;
+			byte z[] = Codec.deflate(buf, start, n, dictionary);
+			if (z != null && z.length + 5 < n && n / RATIO <= z.length) { // as read accepts
+				count = start;
+				reserve(5 + z.length).put(DEFLATED).putInt(n).put(z);
+			}
+		}
+
+		ByteBuffer payload() { // i.e. what follows the length
+			return ByteBuffer.wrap(buf, 4, count - 4);
+		}
+
+		ByteBuffer frame() {
+			ByteBuffer frame = ByteBuffer.wrap(buf, 0, count);
+			frame.putInt(0, count - 4);
+			return frame;
+		}
+	}
+
+	/**
+	 * This method encodes a request frame.
+	 *
+	 * @param id
+	 *            The request id, unique on its connection
+	 * @param object
+	 *            The id of the target object on the server
+	 * @param kind
+	 *            The kind of request
+	 * @param method
+	 *            The method name, ignored unless invoking by name
+	 * @param index
+	 *            The method id, ignored unless invoking by id
+	 * @param args
+	 *            The arguments, ignored when fetching the method table
+	 * @param dictionary
+	 *            The dictionary agreed with the server, null if none
+	 * @return The frame, ready to be written
+	 * @throws IOException
+	 *             If the arguments could not be serialised
+	 */
+	static ByteBuffer request(long id, int object, byte kind, String method, int index, Object args,
+			byte dictionary[]) throws IOException {
+		Buffer buffer = new Buffer(REQUEST);
+		if (kind != METHODS) {
+			if (kind == INVOKE)
+				string(buffer, method);
+			else
+				buffer.reserve(4).putInt(index);
+			write(buffer, args, dictionary);
+		}
+		ByteBuffer frame = buffer.frame();
+		frame.putLong(4, id).putInt(12, object).put(16, kind);
+		return frame;
+	}
+
+	private static int arrays(Object o, int depth) { // in a compact value, or -1 if it is not
+		if (o == null || immutable(o))
+			return 0;
+		Class c = o.getClass();
+		if (c == byte[].class || c == int[].class || c == long[].class || c == double[].class)
+			return 1;
+		if (c != Object[].class || depth == DEPTH)
+			return -1;
+		Object array[] = (Object[]) o;
+		int arrays = 1;
+		for (int i = 0; i < array.length; i++) {
+			int n = arrays(array[i], depth + 1);
+			if (n < 0)
+				return -1;
+			arrays += n;
+		}
+		return arrays;
+	}
+
+	private static boolean shared(Object o, IdentityHashMap seen) { // whether an array recurs
+		if (o == null || immutable(o))
+			return false;
+		if (seen.put(o, o) != null)
+			return true;
+		if (o instanceof Object[]) {
+			Object array[] = (Object[]) o;
+			for (int i = 0; i < array.length; i++)
+				if (shared(array[i], seen))
+					return true;
+		}
+		return false;
+	}
+
+	private static boolean compact(Object o) { // i.e. needs no object stream
+		int arrays = arrays(o, 0);
+		return arrays == 0 || arrays == 1 || arrays > 1 && !shared(o, new IdentityHashMap());
+	}
+
+	private static void string(Buffer buffer, String s) {
+		int n = s.length(), i = 0;
+		while (i < n && s.charAt(i) < 0x100)
+			i++;
+		if (i == n) { // the usual case, one byte per char
+			ByteBuffer bb = buffer.reserve(5 + n);
+			bb.put(LATIN1).putInt(n).put(s.getBytes(StandardCharsets.ISO_8859_1));
+		} else { // exactly, including any unpaired surrogates
+			ByteBuffer bb = buffer.reserve(5 + 2 * n);
+			bb.put(UTF16).putInt(n);
+			bb.asCharBuffer().put(s);
+		}
+	}
+
+	private static void value(Buffer buffer, Object o) {
+		if (o == null)
+			buffer.write(NULL);
+		else if (o instanceof String)
+			string(buffer, (String) o);
+		else if (o instanceof Integer)
+			buffer.reserve(5).put(INT).putInt(((Integer) o).intValue());
+		else if (o instanceof Object[]) {
+			Object array[] = (Object[]) o;
+			buffer.reserve(5).put(ARRAY).putInt(array.length);
+			for (int i = 0; i < array.length; i++)
+				value(buffer, array[i]);
+		} else if (o instanceof Boolean)
+			buffer.write(((Boolean) o).booleanValue() ? TRUE : FALSE);
+		else if (o instanceof Long)
+			buffer.reserve(9).put(LONG).putLong(((Long) o).longValue());
+		else if (o instanceof Double)
+			buffer.reserve(9).put(DOUBLE).putDouble(((Double) o).doubleValue());
+		else if (o instanceof Float)
+			buffer.reserve(5).put(FLOAT).putFloat(((Float) o).floatValue());
+		else if (o instanceof Short)
+			buffer.reserve(3).put(SHORT).putShort(((Short) o).shortValue());
+		else if (o instanceof Character)
+			buffer.reserve(3).put(CHAR).putChar(((Character) o).charValue());
+		else if (o instanceof Byte)
+			buffer.reserve(2).put(BYTE).put(((Byte) o).byteValue());
+		else if (o instanceof byte[]) {
+			byte b[] = (byte[]) o;
+			buffer.reserve(5 + b.length).put(BYTES).putInt(b.length).put(b);
+		} else if (o instanceof int[]) {
+			int a[] = (int[]) o;
+			ByteBuffer bb = buffer.reserve(5 + 4 * a.length).put(INTS).putInt(a.length);
+			bb.asIntBuffer().put(a);
+		} else if (o instanceof long[]) {
+			long a[] = (long[]) o;
+			ByteBuffer bb = buffer.reserve(5 + 8 * a.length).put(LONGS).putInt(a.length);
+			bb.asLongBuffer().put(a);
+		} else {
+			double a[] = (double[]) o;
+			ByteBuffer bb = buffer.reserve(5 + 8 * a.length).put(DOUBLES).putInt(a.length);
+			bb.asDoubleBuffer().put(a);
+		}
+	}
+
+	/**
+	 * This method appends a value to a frame, compactly if it can be,
+	 * otherwise as an object stream.
+	 *
+	 * @param buffer
+	 *            The frame being written
+	 * @param o
+	 *            The value, it may be null
+	 * @param dictionary
+	 *            The dictionary with which to deflate an object stream, null
+	 *            if none
+	 * @throws IOException
+	 *             If the value could not be serialised
+	 */
+	static void write(Buffer buffer, Object o, byte dictionary[]) throws IOException {
+		if (o instanceof Serialized) // already encoded
+			buffer.write(((Serialized) o).tagged());
+		else if (compact(o))
+			value(buffer, o);
+		else {
+			int start = buffer.size();
+			buffer.write(OBJECT);
+			ObjectOutputStream out = new MarshalOutputStream(buffer);
+			out.writeObject(o);
+			out.flush();
+			if (dictionary != null && buffer.size() - start >= DEFLATE)
+				buffer.deflate(start, dictionary);
+		}
+	}
+
+	private static int length(ByteBuffer in, int size) throws IOException {
+		int n = in.getInt();
+		if (n < 0 || n > in.remaining() / size)
+			throw new StreamCorruptedException("invalid array length " + n);
+		return n;
+	}
+
+	private static Object value(ByteBuffer in, byte tag, int depth) throws IOException {
+		int n;
+		switch (tag) {
+		case NULL:
+			return null;
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case BYTE:
+			return new Byte(in.get());
+		case SHORT:
+			return new Short(in.getShort());
+		case CHAR:
+			return new Character(in.getChar());
+		case INT:
+			return new Integer(in.getInt());
+		case LONG:
+			return new Long(in.getLong());
+		case FLOAT:
+			return new Float(in.getFloat());
+		case DOUBLE:
+			return new Double(in.getDouble());
+		case LATIN1:
+			n = length(in, 1);
+			String s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.ISO_8859_1);
+			((java.nio.Buffer) in).position(in.position() + n); // via Buffer, as JRE 1.8 lacks the override
+			return s;
+		case UTF16:
+			n = length(in, 2);
+			char c[] = new char[n];
+			in.asCharBuffer().get(c);
+			((java.nio.Buffer) in).position(in.position() + 2 * n);
+			return new String(c);
+		case BYTES:
+			byte b[] = new byte[length(in, 1)];
+			in.get(b);
+			return b;
+		case INTS:
+			int i[] = new int[length(in, 4)];
+			in.asIntBuffer().get(i);
+			((java.nio.Buffer) in).position(in.position() + 4 * i.length);
+			return i;
+		case LONGS:
+			long l[] = new long[length(in, 8)];
+			in.asLongBuffer().get(l);
+			((java.nio.Buffer) in).position(in.position() + 8 * l.length);
+			return l;
+		case DOUBLES:
+			double d[] = new double[length(in, 8)];
+			in.asDoubleBuffer().get(d);
+			((java.nio.Buffer) in).position(in.position() + 8 * d.length);
+			return d;
+		case ARRAY:
+			if (depth == DEPTH)
+				break;
+			Object array[] = new Object[length(in, 1)];
+			for (int j = 0; j < array.length; j++)
+				array[j] = value(in, in.get(), depth + 1);
+			return array;
+		}
+		throw new StreamCorruptedException("invalid value tag " + tag);
+	}
+
+	/**
+	 * This method reads a value from a frame.
+	 *
+	 * @param in
+	 *            The payload of the frame, positioned at the value
+	 * @param loader
+	 *            The classloader with which to resolve classes not annotated
+	 *            with a codebase, null for the context classloader
+	 * @return The value
+	 * @throws IOException
+	 *             If the value is invalid, or deflated with an unknown
+	 *             dictionary
+	 * @throws ClassNotFoundException
+	 *             If the class of an object in the value could not be loaded
+	 */
+	static Object read(ByteBuffer in, ClassLoader loader) throws IOException, ClassNotFoundException {
+		try {
+			byte tag = in.get();
+			if (tag == DEFLATED) {
+				int n = in.getInt();
+				if (n < 1 || n > MAX || n / RATIO > in.remaining())
+					throw new StreamCorruptedException("invalid deflated length " + n);
+				in = ByteBuffer.wrap(Codec.inflate(in.array(), in.arrayOffset() + in.position(), in.remaining(), n));
+				if ((tag = in.get()) == DEFLATED)
+					throw new StreamCorruptedException("nested deflated value");
+			}
+			if (tag == OBJECT)
+				return new MarshalInputStream(
+						new ByteArrayInputStream(in.array(), in.arrayOffset() + in.position(), in.remaining()), loader)
+						.readObject();
+			return value(in, tag, 0);
+		} catch (java.nio.BufferUnderflowException x) {
+			throw new StreamCorruptedException("truncated value");
+		}
+	}
+
+	/**
+	 * This method reads a method name from a request frame.
+	 *
+	 * @param in
+	 *            The payload of the frame
+	 * @return The method name
+	 * @throws IOException
+	 *             If the name is invalid
+	 */
+	static String string(ByteBuffer in) throws IOException {
+		try {
+			byte tag = in.get();
+			if (tag != LATIN1 && tag != UTF16)
+				throw new StreamCorruptedException("invalid method name");
+			return (String) value(in, tag, 0);
+		} catch (java.nio.BufferUnderflowException x) {
+			throw new StreamCorruptedException("truncated method name");
+		}
+	}
+
+	/**
+	 * This method returns the identifiers of the preset dictionaries this VM
+	 * can read, including {@link Remote#dictionary Remote.dictionary}, to be
+	 * offered to a peer.
+	 *
+	 * @return The identifiers, possibly none
+	 */
+	static int[] dictionaries() {
+		byte dictionary[] = Remote.dictionary;
+		if (dictionary != null)
+			Codec.register(dictionary);
+		return Codec.dictionaries();
+	}
+
+	/**
+	 * This method determines the dictionary with which to compress frames
+	 * sent to a peer.
+	 *
+	 * @param ids
+	 *            The identifiers of the dictionaries the peer can read
+	 * @return {@link Remote#dictionary Remote.dictionary}, if the peer can
+	 *         read it, otherwise null
+	 */
+	static byte[] agree(int ids[]) {
+		byte dictionary[] = Remote.dictionary;
+		if (dictionary != null && ids != null) {
+			int id = Codec.register(dictionary);
+			for (int i = 0; i < ids.length; i++)
+				if (ids[i] == id)
+					return dictionary;
+		}
+		return null;
+	}
+
+	private static String hostId;
+
+	/**
+	 * This method returns an identifier for this host, with which to determine
+	 * if a client and server share it. It combines the host name with the
+	 * kernel's boot id, where available.
+	 *
+	 * @return The host identifier
+	 */
+	static synchronized String hostId() {
+		if (hostId == null) {
+			String id;
+			try {
+				id = InetAddress.getLocalHost().getHostName();
+			} catch (IOException x) {
+				id = "localhost";
+			}
+			try {
+				BufferedReader br = new BufferedReader(new FileReader("/proc/sys/kernel/random/boot_id"));
+				try {
+					id += '/' + br.readLine();
+				} finally {
+					br.close();
+				}
+			} catch (IOException x) {
+				/* not linux */ }
+			hostId = id;
+		}
+		return hostId;
+	}
+
+	/**
+	 * This method returns the address of a Unix domain socket file.
+	 *
+	 * @param path
+	 *            The path of the socket file
+	 * @return The address, or null, if the runtime does not support Unix domain
+	 *         sockets, i.e. prior to JRE 16
+	 */
+	static SocketAddress unix(String path) {
+		try {
+			return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+					.getMethod("of", new Class[] { String.class }).invoke(null, new Object[] { path });
+		} catch (Exception x) {
+			return null;
+		}
+	}
+
+	private static boolean immutable(Object o) { // i.e. needn't be copied
+		if (o == null)
+			return true;
+		Class c = o.getClass();
+		return c == String.class || c == Integer.class || c == Long.class || c == Boolean.class
+				|| c == Double.class || c == Float.class || c == Short.class || c == Byte.class
+				|| c == Character.class;
+	}
+
+	/**
+	 * This method copies an object graph, by serialising and deserialising it,
+	 * exactly as if it had been sent in a frame.
+	 *
+	 * @param object
+	 *            The object to copy, it may be null
+	 * @param loader
+	 *            The classloader with which to resolve classes not annotated
+	 *            with a codebase, null for the context classloader
+	 * @return The copy
+	 * @throws java.rmi.MarshalException
+	 *             If the object could not be serialised
+	 * @throws java.rmi.UnmarshalException
+	 *             If the copy could not be deserialised
+	 */
+	static Object copy(Object object, ClassLoader loader) throws java.rmi.RemoteException {
+		if (immutable(object))
+			return object;
+		if (object.getClass() == Object[].class) { // the usual argument array
+			Object array[] = (Object[]) object;
+			int i = 0;
+			while (i < array.length && immutable(array[i]))
+				i++;
+			if (i == array.length)
+				return array.clone();
+		}
+		Buffer buffer = new Buffer(0);
+		try {
+			write(buffer, object, null);
+		} catch (IOException x) {
+			throw new java.rmi.MarshalException("error marshalling object", x);
+		}
+		try {
+			return read(buffer.payload(), loader);
+		} catch (Exception x) {
+			throw new java.rmi.UnmarshalException("error unmarshalling object", x);
+		}
+	}
+
+	/**
+	 * This method encodes a response frame. If the result cannot be
+	 * serialised, the client receives a java.rmi.MarshalException instead.
+	 *
+	 * @param id
+	 *            The id of the request answered
+	 * @param result
+	 *            The result, or a Throwable
+	 * @param failed
+	 *            true if the result is an exception thrown by the invocation
+	 * @param dictionary
+	 *            The dictionary agreed with the client, null if none
+	 * @return The frame, ready to be written
+	 */
+	static ByteBuffer response(long id, Object result, boolean failed, byte dictionary[]) {
+		Buffer buffer = new Buffer(RESPONSE);
+		try {
+			write(buffer, result, dictionary);
+		} catch (IOException x) {
+			return response(id, new java.rmi.MarshalException("error marshalling return", x), true, dictionary);
+		}
+		ByteBuffer frame = buffer.frame();
+		frame.putLong(4, id).put(12, failed ? EXCEPTION : RESULT);
+		return frame;
+	}
+}
@@ -0,0 +1,265 @@
+package gnu.cajo.invoke;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Multiplexed Transport Shared Memory Segment (requires JRE 9+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxSegment.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class is a memory mapped file, shared by a client
+ * and server of the multiplexed transport on the same host, when enabled via
+ * {@link Remote#sharedMemory Remote.sharedMemory}. It holds two lock-free,
+ * single producer, single consumer, byte rings: one carrying request frames
+ * from the client, the other response frames from the server; exactly as
+ * they would otherwise be written to a socket.
+ * <p>
+ * Each ring has a control block, holding the total number of bytes ever
+ * written, and read, each on its own cache line; and a closed flag, followed
+ * by the data area, whose size is a power of two. A producer copies data in,
+ * and then publishes its new count, behind a release fence; the consumer
+ * reads the count, behind an acquire fence, copies the data out, and
+ * publishes its own count likewise. A side waiting on the other spins
+ * briefly, then yields, then parks for progressively longer, up to a
+ * millisecond; so an idle segment costs little processor time, while a busy
+ * one never enters the kernel.
+ * <p>
+ * The segment is created by the server, and its file removed once the
+ * client has mapped it. Either side closing it, or the socket connection on
+ * which it was negotiated, marks both rings closed, failing any calls in
+ * progress over it.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class MuxSegment {
+	static final int REQUESTS = 0, RESPONSES = 1; // the rings
+	private static final int WRITTEN = 0, READ = 64, CLOSED = 128, DATA = 192;
+	private static final FileAttribute OWNER = PosixFilePermissions
+			.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+	private final class Ring {
+		private final ByteBuffer control, data;
+		private final int mask;
+		private long count; // written, or read, by this side
+
+		private Ring(int offset, int capacity) {
+			map.position(offset).limit(offset + DATA);
+			control = map.slice();
+			map.position(offset + DATA).limit(offset + DATA + capacity);
+			data = map.slice();
+			map.clear();
+			mask = capacity - 1;
+		}
+
+		private void write(byte b[], int off, int len) throws IOException {
+			while (len > 0) {
+				long read;
+				for (int idle = 0; count - (read = control.getLong(READ)) > mask; idle = idle(control, idle))
+					;
+				VarHandle.acquireFence();
+				int n = Math.min(len, Math.min((int) (mask + 1 - (count - read)), mask + 1 - (int) (count & mask)));
+				data.position((int) (count & mask));
+				data.put(b, off, n);
+				count += n;
+				off += n;
+				len -= n;
+				VarHandle.releaseFence();
+				control.putLong(WRITTEN, count);
+			}
+		}
+
+		private int read(byte b[], int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			long written;
+			for (int idle = 0; (written = control.getLong(WRITTEN)) == count; idle = idle(control, idle))
+				;
+			VarHandle.acquireFence();
+			int n = Math.min(len, Math.min((int) (written - count), mask + 1 - (int) (count & mask)));
+			data.position((int) (count & mask));
+			data.get(b, off, n);
+			count += n;
+			VarHandle.releaseFence();
+			control.putLong(READ, count);
+			return n;
+		}
+	}
+
+	/**
+	 * The path of the segment's file, until it is removed.
+	 */
+	final String path;
+	private final MappedByteBuffer map;
+	private final Ring rings[];
+	private volatile boolean closed;
+
+	private MuxSegment(String path, long size) throws IOException {
+		this.path = path;
+		RandomAccessFile raf = new RandomAccessFile(path, "rw");
+		try {
+			if (raf.length() < size)
+				raf.setLength(size);
+			map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			raf.close();
+		}
+		int capacity = (int) (size / 2 - DATA);
+		rings = new Ring[] { new Ring(0, capacity), new Ring(DATA + capacity, capacity) };
+	}
+
+	/**
+	 * This method creates a new segment, in the shared memory filesystem if
+	 * the host has one, otherwise the temporary directory. Its file may only be
+	 * read and written by the user running the server, so only clients of the
+	 * same user can open it.
+	 *
+	 * @param capacity
+	 *            The size of each ring in bytes, it is rounded up to a power of
+	 *            two, of at least 4kB
+	 * @return The segment
+	 * @throws IOException
+	 *             If the file could not be created, or mapped
+	 */
+	static MuxSegment create(int capacity) throws IOException {
+		int size = 4096;
+		while (size < capacity && size < 1 << 30)
+			size <<= 1;
+		File dir = new File("/dev/shm");
+		if (!dir.isDirectory() || !dir.canWrite())
+			dir = new File(System.getProperty("java.io.tmpdir"));
+		File file;
+		try {
+			file = Files.createTempFile(dir.toPath(), "cajo", ".shm", new FileAttribute[] { OWNER }).toFile();
+		} catch (UnsupportedOperationException x) { // not a POSIX filesystem, e.g. Windows
+			file = Files.createTempFile(dir.toPath(), "cajo", ".shm", new FileAttribute[0]).toFile();
+		}
+		file.deleteOnExit();
+		try {
+			return new MuxSegment(file.getPath(), 2L * (DATA + size));
+		} catch (IOException x) {
+			file.delete();
+			throw x;
+		}
+	}
+
+	/**
+	 * This method opens a segment created by a server, and removes its file,
+	 * as it is no longer needed, once mapped by both sides.
+	 *
+	 * @param path
+	 *            The path of the segment's file
+	 * @return The segment
+	 * @throws IOException
+	 *             If the file could not be opened, or mapped
+	 */
+	static MuxSegment open(String path) throws IOException {
+		File file = new File(path);
+		long size = file.length();
+		if (size < 2 * (DATA + 4096) || Long.bitCount(size / 2 - DATA) != 1)
+			throw new IOException("invalid segment " + path);
+		try {
+			return new MuxSegment(path, size);
+		} finally {
+			file.delete();
+		}
+	}
+
+	private int idle(ByteBuffer control, int idle) throws IOException {
+		if (closed || control.get(CLOSED) != 0)
+			throw new EOFException("shared memory segment closed");
+		if (idle < 256)
+			Thread.onSpinWait();
+		else if (idle < 320)
+			Thread.yield();
+		else
+			LockSupport.parkNanos(1000L << Math.min(idle - 320, 10));
+		VarHandle.acquireFence();
+		return idle < 1024 ? idle + 1 : idle;
+	}
+
+	/**
+	 * This method returns a stream writing to one of the rings. Only one
+	 * thread may write to it at a time.
+	 *
+	 * @param ring
+	 *            REQUESTS, or RESPONSES
+	 * @return The stream
+	 */
+	OutputStream output(int ring) {
+		final Ring r = rings[ring];
+		return new OutputStream() {
+			public void write(int b) throws IOException {
+				r.write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			public void write(byte b[], int off, int len) throws IOException {
+				r.write(b, off, len);
+			}
+		};
+	}
+
+	/**
+	 * This method returns a stream reading from one of the rings. Only one
+	 * thread may read from it at a time.
+	 *
+	 * @param ring
+	 *            REQUESTS, or RESPONSES
+	 * @return The stream
+	 */
+	InputStream input(int ring) {
+		final Ring r = rings[ring];
+		return new InputStream() {
+			public int read() throws IOException {
+				byte b[] = new byte[1];
+				r.read(b, 0, 1);
+				return b[0] & 0xff;
+			}
+
+			public int read(byte b[], int off, int len) throws IOException {
+				return r.read(b, off, len);
+			}
+		};
+	}
+
+	/**
+	 * This method closes the segment, on both sides.
+	 */
+	void close() {
+		if (closed)
+			return;
+		closed = true;
+		for (int i = 0; i < rings.length; i++)
+			rings[i].control.put(CLOSED, (byte) 1);
+		new File(path).delete();
+	}
+}
@@ -0,0 +1,657 @@
+package gnu.cajo.invoke;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.NoSuchObjectException;
+import java.rmi.server.RemoteObject;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/*
+ * Multiplexed Transport Server (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxServer.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class is the server side of the multiplexed
+ * transport, enabled via {@link Remote#config(String, int, String, int, int)
+ * Remote.config}. A single selector thread accepts connections, and reads
+ * request frames from all of them; each request is then executed on a pooled
+ * thread, or a virtual thread, if enabled via
+ * {@link Remote#virtualThreads Remote.virtualThreads}, and its response queued
+ * back on its connection as soon as it completes. Therefore a client can
+ * pipeline many calls over one socket, and a slow call does not hold up the
+ * others. Once a connection has {@link #INFLIGHT too many} calls in progress,
+ * its requests are left unread, so that the client is held back by the
+ * socket, rather than the server running out of memory. If an item method
+ * returns a CompletionStage, the thread is released at once, and the response
+ * is sent when the stage completes.
+ * <p>
+ * Connections may also be accepted on a Unix domain socket file, for clients
+ * on the same host. Such clients may then negotiate a {@link MuxSegment
+ * shared memory segment}, over which to send their requests instead, if
+ * enabled via {@link Remote#sharedMemory Remote.sharedMemory}.
+ * <p>
+ * Remote wrappers are registered lazily, the first time they are serialised,
+ * at which point they are given an id and replaced in the stream by a
+ * {@link MuxStub MuxStub}. The registry holds them weakly; they are kept
+ * alive by the RMI runtime, on behalf of the RMI stub each MuxStub carries.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class MuxServer implements Runnable {
+	private static final ThreadLocal client = new ThreadLocal();
+	private static final HashMap objects = new HashMap(); // id -> Entry
+	private static final ReferenceQueue collected = new ReferenceQueue();
+	private static int nextId;
+
+	private static final class Entry extends WeakReference {
+		private final Integer id;
+
+		private Entry(Remote remote, Integer id) {
+			super(remote, collected);
+			this.id = id;
+		}
+	}
+
+	/**
+	 * The currently running server, or null, if the transport is disabled.
+	 */
+	static volatile MuxServer server;
+
+	/**
+	 * The most invocations a connection may have in progress; beyond this, no
+	 * more of its requests are read, until half of them have completed.
+	 */
+	static final int INFLIGHT = 1024;
+
+	/**
+	 * The executor on which incoming invocations are run, by default a pool of
+	 * daemon platform threads; sixteen per processor, at least 64, with at most
+	 * 65536 waiting invocations. Requests arriving once it is full fail at
+	 * once, with a java.util.concurrent.RejectedExecutionException.
+	 */
+	static volatile Executor executor = Remote.pool("cajo mux call",
+			Math.max(64, 16 * Runtime.getRuntime().availableProcessors()), 0x10000);
+
+	/**
+	 * The destination of the responses to the requests of a client.
+	 */
+	private interface Sink {
+		void send(ByteBuffer frame);
+
+		byte[] dictionary(); // with which to compress them, null if none
+	}
+
+	private final class Connection implements Sink {
+		private final SocketChannel channel;
+		private final String host;
+		private final boolean unix; // accepted on the socket file
+		private final LinkedList out = new LinkedList(); // pending frames
+		private final LinkedList segments = new LinkedList(); // negotiated, at most one
+		private final AtomicInteger calls = new AtomicInteger(); // in progress
+		private ByteBuffer in = ByteBuffer.allocate(8192);
+		private SelectionKey key;
+		private volatile boolean paused; // not reading, while too many calls
+		private volatile byte dictionary[]; // agreed with the client
+
+		private Connection(SocketChannel channel, String host, boolean unix) {
+			this.channel = channel;
+			this.host = host;
+			this.unix = unix;
+		}
+
+		private void read() throws IOException {
+			if (channel.read(in) < 0)
+				throw new IOException("closed by client");
+			requests();
+		}
+
+		private void requests() throws IOException { // those read so far
+			((Buffer) in).flip(); // via Buffer, as JRE 1.8 lacks the override
+			while (in.remaining() >= 4) {
+				if (calls.get() >= INFLIGHT) { // stop reading, until they drain
+					paused = true;
+					interest();
+					break;
+				}
+				int length = in.getInt(in.position());
+				if (length < MuxFrame.REQUEST || length > MuxFrame.MAX)
+					throw new IOException("invalid frame length " + length);
+				if (in.remaining() < length + 4) {
+					if (in.capacity() < length + 4) { // make room for it
+						ByteBuffer grown = ByteBuffer.allocate(length + 4);
+						grown.put(in);
+						in = grown;
+						return;
+					}
+					break;
+				}
+				in.getInt();
+				long id = in.getLong();
+				int object = in.getInt();
+				byte kind = in.get();
+				byte payload[] = new byte[length - MuxFrame.REQUEST];
+				in.get(payload);
+				calls.incrementAndGet();
+				try {
+					executor.execute(new Call(this, host, id, object, kind, payload));
+				} catch (RejectedExecutionException x) { // the server is overloaded
+					send(MuxFrame.response(id, x, true, dictionary));
+				}
+			}
+			int pending = in.remaining() >= 4 ? in.getInt(in.position()) + 4 : in.remaining();
+			if (in.capacity() > 8192 && pending <= 8192 && in.remaining() <= 8192) { // after a large frame
+				ByteBuffer shrunk = ByteBuffer.allocate(8192);
+				shrunk.put(in);
+				in = shrunk;
+			} else
+				in.compact();
+		}
+
+		/**
+		 * This method resumes reading requests, once enough of the calls in
+		 * progress have completed. It is only called by the selector thread.
+		 */
+		private void resume() throws IOException {
+			if (paused && calls.get() <= INFLIGHT / 2) {
+				paused = false;
+				interest();
+				requests(); // any still buffered, as no read may signal them
+			}
+		}
+
+		private synchronized void interest() {
+			if (key.isValid())
+				key.interestOps((paused ? 0 : SelectionKey.OP_READ) | (out.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+		}
+
+		public void send(ByteBuffer frame) {
+			if (calls.decrementAndGet() <= INFLIGHT / 2 && paused) {
+				flushes.add(this); // to resume reading
+				selector.wakeup();
+			}
+			synchronized (this) {
+				if (out.isEmpty())
+					try { // try to write it straight away
+						channel.write(frame);
+						if (!frame.hasRemaining())
+							return;
+					} catch (IOException x) {
+						return; // the selector will find it closed
+					}
+				out.add(frame);
+			}
+			flushes.add(this);
+			selector.wakeup();
+		}
+
+		public byte[] dictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * This method agrees the dictionary with which to compress responses.
+		 *
+		 * @param ids
+		 *            The identifiers of the dictionaries the client can read
+		 * @return The identifiers of those this server can read
+		 */
+		private int[] negotiate(int ids[]) {
+			dictionary = MuxFrame.agree(ids);
+			return MuxFrame.dictionaries();
+		}
+
+		private synchronized void flush() throws IOException {
+			while (!out.isEmpty()) {
+				ByteBuffer frame = (ByteBuffer) out.getFirst();
+				channel.write(frame);
+				if (frame.hasRemaining())
+					break;
+				out.removeFirst();
+			}
+			interest();
+		}
+
+		private void close() {
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException x) {
+			}
+			synchronized (segments) {
+				for (Iterator i = segments.iterator(); i.hasNext();) {
+					MuxSegment segment = (MuxSegment) i.next();
+					if (segment != null) // else still being created
+						segment.close();
+				}
+			}
+		}
+
+		/**
+		 * This method creates a shared memory segment for the client, if
+		 * enabled, and starts a thread reading its requests from it. Only a
+		 * client connected via the socket file, so on this host, is offered
+		 * one, and only once per connection.
+		 *
+		 * @return The path of the segment's file, or null, if not offered
+		 */
+		private String share() throws IOException {
+			int capacity = Remote.sharedMemory;
+			if (capacity <= 0 || !unix)
+				return null;
+			synchronized (segments) {
+				if (!segments.isEmpty() || !channel.isOpen())
+					return null;
+				segments.add(null); // reserved, while it is created
+			}
+			final MuxSegment segment;
+			try {
+				segment = MuxSegment.create(capacity);
+			} catch (IOException x) {
+				synchronized (segments) {
+					segments.clear();
+				}
+				throw x;
+			}
+			synchronized (segments) {
+				if (!channel.isOpen()) { // closed meanwhile
+					segment.close();
+					return null;
+				}
+				segments.set(0, segment);
+			}
+			Thread t = new Thread(new Runnable() {
+				public void run() {
+					serve(segment);
+				}
+			}, "cajo mux shm " + host);
+			t.setDaemon(true);
+			t.start();
+			return segment.path;
+		}
+
+		private void serve(final MuxSegment segment) {
+			final OutputStream out = segment.output(MuxSegment.RESPONSES);
+			final Semaphore calls = new Semaphore(INFLIGHT); // in progress
+			Sink sink = new Sink() {
+				public synchronized void send(ByteBuffer frame) {
+					calls.release();
+					try {
+						out.write(frame.array(), 0, frame.limit());
+					} catch (IOException x) {
+						segment.close();
+					}
+				}
+
+				public byte[] dictionary() { // not worth it, locally
+					return null;
+				}
+			};
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(segment.input(MuxSegment.REQUESTS), 8192));
+			try {
+				while (true) {
+					int length = in.readInt();
+					if (length < MuxFrame.REQUEST || length > MuxFrame.MAX)
+						throw new IOException("invalid frame length " + length);
+					long id = in.readLong();
+					int object = in.readInt();
+					byte kind = in.readByte();
+					byte payload[] = new byte[length - MuxFrame.REQUEST];
+					in.readFully(payload);
+					calls.acquireUninterruptibly(); // wait, while too many
+					try {
+						executor.execute(new Call(sink, host, id, object, kind, payload));
+					} catch (RejectedExecutionException x) { // the server is overloaded
+						sink.send(MuxFrame.response(id, x, true, null));
+					}
+				}
+			} catch (IOException x) {
+				segment.close();
+			}
+		}
+	}
+
+	private static final class Call implements Runnable, BiConsumer {
+		private final Sink sink;
+		private final String host;
+		private final long id;
+		private final int object;
+		private final byte kind;
+		private final byte payload[];
+
+		private Call(Sink sink, String host, long id, int object, byte kind, byte payload[]) {
+			this.sink = sink;
+			this.host = host;
+			this.id = id;
+			this.object = object;
+			this.kind = kind;
+			this.payload = payload;
+		}
+
+		public void run() {
+			Object result;
+			boolean failed = false;
+			client.set(host);
+			try {
+				Remote remote = kind <= MuxFrame.METHODS ? lookup(object) : null;
+				if (kind == MuxFrame.SHARE)
+					result = sink instanceof Connection ? ((Connection) sink).share() : null;
+				else if (kind == MuxFrame.DICTIONARY)
+					result = sink instanceof Connection
+							? ((Connection) sink).negotiate((int[]) MuxFrame.read(ByteBuffer.wrap(payload), null))
+							: null;
+				else if (remote == null)
+					throw new NoSuchObjectException("no such object in table");
+				else if (kind == MuxFrame.METHODS)
+					result = remote.methods();
+				else {
+					ClassLoader loader = remote.item != null ? remote.item.getClass().getClassLoader() : null;
+					ByteBuffer in = ByteBuffer.wrap(payload);
+					if (kind == MuxFrame.INVOKE) {
+						String method = MuxFrame.string(in);
+						result = remote.dispatch(method, MuxFrame.read(in, loader));
+					} else {
+						int method = in.getInt();
+						result = remote.dispatch(method, MuxFrame.read(in, loader));
+					}
+				}
+			} catch (Throwable t) {
+				result = failure(t);
+				failed = true;
+			} finally {
+				client.set(null);
+			}
+			if (result instanceof CompletionStage) // reply once it completes
+				((CompletionStage) result).whenComplete(this);
+			else
+				sink.send(MuxFrame.response(id, result, failed, sink.dictionary()));
+		}
+
+		public void accept(Object result, Object t) {
+			if (t instanceof CompletionException && ((Throwable) t).getCause() != null)
+				t = ((Throwable) t).getCause();
+			if (t == null)
+				try {
+					result = Remote.serializable(result);
+				} catch (RuntimeException x) {
+					t = x;
+				}
+			sink.send(MuxFrame.response(id, t != null ? failure((Throwable) t) : result, t != null, sink.dictionary()));
+		}
+
+		private static Throwable failure(Throwable t) { // an error reaches the client as over RMI, as an exception
+			return t instanceof Exception ? t : new Exception(t.getMessage(), t);
+		}
+	}
+
+	private final Selector selector;
+	private final ServerSocketChannel channel, local;
+	private final ConcurrentLinkedQueue flushes = new ConcurrentLinkedQueue();
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	/**
+	 * The host name and port clients use to connect to this server.
+	 */
+	final String clientHost;
+	final int clientPort;
+
+	/**
+	 * The path of the Unix domain socket file on which this server also
+	 * accepts connections, or null, if none.
+	 */
+	final String socketPath;
+
+	private MuxServer(String serverHost, int serverPort, String clientHost, String socketPath) throws IOException {
+		selector = Selector.open();
+		channel = ServerSocketChannel.open();
+		channel.socket().bind(serverHost != null ? new InetSocketAddress(serverHost, serverPort)
+				: new InetSocketAddress(serverPort));
+		channel.configureBlocking(false);
+		channel.register(selector, SelectionKey.OP_ACCEPT);
+		SocketAddress address = socketPath != null ? MuxFrame.unix(socketPath) : null;
+		if (address != null) {
+			new File(socketPath).delete(); // left by a previous run
+			local = ServerSocketChannel.open(StandardProtocolFamily.valueOf("UNIX"));
+			try {
+				local.bind(address);
+				local.configureBlocking(false);
+				local.register(selector, SelectionKey.OP_ACCEPT);
+			} catch (IOException x) {
+				local.close();
+				channel.close();
+				selector.close();
+				throw x;
+			}
+			this.socketPath = new File(socketPath).getAbsolutePath();
+			new File(socketPath).deleteOnExit();
+		} else {
+			local = null;
+			this.socketPath = null;
+		}
+		this.clientHost = clientHost;
+		clientPort = channel.socket().getLocalPort();
+		thread = new Thread(this, "cajo mux server :" + clientPort);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * This method starts the transport, replacing any previously running.
+	 *
+	 * @param serverHost
+	 *            The local interface on which to accept connections, null for
+	 *            all
+	 * @param serverPort
+	 *            The local port on which to accept connections, zero for
+	 *            anonymous
+	 * @param clientHost
+	 *            The host name or address clients are to use to connect
+	 * @param socketPath
+	 *            The path of a Unix domain socket file on which to accept
+	 *            connections from clients on this host, null for none
+	 * @throws IOException
+	 *             If the server socket could not be opened
+	 */
+	static synchronized void start(String serverHost, int serverPort, String clientHost, String socketPath)
+			throws IOException {
+		stop();
+		server = new MuxServer(serverHost, serverPort, clientHost, socketPath);
+	}
+
+	/**
+	 * This method stops the transport, if running. Clients already holding
+	 * MuxStubs will revert to RMI.
+	 */
+	static synchronized void stop() {
+		MuxServer server = MuxServer.server;
+		if (server != null) {
+			MuxServer.server = null;
+			server.running = false;
+			server.selector.wakeup();
+		}
+	}
+
+	/**
+	 * This method returns the stub through which clients invoke a remote
+	 * wrapper over this transport, registering the wrapper if necessary.
+	 *
+	 * @param remote
+	 *            The exported remote wrapper
+	 * @return The stub to be serialised in its place
+	 * @throws NoSuchObjectException
+	 *             If the wrapper is not exported
+	 */
+	MuxStub stub(Remote remote) throws NoSuchObjectException {
+		RemoteInvoke stub = (RemoteInvoke) RemoteObject.toStub(remote);
+		return new MuxStub(clientHost, clientPort, MuxFrame.hostId(), socketPath, register(remote), stub);
+	}
+
+	private static int register(Remote remote) {
+		synchronized (objects) {
+			for (Entry e; (e = (Entry) collected.poll()) != null;)
+				objects.remove(e.id);
+			if (remote.muxId == 0) {
+				do // skip any ids still in use, after wrapping
+					nextId = nextId == Integer.MAX_VALUE ? 1 : nextId + 1;
+				while (objects.containsKey(new Integer(nextId)));
+				remote.muxId = nextId;
+				Integer id = new Integer(nextId);
+				objects.put(id, new Entry(remote, id));
+			}
+			return remote.muxId;
+		}
+	}
+
+	/**
+	 * This method removes a remote wrapper from the registry, when it is
+	 * unexported. Further calls on it via this transport will fail.
+	 *
+	 * @param remote
+	 *            The wrapper being unexported
+	 */
+	static void unregister(Remote remote) {
+		synchronized (objects) {
+			if (remote.muxId != 0) {
+				objects.remove(new Integer(remote.muxId));
+				remote.muxId = 0;
+			}
+		}
+	}
+
+	private static Remote lookup(int id) {
+		synchronized (objects) {
+			Entry e = (Entry) objects.get(new Integer(id));
+			return e != null ? (Remote) e.get() : null;
+		}
+	}
+
+	/**
+	 * This method returns the address of the client whose call is being
+	 * executed by the current thread, if it arrived over this transport.
+	 *
+	 * @return The client's address, or null, if the thread is not serving a
+	 *         call of this transport
+	 */
+	static String clientHost() {
+		return (String) client.get();
+	}
+
+	/**
+	 * This method sets the address of the client on whose behalf the current
+	 * thread is working, e.g. for the invocations of a parallel
+	 * {@link Batch Batch}.
+	 *
+	 * @param host
+	 *            The client's address, or null, to clear it
+	 */
+	static void clientHost(String host) {
+		if (host != null)
+			client.set(host);
+		else
+			client.remove();
+	}
+
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+				for (Connection c; (c = (Connection) flushes.poll()) != null;)
+					try {
+						c.resume();
+						c.flush();
+					} catch (IOException x) {
+						c.close();
+					}
+				for (Iterator i = selector.selectedKeys().iterator(); i.hasNext();) {
+					SelectionKey key = (SelectionKey) i.next();
+					i.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable()) {
+						SocketChannel sc = ((ServerSocketChannel) key.channel()).accept();
+						if (sc == null)
+							continue;
+						sc.configureBlocking(false);
+						String host = "127.0.0.1"; // if via the socket file
+						if (key.channel() == channel) {
+							sc.socket().setTcpNoDelay(true);
+							host = sc.socket().getInetAddress().getHostAddress();
+						}
+						Connection c = new Connection(sc, host, key.channel() == local);
+						c.key = sc.register(selector, SelectionKey.OP_READ, c);
+						continue;
+					}
+					Connection c = (Connection) key.attachment();
+					try {
+						if (key.isReadable())
+							c.read();
+						if (key.isValid() && key.isWritable())
+							c.flush();
+					} catch (IOException x) {
+						c.close();
+					}
+				}
+			}
+		} catch (IOException x) { // the selector failed
+		} finally {
+			for (Iterator i = selector.keys().iterator(); i.hasNext();) {
+				SelectionKey key = (SelectionKey) i.next();
+				if (key.attachment() instanceof Connection)
+					((Connection) key.attachment()).close();
+				else
+					try {
+						key.channel().close();
+					} catch (IOException x) {
+					}
+			}
+			try {
+				selector.close();
+			} catch (IOException x) {
+			}
+			if (socketPath != null)
+				new File(socketPath).delete();
+		}
+	}
+}
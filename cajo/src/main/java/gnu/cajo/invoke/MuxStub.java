@@ -0,0 +1,168 @@
+package gnu.cajo.invoke;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/*
+ * Multiplexed Transport Remote Reference (requires JRE 1.8+)
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxStub.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class is the remote reference to an item, remoted by a server which
+ * has enabled the multiplexed transport, via
+ * {@link Remote#config(String, int, String, int, int) Remote.config}. It is
+ * sent in place of the usual RMI stub, and like it, implements the
+ * {@link RemoteInvoke RemoteInvoke} interface; so it is used in exactly the
+ * same way. Its invocations share a single persistent connection to the
+ * server, with any number of calls in progress at once. If the server offers
+ * a Unix domain socket file, and the client is on the same host, the
+ * connection is made via the file, rather than TCP.
+ * <p>
+ * It also carries the item's ordinary RMI stub; if the multiplexed port cannot
+ * be reached, e.g. due to a firewall, invocations are made over RMI instead.
+ * Holding this reference also keeps the RMI distributed garbage collection
+ * lease on the item, so it remains exported for as long as it is referenced.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public final class MuxStub implements RemoteInvoke, Serializable {
+	private static final long serialVersionUID = 1L;
+	private final String host, hostId, path;
+	private final int port, object;
+	private final RemoteInvoke stub;
+
+	MuxStub(String host, int port, String hostId, String path, int object, RemoteInvoke stub) {
+		this.host = host;
+		this.port = port;
+		this.hostId = hostId;
+		this.path = path;
+		this.object = object;
+		this.stub = stub;
+	}
+
+	private MuxClient client() {
+		return MuxClient.get(host, port, hostId, path);
+	}
+
+	/**
+	 * This method invokes the method on the remote item, over the multiplexed
+	 * transport if possible, otherwise over RMI.
+	 *
+	 * @param method
+	 *            The method to invoke on the remote item
+	 * @param args
+	 *            The arguments to provide to the method for its invocation. It
+	 *            can be a single object, an array of objects, or even null.
+	 * @return The data, if any, resulting from the invocation
+	 * @throws java.rmi.RemoteException
+	 *             For network communication related reasons
+	 * @throws Exception
+	 *             If the remote item rejected the invocation, for application
+	 *             specific reasons
+	 */
+	public Object invoke(String method, Object args) throws Exception {
+		MuxClient client = client();
+		return client != null ? client.invoke(object, MuxFrame.INVOKE, method, 0, args) : stub.invoke(method, args);
+	}
+
+	/**
+	 * This method invokes a method on the remote item by its id, over the
+	 * multiplexed transport if possible, otherwise over RMI.
+	 *
+	 * @param method
+	 *            The index of the method name in the remote item's method table
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @return The data, if any, resulting from the invocation
+	 * @throws Exception
+	 *             As for invocation by name
+	 */
+	public Object invoke(int method, Object args) throws Exception {
+		MuxClient client = client();
+		return client != null ? client.invoke(object, MuxFrame.INVOKE_ID, null, method, args)
+				: stub.invoke(method, args);
+	}
+
+	/**
+	 * This method invokes the method on the remote item over the multiplexed
+	 * transport, without waiting for the result.
+	 *
+	 * @param method
+	 *            The method to invoke on the remote item
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @param executor
+	 *            The executor on which the future is to be completed
+	 * @return The future result, or null, if the multiplexed port cannot be
+	 *         reached, and the invocation must be made over RMI instead
+	 * @throws RemoteException
+	 *             If the arguments could not be serialised, or the request could
+	 *             not be sent
+	 */
+	CompletableFuture invokeAsync(String method, Object args, Executor executor) throws RemoteException {
+		MuxClient client = client();
+		return client != null ? client.invokeAsync(object, MuxFrame.INVOKE, method, 0, args, executor) : null;
+	}
+
+	/**
+	 * This method fetches the method table of the remote item.
+	 *
+	 * @return The sorted method names of the item, or null, if it can only be
+	 *         invoked by name
+	 * @throws RemoteException
+	 *             For network communication related reasons
+	 */
+	public String[] methods() throws RemoteException {
+		MuxClient client = client();
+		if (client == null)
+			return stub.methods();
+		try {
+			return (String[]) client.invoke(object, MuxFrame.METHODS, null, 0, null);
+		} catch (RemoteException x) {
+			throw x;
+		} catch (Exception x) {
+			throw new RemoteException("method table unavailable", x);
+		}
+	}
+
+	/**
+	 * This method returns the item's RMI stub, by which it is identified.
+	 */
+	RemoteInvoke stub() {
+		return stub;
+	}
+
+	/**
+	 * Two references are equal, if they refer to the same remote item.
+	 */
+	public boolean equals(Object o) {
+		return o instanceof MuxStub && stub.equals(((MuxStub) o).stub);
+	}
+
+	public int hashCode() {
+		return stub.hashCode();
+	}
+
+	public String toString() {
+		return "MuxStub[" + host + ':' + port + (path != null ? "|" + path : "") + '/' + object + ", " + stub + ']';
+	}
+}
@@ -0,0 +1,201 @@
+package gnu.cajo.invoke;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One-Way Invocation Buffer
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Outbox.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class holds the invocations {@link Remote#post posted} to an item,
+ * until they are sent, together, as a {@link Batch Batch}. The first call
+ * posted starts the window; the batch is sent when it closes, or as soon as
+ * it is full. Only one batch per item is sent at a time, and the calls in it
+ * are made one after another, so they reach the item in the order posted.
+ * Local items have an outbox per object, remote references one per remote
+ * object, as their equals methods determine. At most
+ * {@link Remote#postBacklog postBacklog} calls may wait; those posted beyond
+ * it are rejected at once.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class Outbox implements Runnable {
+	private static final ConcurrentHashMap outboxes = new ConcurrentHashMap(); // key -> Outbox
+	private final Object item, key;
+	private final List methods = new ArrayList(), args = new ArrayList(), futures = new ArrayList();
+	private boolean sending, closed; // guarded by this
+
+	private static final class Local { // an item compared by identity, as its equals may be anything
+		private final Object item;
+
+		private Local(Object item) {
+			this.item = item;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof Local && ((Local) o).item == item;
+		}
+
+		public int hashCode() {
+			return System.identityHashCode(item);
+		}
+	}
+
+	private Outbox(Object item, Object key) {
+		this.item = item;
+		this.key = key;
+	}
+
+	/**
+	 * This method adds an invocation to the outbox of its item.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method
+	 * @param method
+	 *            The method name to be invoked
+	 * @param args
+	 *            The arguments to provide to the method
+	 * @return A future, to be completed with the outcome of the invocation, or
+	 *         already completed exceptionally, if the outbox is full
+	 */
+	static CompletableFuture post(Object item, String method, Object args) {
+		CompletableFuture future = new CompletableFuture();
+		Object key = item instanceof java.rmi.Remote ? item : new Local(item);
+		while (true) {
+			Outbox outbox = (Outbox) outboxes.get(key);
+			if (outbox == null) {
+				outbox = new Outbox(item, key);
+				Outbox existing = (Outbox) outboxes.putIfAbsent(key, outbox);
+				if (existing != null)
+					outbox = existing;
+			}
+			int size;
+			synchronized (outbox) {
+				if (outbox.closed) // removed while idle, fetch a new one
+					continue;
+				size = outbox.methods.size();
+				if (size < Math.max(1, Remote.postBacklog)) { // else the empty outbox would linger
+					outbox.methods.add(method);
+					outbox.args.add(args);
+					outbox.futures.add(future);
+					size = outbox.sending ? 0 : size + 1;
+				} else
+					size = -1;
+			}
+			if (size < 0)
+				future.completeExceptionally(new RejectedExecutionException("post backlog full"));
+			else if (size == Remote.postBatch)
+				outbox.execute(0);
+			else if (size == 1) // the window opens
+				outbox.execute(Remote.postDelay);
+			return future;
+		}
+	}
+
+	private void execute(long delay) {
+		final Executor executor = new Executor() { // reports rejection to the callers
+			public void execute(Runnable task) {
+				try {
+					Remote.dispatcher.execute(task);
+				} catch (RejectedExecutionException x) {
+					fail(x);
+				}
+			}
+		};
+		if (delay > 0)
+			Remote.timer.schedule(new Runnable() {
+				public void run() {
+					executor.execute(Outbox.this);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		else
+			executor.execute(this);
+	}
+
+	private void fail(Throwable t) { // all those waiting, unless being sent
+		List futures;
+		synchronized (this) {
+			if (sending)
+				return;
+			futures = new ArrayList(this.futures);
+			methods.clear();
+			args.clear();
+			this.futures.clear();
+		}
+		for (int i = 0; i < futures.size(); i++)
+			((CompletableFuture) futures.get(i)).completeExceptionally(t);
+	}
+
+	/**
+	 * This method sends the invocations waiting, up to a batch, unless a batch
+	 * is being sent already, in which case they will be sent after it.
+	 */
+	public void run() {
+		String methods[];
+		Object args[];
+		CompletableFuture futures[];
+		synchronized (this) {
+			if (sending || this.methods.isEmpty())
+				return; // a window closing early, or late, is harmless
+			List batch = this.methods.subList(0, Math.min(this.methods.size(), Math.max(1, Remote.postBatch)));
+			methods = (String[]) batch.toArray(new String[batch.size()]);
+			batch.clear();
+			batch = this.args.subList(0, methods.length);
+			args = batch.toArray();
+			batch.clear();
+			batch = this.futures.subList(0, methods.length);
+			futures = (CompletableFuture[]) batch.toArray(new CompletableFuture[methods.length]);
+			batch.clear();
+			sending = true;
+		}
+		try {
+			Batch batch = Remote.invokeBatch(item, methods, args, false);
+			for (int i = 0; i < futures.length; i++)
+				try {
+					futures[i].complete(batch.get(i));
+				} catch (Exception x) {
+					futures[i].completeExceptionally(x);
+				}
+		} catch (Throwable t) {
+			for (int i = 0; i < futures.length; i++)
+				futures[i].completeExceptionally(t);
+		} finally {
+			int size;
+			synchronized (this) {
+				sending = false;
+				size = this.methods.size();
+				if (size == 0) { // idle, let it be collected
+					closed = true;
+					outboxes.remove(key, this);
+				}
+			}
+			if (size >= Remote.postBatch)
+				execute(0);
+			else if (size > 0)
+				execute(Remote.postDelay);
+		}
+	}
+}
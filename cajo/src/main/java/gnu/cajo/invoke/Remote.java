@@ -7,6 +7,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.net.Authenticator;
 import java.net.InetAddress;
@@ -26,11 +28,22 @@ import java.rmi.server.RemoteServer;
 import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.server.Unreferenced;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Vector;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /*
  * Generic Item Interface Exporter
@@ -144,10 +157,150 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	private static int defaultServerPort, defaultClientPort;
 	private static RCSF defaultRCSF;
 	private static RSSF defaultRSSF;
-	private static final HashMap cache = new HashMap();
 	private static final Vector items = new Vector();
-	private static final Class[] CLASS = {}, OBJECT = { Object.class };
+	private static final ConcurrentHashMap exported = new ConcurrentHashMap(); // stub -> Local
+	private static final ReferenceQueue collected = new ReferenceQueue();
+	private static final Class[] CLASS = {};
 	private static final Object[] NOARGS = {};
+	private static final AtomicInteger inFlight = new AtomicInteger();
+	private static final BiConsumer COMPLETED = new BiConsumer() {
+		public void accept(Object result, Object t) {
+			inFlight.decrementAndGet();
+		}
+	};
+	private static final class Local extends WeakReference { // exported here
+		private final Object stub;
+
+		private Local(Remote remote, Object stub) {
+			super(remote, collected);
+			this.stub = stub;
+		}
+	}
+
+	/**
+	 * If an invocation is made on a remote reference to an item remoted by this
+	 * JVM, it is passed directly to the item's wrapper, without the use of the
+	 * network, or serialisation; so the item and its caller share the
+	 * arguments, and result, by reference. If this field is set to true, they
+	 * are instead copied, by serialising and deserialising them, to preserve
+	 * the pass by value semantics of a genuinely remote invocation, still
+	 * without the cost of the network. Either way, the item will find
+	 * {@link #getClientHost getClientHost} reports that it is not serving a
+	 * remote client.
+	 */
+	public static volatile boolean localCopy;
+
+	/**
+	 * If greater than zero, a server using the multiplexed transport will offer
+	 * clients connected via its Unix domain socket file, so on the same host, a
+	 * shared memory segment, a memory mapped file holding a pair of rings of
+	 * this many bytes each, over which to exchange their invocations, rather
+	 * than a socket. Each connection is offered at most one; its file is only
+	 * accessible to the user running the server. Clients take up the offer
+	 * automatically, when they first connect, if running on JRE 9+; otherwise,
+	 * or if the segment cannot be mapped, they use the socket as usual. The
+	 * value is rounded up to a power of two, of at least 4kB. Each segment
+	 * uses a thread on each side, which waits for data by spinning briefly,
+	 * then polling, at most every millisecond. By default it is zero, offering
+	 * no segments.
+	 */
+	public static volatile int sharedMemory;
+
+	/**
+	 * The codec with which zedmobs are compressed, when none is specified. By
+	 * default it is {@link Codec#GZIP GZIP}, the original format, which all
+	 * releases of the library can read. Where they will only be read by this
+	 * release, or later ones, {@link Codec#LZ LZ} is several times faster.
+	 * Zedmobs compressed by any registered codec, and those of earlier
+	 * releases, can always be read.
+	 */
+	public static volatile Codec codec = Codec.GZIP;
+
+	/**
+	 * If set, the multiplexed transport deflates the payloads which cannot be
+	 * encoded compactly, and are at least 128 bytes, with this preset
+	 * dictionary, when sending them over TCP, to peers which hold it too. Such
+	 * payloads, mostly class, and field names, otherwise barely compress.
+	 * Peers exchange the identifiers of the dictionaries they hold, this one,
+	 * and any {@link Codec#register(byte[]) registered}, on connecting; so a
+	 * new version may be rolled out by registering it on every host, before
+	 * setting it here. A dictionary can be trained from captured traffic via
+	 * {@link Codec#main Codec.main}. It must not be modified once set. By
+	 * default it is null, and no compression is performed.
+	 */
+	public static volatile byte dictionary[];
+
+	/**
+	 * The longest time, in milliseconds, for which invocations
+	 * {@link #post posted} to an item are held, to be sent together. The
+	 * window opens with the first call posted; the calls are sent when it
+	 * closes, or as soon as there are {@link #postBatch postBatch} of them. By
+	 * default it is 5.
+	 */
+	public static volatile long postDelay = 5;
+
+	/**
+	 * The most invocations {@link #post posted} to an item which are sent in a
+	 * single request; once this many are waiting, they are sent at once,
+	 * without waiting for the {@link #postDelay postDelay} to pass. By default
+	 * it is 256.
+	 */
+	public static volatile int postBatch = 256;
+
+	/**
+	 * The most invocations {@link #post posted} to an item which may wait to
+	 * be sent, e.g. while a slow batch is being sent to it. Calls posted
+	 * beyond this are not held, but rejected at once, with a
+	 * java.util.concurrent.RejectedExecutionException, so that a stalled item
+	 * cannot exhaust the memory of its callers. By default it is 65536.
+	 */
+	public static volatile int postBacklog = 0x10000;
+
+	private static Executor platform; // while virtual threads are in use
+	static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+		public Thread newThread(Runnable r) { // of timeouts, and posting windows
+			Thread t = new Thread(r, "cajo timer");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	static {
+		timer.setRemoveOnCancelPolicy(true);
+	}
+	private static ThreadPoolExecutor owned = pool("cajo async",
+			Math.max(8, 4 * Runtime.getRuntime().availableProcessors()), 0x10000);
+	private static volatile Executor async = owned; // of asynchronous invocations
+	private static final AtomicInteger queued = new AtomicInteger();
+	private static final AtomicLong completed = new AtomicLong(), latency = new AtomicLong();
+	static final Executor dispatcher = new Executor() { // counts waiting tasks
+		public void execute(final Runnable task) {
+			queued.incrementAndGet();
+			try {
+				async.execute(new Runnable() {
+					public void run() {
+						queued.decrementAndGet();
+						task.run();
+					}
+				});
+			} catch (RuntimeException x) { // i.e. rejected, its queue is full
+				queued.decrementAndGet();
+				throw x;
+			}
+		}
+	};
+
+	static ThreadPoolExecutor pool(final String name, int threads, int queue) { // idle threads expire
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue(queue), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, name);
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
 
 	/**
 	 * If the remote wrapper is being garbage collected, and it hasn't already been
@@ -308,6 +461,233 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 			/* but then it's not necessary */ }
 	}
 
+	/**
+	 * This method configures the server's TCP parameters for RMI, exactly as the
+	 * four argument config method, and additionally enables the multiplexed
+	 * transport. Items remoted by this server are then sent to clients as
+	 * {@link MuxStub MuxStubs}, which invoke them over a single persistent
+	 * socket connection per server, with any number of calls in progress on it
+	 * at once, and the responses returned as each call completes. This allows
+	 * much higher call rates, with far fewer sockets and server threads, than
+	 * RMI. Clients unable to reach the multiplexed port automatically revert to
+	 * RMI, therefore items and their clients need not be changed in any way.
+	 * <p>
+	 * <i><u>Note</u>:</i> the multiplexed port is advertised to clients as
+	 * bound; port translation is not supported for it. It can be called again,
+	 * to move the transport to another port, items already sent to clients
+	 * will then only be reachable via RMI.
+	 *
+	 * @param serverHost
+	 *            The local network interface, as for the four argument config
+	 *            method
+	 * @param serverPort
+	 *            The local RMI port, as for the four argument config method
+	 * @param clientHost
+	 *            The host name, or IP address clients will use to communicate
+	 *            with this server, over both RMI and the multiplexed transport
+	 * @param clientPort
+	 *            The RMI port clients use, as for the four argument config
+	 *            method
+	 * @param muxPort
+	 *            The local port on which to accept multiplexed transport
+	 *            connections, zero for an anonymous port, or negative, to disable
+	 *            the multiplexed transport
+	 * @throws IOException
+	 *             If the multiplexed transport port could not be opened
+	 */
+	public static void config(String serverHost, int serverPort, String clientHost, int clientPort, int muxPort)
+			throws IOException {
+		config(serverHost, serverPort, clientHost, clientPort, muxPort, null);
+	}
+
+	/**
+	 * This method configures the server exactly as the five argument config
+	 * method, and additionally has the multiplexed transport accept
+	 * connections on a Unix domain socket. Clients on the same host then
+	 * connect via the socket file, rather than TCP loopback, which costs the
+	 * kernel considerably less per call. Clients on other hosts, or unable to
+	 * open the file, e.g. in another container, use TCP as before. Unix domain
+	 * sockets require JRE 16+, on older runtimes the socket file is ignored.
+	 *
+	 * @param serverHost
+	 *            As for the five argument config method
+	 * @param serverPort
+	 *            As for the five argument config method
+	 * @param clientHost
+	 *            As for the five argument config method
+	 * @param clientPort
+	 *            As for the five argument config method
+	 * @param muxPort
+	 *            As for the five argument config method
+	 * @param muxSocket
+	 *            The path of the socket file to create, it must be accessible to
+	 *            the clients; or null, to use TCP only. Any file already at the
+	 *            path is replaced.
+	 * @throws IOException
+	 *             If the multiplexed transport port, or socket file, could not
+	 *             be opened
+	 */
+	public static void config(String serverHost, int serverPort, String clientHost, int clientPort, int muxPort,
+			String muxSocket) throws IOException {
+		config(serverHost, serverPort, clientHost, clientPort);
+		if (muxPort < 0)
+			MuxServer.stop();
+		else
+			MuxServer.start(serverHost, muxPort, clientHost != null ? clientHost
+					: serverHost != null ? serverHost : InetAddress.getLocalHost().getHostAddress(), muxSocket);
+	}
+
+	/**
+	 * This method returns the address of the remote client whose invocation is
+	 * being executed by the calling thread. It is to be used in place of
+	 * <tt>java.rmi.server.RemoteServer.getClientHost()</tt>, as it also
+	 * identifies clients calling over the multiplexed transport.
+	 *
+	 * @return The client's host address
+	 * @throws ServerNotActiveException
+	 *             If the thread is not executing a remote invocation
+	 */
+	public static String getClientHost() throws ServerNotActiveException {
+		String host = MuxServer.clientHost();
+		return host != null ? host : RemoteServer.getClientHost();
+	}
+
+	/**
+	 * This method selects whether invocations arriving over the multiplexed
+	 * transport are executed on virtual threads, rather than on a pool of
+	 * platform threads. As a virtual thread releases its carrier thread while
+	 * blocked, e.g. on a remote invocation of its own, a server whose items
+	 * mostly wait on other servers can then have very many invocations in
+	 * progress, on only a few operating system threads. Virtual threads are only
+	 * available with JRE 21 and later, on earlier runtimes the platform thread
+	 * pool remains in use. Invocations arriving over RMI are always executed by
+	 * the RMI runtime's own connection threads.
+	 * <p>
+	 * <i><u>Note</u>:</i> the virtual threads share the runtime's carrier
+	 * threads with every other virtual thread of the application. Their number
+	 * is normally that of the processors; it is set, for the whole JVM, by
+	 * starting it with e.g. <tt>-Djdk.virtualThreadScheduler.parallelism=4</tt>,
+	 * not by this library.
+	 *
+	 * @param enable
+	 *            true to execute incoming invocations on virtual threads, false
+	 *            to revert to the platform thread pool
+	 * @return true if invocations will now be executed on virtual threads,
+	 *         false if they will be executed on platform threads
+	 */
+	public static synchronized boolean virtualThreads(boolean enable) {
+		if (!enable) {
+			if (platform != null) {
+				MuxServer.executor = platform;
+				platform = null;
+			}
+			return false;
+		}
+		if (platform != null)
+			return true;
+		try { // via reflection, so as to still run on earlier JREs
+			Executor executor = (Executor) java.util.concurrent.Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor", null).invoke(null, null);
+			platform = MuxServer.executor;
+			MuxServer.executor = executor;
+			return true;
+		} catch (Exception x) { // NoSuchMethod, or SecurityException
+			return false;
+		}
+	}
+
+	/**
+	 * This method reports how many invocations on remoted items, over either
+	 * transport, are currently being executed. It is useful to monitor the load
+	 * on a server, and to size its thread pools.
+	 *
+	 * @return The number of invocations in progress
+	 */
+	public static int getInvocationsInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * This method resizes the shared pool of threads on which
+	 * {@link #invokeAsync(Object, String, Object) asynchronous} invocations
+	 * are made, and their results delivered. By default it has four threads
+	 * per processor, at least eight, and holds at most 65536 waiting tasks;
+	 * once full, further asynchronous invocations fail at once, with a
+	 * java.util.concurrent.RejectedExecutionException, rather than queue
+	 * without limit. Tasks already waiting on the previous pool are still
+	 * run, by its threads, which then expire.
+	 *
+	 * @param threads
+	 *            The number of threads in the pool, at least one
+	 * @param queue
+	 *            The number of tasks which may wait for a thread, at least one
+	 */
+	public static synchronized void asyncExecutor(int threads, int queue) {
+		if (threads < 1 || queue < 1)
+			throw new IllegalArgumentException("threads and queue must be positive");
+		ThreadPoolExecutor pool = pool("cajo async", threads, queue);
+		asyncExecutor(pool);
+		owned = pool;
+	}
+
+	/**
+	 * This method sets the executor on which
+	 * {@link #invokeAsync(Object, String, Object) asynchronous} invocations
+	 * are made, and their results delivered, in place of the shared pool. For
+	 * example, on JRE 21 and later, that returned by
+	 * java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor, so that
+	 * each invocation waits on a virtual thread of its own. If the previous
+	 * executor was a pool created by this class, it is shut down once its
+	 * waiting tasks are done; any other is left to its owner.
+	 *
+	 * @param executor
+	 *            The executor on which to run asynchronous invocations, it must
+	 *            not run them on the calling thread
+	 */
+	public static synchronized void asyncExecutor(Executor executor) {
+		if (executor == null)
+			throw new NullPointerException("executor");
+		async = executor;
+		if (owned != null && owned != executor) {
+			owned.shutdown();
+			owned = null;
+		}
+	}
+
+	/**
+	 * This method reports how many asynchronous invocations, or deliveries of
+	 * their results, are waiting for a thread of the executor, the depth of its
+	 * queue. A depth which keeps growing means the executor has too few threads
+	 * for the rate of invocation.
+	 *
+	 * @return The number of tasks submitted, but not yet started
+	 */
+	public static int getAsyncQueued() {
+		return queued.get();
+	}
+
+	/**
+	 * This method reports how many asynchronous invocations have completed,
+	 * normally, exceptionally, or by cancellation, since startup.
+	 *
+	 * @return The number of asynchronous invocations completed
+	 */
+	public static long getAsyncCompleted() {
+		return completed.get();
+	}
+
+	/**
+	 * This method reports the total time taken by the asynchronous invocations
+	 * completed, from each call, to the completion of its future. The mean
+	 * latency over an interval is the change in this total, divided by the
+	 * change in {@link #getAsyncCompleted getAsyncCompleted}.
+	 *
+	 * @return The total completion latency, in nanoseconds
+	 */
+	public static long getAsyncLatency() {
+		return latency.get();
+	}
+
 	/**
 	 * This method configures the server's TCP parameters for RMI through HTTP proxy
 	 * servers. This is necessary when the client or server, or both, are behind
@@ -383,6 +763,7 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 		synchronized (items) {
 			for (int i = items.size() - 1; i >= 0; i--)
 				try {
+					((Remote) items.elementAt(i)).unregister();
 					unexportObject((java.rmi.Remote) items.elementAt(i), true);
 				} catch (NoSuchObjectException x) {
 				}
@@ -394,6 +775,8 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 * A utility method to reconstitute a zipped marshalled object (zedmob) into a
 	 * remote item reference, proxy object, or local object. Typically a file
 	 * containing a zedmob has the file extension .zmob as an identifier.
+	 * Zedmobs of earlier formats, which wrapped the item in a
+	 * java.rmi.MarshalledObject, are also read.
 	 * <p>
 	 * <i><u>Note</u>:</i> on completion of reading the item from the stream, the
 	 * stream will be automatically closed.
@@ -408,11 +791,18 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 *             enabled in this VM.
 	 */
 	public static Object zedmob(InputStream is) throws ClassNotFoundException, IOException {
-		GZIPInputStream gis = new GZIPInputStream(is);
-		ObjectInputStream ois = new ObjectInputStream(gis);
-		MarshalledObject mob = (MarshalledObject) ois.readObject();
+		int version[] = new int[1];
+		InputStream in = Codec.input(is, version);
+		if (version[0] <= Codec.MARSHALLED) {
+			ObjectInputStream ois = new ObjectInputStream(in);
+			MarshalledObject mob = (MarshalledObject) ois.readObject();
+			ois.close();
+			return mob.get();
+		}
+		ObjectInputStream ois = new MarshalInputStream(in, null);
+		Object ref = ois.readObject();
 		ois.close();
-		return mob.get();
+		return ref;
 	}
 
 	/**
@@ -420,7 +810,12 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 * output stream as a zipped marshalled object (zedmob). A zedmob is the
 	 * standard serialized format in this paradigm. This can be used to
 	 * <i>'freeze-dry'</i> the object to a file for later use, to send it over the
-	 * network, or to an object archival service, for example.
+	 * network, or to an object archival service, for example. It is compressed
+	 * by the default {@link #codec codec}. The item is serialised once, straight
+	 * into the compressor, with its classes annotated by their codebase, via a
+	 * {@link MarshalOutputStream MarshalOutputStream}; except by the
+	 * {@link Codec#GZIP GZIP} codec, which wraps it in a MarshalledObject, as
+	 * earlier releases expect.
 	 * <p>
 	 * <i><u>Note</u>:</i> on completion of writing the item, or reference, the
 	 * stream will be closed. Typically, when saved to a file, a zedmob has the file
@@ -435,11 +830,34 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 *             For any stream related writing error.
 	 */
 	public static void zedmob(OutputStream os, Object ref) throws IOException {
-		GZIPOutputStream zos = new GZIPOutputStream(os);
-		ObjectOutputStream oos = new ObjectOutputStream(zos);
-		oos.writeObject(new MarshalledObject(ref));
-		oos.flush();
-		zos.flush();
+		zedmob(os, ref, codec);
+	}
+
+	/**
+	 * This method will write the local item, remote item reference, or proxy, to an
+	 * output stream as a zedmob, compressed by the specified codec.
+	 * <p>
+	 * <i><u>Note</u>:</i> on completion of writing the item, or reference, the
+	 * stream will be closed.
+	 *
+	 * @param os
+	 *            The output stream on which to write the reference.
+	 * @param ref
+	 *            The item or reference to be serialized.
+	 * @param codec
+	 *            The codec with which to compress it, it need not be registered
+	 * @throws IOException
+	 *             For any stream related writing error.
+	 */
+	public static void zedmob(OutputStream os, Object ref, Codec codec) throws IOException {
+		if (codec == Codec.GZIP) { // the original format, for earlier releases
+			ObjectOutputStream oos = new ObjectOutputStream(Codec.output(os, codec));
+			oos.writeObject(new MarshalledObject(ref));
+			oos.close();
+			return;
+		}
+		ObjectOutputStream oos = new MarshalOutputStream(Codec.output(os, codec));
+		oos.writeObject(ref);
 		oos.close();
 	}
 
@@ -554,6 +972,9 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 * well if the inheritence trees for the arguments are shallow. However, it may
 	 * <i>not</i> always pick the best method if the arguments have deep inheritance
 	 * trees. Fortunately it works for both classes, <i>and</i> interfaces.
+	 * <p>
+	 * Selections are cached in a lock-free table per item class, which is built
+	 * when an item is remoted, and discarded together with its class.
 	 *
 	 * @param item
 	 *            The object on which to find the most applicable public method.
@@ -567,71 +988,70 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 *         or null, if none match.
 	 */
 	public static Method findBestMethod(Object item, String method, Class args[]) {
-		if (args == null)
-			args = CLASS;
-		HashMap methods = (HashMap) cache.get(item.getClass());
-		if (methods != null) { // best method already chached?
-			HashMap arguments = (HashMap) methods.get(method);
-			if (arguments != null) { // method already chached?
-				Object argumentSet[] = arguments.keySet().toArray();
-				for (int i = 0; i < argumentSet.length; i++)
-					if (java.util.Arrays.equals(args, (Class[]) argumentSet[i]))
-						return (Method) arguments.get(argumentSet[i]);
-			}
-		} // else lookup best method...
-		ArrayList matchList = new ArrayList();
-		if (((Object[]) args).length > 0) { // if arguments...
-			Method ms[] = item.getClass().getMethods();
-			list: for (int i = 0; i < ms.length; i++) { // list compatible methods
-				if (ms[i].getName().equals(method)) {
-					Class margs[] = ms[i].getParameterTypes();
-					if (margs.length == args.length) {
-						for (int j = 0; j < args.length; j++)
-							if (args[j] != null && !autobox(margs[j]).isAssignableFrom(autobox(args[j])))
-								continue list;
-						matchList.add(ms[i]);
-					}
-				}
-			}
-			if (matchList.size() == 0)
-				return null; // no joy :(
-		} else
-			try {
-				matchList.add(item.getClass().getMethod(method, null));
-			} catch (NoSuchMethodException x) {
-				return null;
-			} // no no-arg method :(
-		Method best = matchList.size() == 1 ? (Method) matchList.get(0) : null;
-		if (best == null) { // if more than one method match...
-			for (int i = 0, goodness = -1; i < matchList.size(); i++) {
-				int closeness = 0;
-				Method m = (Method) matchList.get(i);
-				Class margs[] = m.getParameterTypes();
-				for (int j = 0; j < args.length; j++)
-					if (args[j] != null && autobox(args[j]).isAssignableFrom(autobox(margs[j])))
-						closeness++;
-				if (closeness > goodness) {
-					best = m;
-					if (closeness == args.length)
-						break; // won't find better fit
-					goodness = closeness;
-				}
-			}
-		}
-		synchronized (cache) { // cache method lookup
-			methods = (HashMap) cache.get(item.getClass());
-			if (methods == null) {
-				methods = new HashMap();
-				cache.put(item.getClass(), methods);
-			}
-			HashMap arguments = (HashMap) methods.get(method);
-			if (arguments == null) {
-				arguments = new HashMap();
-				methods.put(method, arguments);
-			}
-			arguments.put(args, best);
-		}
-		return best;
+		Invoker invoker = MethodTable.of(item.getClass()).lookup(method, args != null ? args : CLASS);
+		return invoker != null ? invoker.method : null;
+	}
+
+	/**
+	 * This method controls whether methods invoked via reflection by the static
+	 * {@link #invoke(Object, String, Object) invoke} method are to be compiled.
+	 * When enabled, an instance method taking up to three arguments is converted
+	 * on its first invocation into a generated call site, which subsequent
+	 * invocations, both local and remote, use at nearly the speed of a direct
+	 * call. Methods which cannot be compiled continue to be invoked by
+	 * reflection, as do all methods on JRE 1.8. By default compilation is
+	 * disabled, as each compiled method costs a small generated class.
+	 * <p>
+	 * Local invocations of a compiled method allocate nothing, whether its
+	 * arguments and result are objects or primitives, other than the boxing of
+	 * a primitive result outside the range its wrapper class caches. Invoked
+	 * by reflection, a method's sole argument is wrapped in a new array on
+	 * every call, and whatever else java.lang.reflect.Method.invoke allocates
+	 * depends on the runtime.
+	 *
+	 * @param enable
+	 *            true to compile methods on first use, false to use reflection
+	 *            for all subsequent invocations
+	 */
+	public static void compile(boolean enable) {
+		Invoker.compile = enable;
+	}
+
+	/**
+	 * This method reports how many method selections made by
+	 * {@link #findBestMethod findBestMethod} were answered directly from its
+	 * per-class dispatch tables, since startup.
+	 *
+	 * @return The number of method selection cache hits
+	 */
+	public static long getDispatchHits() {
+		return MethodTable.hits();
+	}
+
+	/**
+	 * This method reports how many method selections made by
+	 * {@link #findBestMethod findBestMethod} had to be resolved by reflection,
+	 * since startup. Signatures of an item's public methods are resolved in
+	 * advance, when it is remoted, and are not counted here.
+	 *
+	 * @return The number of method selection cache misses
+	 */
+	public static long getDispatchMisses() {
+		return MethodTable.misses();
+	}
+
+	/**
+	 * This method reports how many of the {@link #getDispatchMisses misses}
+	 * were of signatures with argument classes from a classloader which the
+	 * item class' loader cannot see, since startup. The dispatch tables hold
+	 * such signatures only weakly, and only the last few per class, so as not
+	 * to keep those loaders from being collected; a steadily rising count
+	 * means such signatures are being resolved by reflection on every call.
+	 *
+	 * @return The number of method selection misses of foreign signatures
+	 */
+	public static long getDispatchForeign() {
+		return MethodTable.foreign();
 	}
 
 	/**
@@ -674,8 +1094,9 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 *             link</a> to the discussion.
 	 */
 	public static Object invoke(final Object item, final String method, final Object args) throws Exception {
-		Object o_args[] = args instanceof Object[] ? (Object[]) args : args != null ? new Object[] { args } : NOARGS;
-		if (item instanceof RemoteInvoke) { // special for remote clients...
+		MethodTable table = MethodTable.of(item.getClass());
+		if (table.invoke && item instanceof RemoteInvoke) { // special for remote clients...
+			Object o_args[] = args instanceof Object[] ? (Object[]) args : args != null ? new Object[] { args } : NOARGS;
 			if (o_args.length == 0) {
 				if ("hashCode".equals(method))
 					return new Integer(item.hashCode());
@@ -683,67 +1104,394 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 					throw new RuntimeException("remote unreferenced call blocked");
 			} else if (o_args.length == 1 && "equals".equals(method))
 				return item.equals(o_args[0]) ? Boolean.TRUE : Boolean.FALSE;
-			else
-				for (int i = 0; i < o_args.length; i++)
-					if (o_args[i] != null && !(o_args[i] instanceof Serializable))
-						o_args[i] = gnu.cajo.utils.extra.TransparentItemProxy.proxy(o_args[i]);
+			Remote local = local(item);
+			if (local != null) // remoted by this JVM
+				return local.invokeLocal(method, args);
+			proxy(o_args);
 		}
-		if (item instanceof Invoke)
-			return ((Invoke) item).invoke(method, args);
+		if (table.invoke)
+			return resolved(((Invoke) item).invoke(method, args));
 		if (method == null)
 			throw new IllegalArgumentException("null method");
 		Thread thread = Thread.currentThread();
-		ClassLoader original = thread.getContextClassLoader();
-		try {
-			thread.setContextClassLoader(item.getClass().getClassLoader());
-		} catch (SecurityException x) {
-			/* won't work in applet */ }
-		try {
-			Class[] c_args = o_args != NOARGS ? new Class[o_args.length] : CLASS;
-			if (c_args != CLASS)
-				for (int i = 0; i < c_args.length; i++)
-					c_args[i] = o_args[i] != null ? o_args[i].getClass() : null;
-			Method m = findBestMethod(item, method, c_args);
-			if (m == null && args instanceof Object[]) {
-				m = findBestMethod(item, method, new Class[] { args.getClass() });
-				if (m == null)
-					m = findBestMethod(item, method, OBJECT);
+		ClassLoader original = thread.getContextClassLoader(), loader = item.getClass().getClassLoader();
+		if (loader != original) // only swap the loader when necessary
+			try {
+				thread.setContextClassLoader(loader);
+			} catch (SecurityException x) {
+				/* won't work in applet */ }
+		try { // common argument shapes are looked up without allocation
+			if (args == null) {
+				Invoker m = table.lookup(method);
 				if (m != null)
-					o_args = new Object[] { args };
+					return remotable(m.invoke0(item));
+			} else if (!(args instanceof Object[])) {
+				Invoker m = table.lookup(method, args.getClass());
+				if (m != null)
+					return remotable(m.invoke1(item, args));
+			} else {
+				Invoker m = table.lookup(method, (Object[]) args);
+				if (m != null)
+					return remotable(m.invoke(item, (Object[]) args));
+				m = table.lookup(method, args.getClass());
+				if (m == null)
+					m = table.lookup(method, Object.class);
+				if (m != null) // the method takes the array itself
+					return remotable(m.invoke1(item, args));
+			}
+			Object o_args[] = args instanceof Object[] ? (Object[]) args : args != null ? new Object[] { args } : NOARGS;
+			StringBuffer sb = new StringBuffer(item.getClass().getName());
+			sb.append('.').append(method).append('(');
+			for (int i = 0; i < o_args.length; i++) {
+				sb.append(o_args[i] != null ? o_args[i].getClass().getName() : "null");
+				if (i + 1 < o_args.length)
+					sb.append(", ");
 			}
-			if (m != null)
+			throw new NoSuchMethodException(sb.append(')').toString());
+		} finally {
+			if (thread.getContextClassLoader() != original)
 				try {
-					try {
-						m.setAccessible(true);
-					} catch (SecurityException x) {
+					thread.setContextClassLoader(original);
+				} catch (SecurityException x) {
+					/* won't work in applet */ }
+		}
+	}
+
+	/**
+	 * This method invokes several methods on an object in order, in one
+	 * request, if the object is remote. It is equivalent to calling
+	 * {@link #invokeBatch(Object, String[], Object[], boolean) invokeBatch}
+	 * with parallel set to false.
+	 *
+	 * @param item
+	 *            The object on which to invoke the methods, local or remote
+	 * @param methods
+	 *            The method names to be invoked
+	 * @param args
+	 *            The arguments for each invocation, it may be null, if none
+	 *            take arguments
+	 * @return The outcome of each invocation
+	 * @throws Exception
+	 *             As for the full invokeBatch method
+	 */
+	public static Batch invokeBatch(Object item, String methods[], Object args[]) throws Exception {
+		return invokeBatch(item, methods, args, false);
+	}
+
+	/**
+	 * This method invokes several methods on an object, in a single request if
+	 * the object is remote, rather than paying one network round trip per call.
+	 * On the server, the batch is unpacked by the item's Remote wrapper, so
+	 * each invocation passes individually through any {@link Invoke Invoke}
+	 * wrapper of the item, such as a {@link gnu.cajo.utils.MonitorItem
+	 * MonitorItem}. A local object is simply invoked for each call in turn.
+	 * <p>
+	 * An exception thrown by one invocation does not prevent the others; the
+	 * outcome of each is obtained from the {@link Batch Batch} returned. The
+	 * server must be running this version of the library, or the request will
+	 * fail with a NoSuchMethodException.
+	 *
+	 * @param item
+	 *            The object on which to invoke the methods, local or remote
+	 * @param methods
+	 *            The method names to be invoked
+	 * @param args
+	 *            The arguments for each invocation, in the same form as for the
+	 *            {@link #invoke(Object, String, Object) invoke} method; it may be
+	 *            null, if none take arguments
+	 * @param parallel
+	 *            If false, the methods are invoked one after another, by the
+	 *            thread serving the request; if true, they are invoked
+	 *            concurrently, on up to {@link Batch#THREADS} pooled threads
+	 * @return The outcome of each invocation
+	 * @throws IllegalArgumentException
+	 *             If methods is null, or args is of a different length, or
+	 *             there are more than {@link Batch#LIMIT} methods
+	 * @throws java.rmi.RemoteException
+	 *             For network communication related reasons
+	 * @throws Exception
+	 *             If the batch as a whole was rejected by a remote item
+	 */
+	public static Batch invokeBatch(Object item, String methods[], Object args[], boolean parallel)
+			throws Exception {
+		Batch batch = new Batch(methods, args, parallel);
+		Remote local = local(item);
+		if (local != null)
+			return (Batch) local.invokeLocal(Batch.METHOD, batch);
+		return (Batch) (item instanceof RemoteInvoke ? ((RemoteInvoke) item).invoke(Batch.METHOD, batch)
+				: settle(batch.run(item)));
+	}
+
+	/**
+	 * This method invokes a method on an object asynchronously, returning
+	 * immediately. If the object is a reference to an item on a server using the
+	 * multiplexed transport, the request is sent at once, and no thread waits
+	 * for the response; any number of such calls can be outstanding. Otherwise
+	 * the invocation is made by a thread from a shared pool; when all of its
+	 * threads are busy, further calls are queued until one is free, and once
+	 * its queue is full, the future is completed exceptionally, with a
+	 * java.util.concurrent.RejectedExecutionException. The pool can be resized,
+	 * or replaced, via {@link #asyncExecutor(int, int) asyncExecutor}.
+	 * <p>
+	 * The future is completed on a pool thread, never on a transport thread, so
+	 * actions depending on it may freely make further invocations. Cancelling
+	 * the future before its invocation has started prevents it from being made;
+	 * cancelling it afterwards simply discards its result, as a call already
+	 * sent to a remote item cannot be recalled.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, local or remote
+	 * @param method
+	 *            The method name to be invoked
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @return A future, to be completed with the result of the invocation, or
+	 *         exceptionally, with the exception it threw
+	 */
+	public static CompletableFuture invokeAsync(final Object item, final String method, final Object args) {
+		final long start = System.nanoTime();
+		CompletableFuture future = null;
+		if (item instanceof MuxStub && method != null && !"hashCode".equals(method) && !"equals".equals(method)
+				&& !"unreferenced".equals(method) && local(item) == null)
+			try {
+				Object o_args = args;
+				if (o_args instanceof Object[])
+					proxy((Object[]) o_args);
+				else if (o_args != null && !(o_args instanceof Serializable))
+					o_args = gnu.cajo.utils.extra.TransparentItemProxy.proxy(o_args);
+				future = ((MuxStub) item).invokeAsync(method, o_args, dispatcher);
+			} catch (RemoteException x) {
+				future = new CompletableFuture();
+				future.completeExceptionally(x);
+			}
+		if (future == null) {
+			final CompletableFuture pending = new CompletableFuture();
+			try {
+				dispatcher.execute(new Runnable() {
+					public void run() {
+						if (!pending.isDone()) // i.e. not cancelled while pending
+							try {
+								pending.complete(invoke(item, method, args));
+							} catch (Throwable t) {
+								pending.completeExceptionally(t);
+							}
 					}
-					Object result = m.invoke(item, o_args != NOARGS ? o_args : null);
-					if (result != null && !(result instanceof Serializable))
+				});
+			} catch (RejectedExecutionException x) {
+				pending.completeExceptionally(x);
+			}
+			future = pending;
+		}
+		future.whenComplete(new BiConsumer() {
+			public void accept(Object result, Object t) {
+				latency.addAndGet(System.nanoTime() - start);
+				completed.incrementAndGet();
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * This method invokes a method on an object asynchronously, as the three
+	 * argument invokeAsync method, but completes the future exceptionally with
+	 * a java.util.concurrent.TimeoutException, if the invocation has not
+	 * completed within the time specified. A future which times out is also
+	 * completed on a pool thread, unless the pool is saturated.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, local or remote
+	 * @param method
+	 *            The method name to be invoked
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @param timeout
+	 *            The longest time to wait for the result
+	 * @param unit
+	 *            The unit of the timeout argument
+	 * @return A future, to be completed with the result of the invocation, or
+	 *         exceptionally, with the exception it threw, or on timeout
+	 */
+	public static CompletableFuture invokeAsync(Object item, String method, Object args, long timeout,
+			TimeUnit unit) {
+		final CompletableFuture future = invokeAsync(item, method, args);
+		if (!future.isDone()) {
+			final Runnable expire = new Runnable() {
+				public void run() {
+					future.completeExceptionally(new TimeoutException());
+				}
+			};
+			final ScheduledFuture alarm = timer.schedule(new Runnable() {
+				public void run() { // on the pool, as dependent actions run on the completing thread
+					if (!future.isDone())
 						try {
-							RemoteServer.getClientHost();
-							return gnu.cajo.utils.extra.TransparentItemProxy.proxy(result);
-						} catch (ServerNotActiveException x) {
-							/* not a remote call */ }
-					return result;
-				} catch (java.lang.reflect.InvocationTargetException x) {
-					Throwable t = x.getTargetException();
-					throw t instanceof Exception ? (Exception) t : new Exception(t.getMessage(), t.getCause());
+							dispatcher.execute(expire);
+						} catch (RejectedExecutionException x) {
+							expire.run(); // the pool is saturated, expire it here
+						}
 				}
-			StringBuffer sb = new StringBuffer(item.getClass().getName());
-			sb.append('.').append(method).append('(');
-			if (c_args.length > 0)
-				for (int i = 0; i < c_args.length; i++) {
-					sb.append(c_args[i] != null ? c_args[i].getName() : "null");
-					if (i + 1 < c_args.length)
-						sb.append(", ");
+			}, timeout, unit);
+			future.whenComplete(new BiConsumer() {
+				public void accept(Object result, Object t) {
+					alarm.cancel(false);
 				}
-			throw new NoSuchMethodException(sb.append(')').toString());
-		} finally {
+			});
+		}
+		return future;
+	}
+
+	/**
+	 * This method invokes a method on an object one way, without waiting for
+	 * its outcome, so it costs the caller no network round trip. The call is
+	 * held, for up to {@link #postDelay postDelay} milliseconds, to be sent
+	 * together with any others posted to the same object meanwhile, up to
+	 * {@link #postBatch postBatch} of them, in a single request, via
+	 * {@link #invokeBatch(Object, String[], Object[]) invokeBatch}, from the
+	 * pool used for {@link #invokeAsync(Object, String, Object) asynchronous}
+	 * invocations. The calls posted to an object are made in the order they
+	 * were posted; only one batch is sent to it at a time. Calls are posted to
+	 * a local object by its identity, and to a remote one by its reference.
+	 * Once {@link #postBacklog postBacklog} calls are waiting, those posted
+	 * after are rejected, until the backlog drains.
+	 * <p>
+	 * It is intended for calls whose results are not needed, such as status
+	 * updates, or telemetry. Their failures, of the invocation or of the
+	 * request carrying it, are reported only via the future returned, which
+	 * may simply be ignored.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method, local or remote
+	 * @param method
+	 *            The method name to be invoked
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @return A future, to be completed with the result of the invocation, or
+	 *         exceptionally, with the exception it, or its request, threw; or
+	 *         a java.util.concurrent.RejectedExecutionException, if the
+	 *         backlog was full
+	 */
+	public static CompletableFuture post(Object item, String method, Object args) {
+		return Outbox.post(item, method, args);
+	}
+
+	private static void proxy(Object args[]) { // non-serialisable arguments
+		for (int i = 0; i < args.length; i++)
+			if (args[i] != null && !(args[i] instanceof Serializable))
+				args[i] = gnu.cajo.utils.extra.TransparentItemProxy.proxy(args[i]);
+	}
+
+	/**
+	 * This method fetches the method table of an object, for use with the
+	 * {@link #invoke(Object, int, Object) id-based} invoke method. A client
+	 * would normally fetch the table of a remote reference once, and keep it for
+	 * the lifetime of the reference.
+	 *
+	 * @param item
+	 *            The local or remote object whose method table is required
+	 * @return The sorted names of the object's public methods, or null, if the
+	 *         object can only be invoked by name; i.e. it implements the
+	 *         {@link Invoke Invoke} interface, or it is a reference to a server
+	 *         running an earlier version of this library.
+	 * @throws RemoteException
+	 *             If the table could not be fetched from a remote object, for
+	 *             network related reasons.
+	 */
+	public static String[] methods(Object item) throws RemoteException {
+		Remote local = local(item);
+		if (local != null)
+			return local.methods();
+		if (item instanceof RemoteInvoke)
 			try {
-				thread.setContextClassLoader(original);
-			} catch (SecurityException x) {
-				/* won't work in applet */ }
+				return ((RemoteInvoke) item).methods();
+			} catch (java.rmi.UnmarshalException x) {
+				return null; // the server predates method tables
+			} catch (java.rmi.ServerException x) { // as reported by RMI
+				if (x.detail instanceof java.rmi.UnmarshalException)
+					return null;
+				throw x;
+			}
+		return item == null || item instanceof Invoke ? null : (String[]) MethodTable.of(item.getClass()).names.clone();
+	}
+
+	/**
+	 * This method invokes a method on an object, identified by its index in the
+	 * table returned from the object's {@link #methods(Object) methods}. It is
+	 * otherwise identical to invoking the method by name.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method
+	 * @param method
+	 *            The index of the method name, in the object's method table
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @return The resulting data, if any, from the invocation
+	 * @throws NoSuchMethodException
+	 *             If the index is out of range, the object does not support
+	 *             method tables, or no method of the name takes the arguments
+	 * @throws Exception
+	 *             As described for the {@link #invoke(Object, String, Object)
+	 *             name-based} invoke method
+	 */
+	public static Object invoke(Object item, int method, Object args) throws Exception {
+		if (item instanceof RemoteInvoke) {
+			Remote local = local(item);
+			if (local != null) {
+				String names[] = local.methods();
+				if (names == null || method < 0 || method >= names.length)
+					throw new NoSuchMethodException("method id " + method);
+				return local.invokeLocal(names[method], args);
+			}
+			if (args instanceof Object[])
+				proxy((Object[]) args);
+			else if (args != null && !(args instanceof Serializable))
+				args = gnu.cajo.utils.extra.TransparentItemProxy.proxy(args);
+			return resolved(((RemoteInvoke) item).invoke(method, args));
 		}
+		String names[] = item == null || item instanceof Invoke ? null : MethodTable.of(item.getClass()).names;
+		if (names == null || method < 0 || method >= names.length)
+			throw new NoSuchMethodException("method id " + method);
+		return invoke(item, names[method], args);
+	}
+
+	/**
+	 * This method invokes a method on an object by its id, if the method table
+	 * provided contains its name, otherwise by name. It allows a client to treat
+	 * objects that do, and do not, support method tables uniformly. The special
+	 * handling of equals, hashCode, and unreferenced calls on remote references
+	 * by the {@link #invoke(Object, String, Object) name-based} invoke method
+	 * is preserved.
+	 *
+	 * @param item
+	 *            The object on which to invoke the method
+	 * @param methods
+	 *            The method table previously fetched from the object, it may be
+	 *            null, if it does not support them
+	 * @param method
+	 *            The name of the method to invoke
+	 * @param args
+	 *            The arguments to provide to the method for its invocation
+	 * @return The resulting data, if any, from the invocation
+	 * @throws Exception
+	 *             As described for the name-based invoke method
+	 */
+	public static Object invoke(Object item, String methods[], String method, Object args) throws Exception {
+		if (methods != null && method != null) {
+			int count = args == null ? 0 : args instanceof Object[] ? ((Object[]) args).length : 1;
+			int id = count == 0 && ("hashCode".equals(method) || "unreferenced".equals(method))
+					|| count == 1 && "equals".equals(method) ? -1 : java.util.Arrays.binarySearch(methods, method);
+			if (id >= 0)
+				return invoke(item, id, args);
+		}
+		return invoke(item, method, args);
+	}
+
+	private static Object remotable(Object result) { // non-serialisable returns
+		if (result != null && !(result instanceof Serializable) && !(result instanceof CompletionStage))
+			try {
+				getClientHost();
+				return gnu.cajo.utils.extra.TransparentItemProxy.proxy(result);
+			} catch (ServerNotActiveException x) {
+				/* not a remote call */ }
+		return result;
 	}
 
 	/**
@@ -754,6 +1502,14 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 */
 	public final Object item;
 
+	/**
+	 * The id of this wrapper on the multiplexed transport, zero until it is
+	 * first sent to a client over it.
+	 */
+	transient int muxId;
+	private transient Object stub; // identifies it in the exported table
+	private transient volatile ConcurrentHashMap cached; // method -> Serialized, or a marker until encoded
+
 	/**
 	 * The constructor takes <i>any</i> object, and allows it to be remotely
 	 * invoked. If the object implements the {@link Invoke Invoke} interface, it
@@ -823,7 +1579,47 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 			throws RemoteException {
 		super(port, rcsf, rssf);
 		this.item = item;
+		if (item != null && !(item instanceof Invoke))
+			MethodTable.of(item.getClass()); // build its dispatch table now
 		items.add(this);
+		for (Local l; (l = (Local) collected.poll()) != null;)
+			exported.remove(l.stub, l);
+		stub = toStub(this);
+		exported.put(stub, new Local(this, stub));
+	}
+
+	private void unregister() {
+		MuxServer.unregister(this);
+		exported.remove(stub);
+	}
+
+	/**
+	 * This method finds the wrapper of an item remoted by this JVM, from a
+	 * remote reference to it.
+	 *
+	 * @param item
+	 *            A remote reference
+	 * @return The wrapper, or null, if the item is not remoted by this JVM, or
+	 *         the reference is itself a wrapper
+	 */
+	private static Remote local(Object item) {
+		if (item instanceof Remote || exported.isEmpty())
+			return null;
+		Local l = (Local) exported.get(item instanceof MuxStub ? ((MuxStub) item).stub() : item);
+		return l != null ? (Remote) l.get() : null;
+	}
+
+	private Object invokeLocal(String method, Object args) throws Exception {
+		if (!localCopy)
+			return resolved(invoke(method, args));
+		ClassLoader loader = item != null ? item.getClass().getClassLoader() : null;
+		try {
+			return MuxFrame.copy(serializable(invoke(method, MuxFrame.copy(args, loader))), null);
+		} catch (RemoteException x) {
+			throw x;
+		} catch (Exception x) {
+			throw (Exception) MuxFrame.copy(x, null);
+		}
 	}
 
 	/**
@@ -843,6 +1639,7 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 */
 	public boolean unexport(boolean force) throws NoSuchObjectException {
 		if (UnicastRemoteObject.unexportObject(this, force)) {
+			unregister();
 			items.remove(this);
 			return true;
 		} else
@@ -856,6 +1653,12 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 * the call to this class' static invoke method. If the arriving arguments are
 	 * encapsulated in a MarshalledObject, they will be extracted here
 	 * automatically.
+	 * <p>
+	 * If the method returns a CompletionStage, its eventual outcome is returned
+	 * to the caller, rather than the stage itself. Over the multiplexed
+	 * transport no thread is held while it is pending, however an RMI call can
+	 * only be answered by the thread which received it; so over RMI, the stage
+	 * is awaited here.
 	 *
 	 * @param method
 	 *            The method to invoke on the internal object.
@@ -875,7 +1678,226 @@ public final class Remote extends UnicastRemoteObject implements RemoteInvoke, U
 	 *             specific reasons.
 	 */
 	public Object invoke(String method, Object args) throws Exception {
-		return invoke(item, method, args);
+		return served(settle(dispatch(method, args)));
+	}
+
+	/**
+	 * This method invokes the method on the internal object, as the invoke
+	 * method, except a CompletionStage returned by the method is returned as
+	 * is, rather than awaited. It is used by the multiplexed transport, which
+	 * returns the result to the client only once the stage completes.
+	 */
+	Object dispatch(String method, Object args) throws Exception {
+		ConcurrentHashMap cached = this.cached;
+		Object form = cached != null && args == null && method != null ? cached.get(method) : null;
+		if (form instanceof Serialized)
+			return form;
+		inFlight.incrementAndGet();
+		boolean deferred = false;
+		try {
+			Object result = args instanceof Batch && Batch.METHOD.equals(method) ? ((Batch) args).run(item)
+					: invoke(item, method, args);
+			if (form != null && !(result instanceof CompletionStage)) {
+				Serialized encoded = new Serialized(serializable(result));
+				cached.replace(method, form, encoded); // unless invalidated meanwhile
+				return encoded;
+			}
+			if (result instanceof CompletionStage) {
+				deferred = true;
+				((CompletionStage) result).whenComplete(COMPLETED);
+			}
+			return result;
+		} finally {
+			if (!deferred)
+				inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * This method returns the method table of the internal object, as a list of
+	 * the names of its public methods, in ascending order. A client can fetch it
+	 * once, and then invoke methods by their index in the table, rather than by
+	 * name.
+	 *
+	 * @return The sorted method names, or null, if the internal object
+	 *         implements the {@link Invoke Invoke} interface, as its methods can
+	 *         then only be invoked by name.
+	 */
+	public String[] methods() {
+		return item == null || item instanceof Invoke ? null : (String[]) MethodTable.of(item.getClass()).names.clone();
+	}
+
+	/**
+	 * This method invokes a method on the internal object, identified by its
+	 * index in the table returned by {@link #methods() methods}. The id is
+	 * mapped directly to the dispatch table's own copy of the method name, so
+	 * only the integer, rather than the name, need be sent with each call.
+	 *
+	 * @param method
+	 *            The index of the method name in the method table.
+	 * @param args
+	 *            The arguments to provide to the method for its invocation. It can
+	 *            be a single object, an array of objects, or even null.
+	 * @return The sychronous data, if any, resulting from the invocation.
+	 * @throws NoSuchMethodException
+	 *             If the index is out of range, or no method of that name takes
+	 *             the arguments.
+	 * @throws Exception
+	 *             If the internal item rejected the invocation, for application
+	 *             specific reasons.
+	 */
+	public Object invoke(int method, Object args) throws Exception {
+		return served(settle(dispatch(method, args)));
+	}
+
+	/**
+	 * This method invokes a method on the internal object by its id, as the
+	 * dispatch method does by name.
+	 */
+	Object dispatch(int method, Object args) throws Exception {
+		if (item instanceof Invoke) // it has no method table
+			throw new NoSuchMethodException("method id " + method);
+		String names[] = MethodTable.of(item.getClass()).names;
+		if (method < 0 || method >= names.length)
+			throw new NoSuchMethodException("method id " + method);
+		return dispatch(names[method], args);
+	}
+
+	private static Object settle(Object result) throws Exception { // for RMI
+		if (!(result instanceof CompletionStage))
+			return result;
+		try { // RMI can only reply from the calling thread
+			return serializable(((CompletionStage) result).toCompletableFuture().get());
+		} catch (java.util.concurrent.ExecutionException x) {
+			Throwable t = x.getCause();
+			throw t instanceof Exception ? (Exception) t : new Exception(t.getMessage(), t);
+		}
+	}
+
+	/**
+	 * This method substitutes a remote reference for the result of an
+	 * invocation, if it is not serialisable. It is used for the results of
+	 * completion stages, which may complete outside the thread serving the
+	 * remote call.
+	 *
+	 * @param result
+	 *            The result of an invocation
+	 * @return The result, or a proxy to it, if it cannot be serialised
+	 */
+	static Object serializable(Object result) {
+		return result != null && !(result instanceof Serializable)
+				? gnu.cajo.utils.extra.TransparentItemProxy.proxy(result)
+				: result;
+	}
+
+	private static Object resolved(Object result) { // the result of a cached method
+		return result instanceof Serialized ? ((Serialized) result).get() : result;
+	}
+
+	private static Object served(Object result) { // encoded forms are for remote callers only
+		if (result instanceof Serialized)
+			try {
+				getClientHost();
+			} catch (ServerNotActiveException x) {
+				return ((Serialized) result).get();
+			}
+		return result;
+	}
+
+	/**
+	 * This method marks a method of the internal object as returning the same
+	 * immutable value, on every invocation without arguments, until it is
+	 * {@link #invalidate(String) invalidated}. Its result is encoded once, on
+	 * its next remote invocation, and that encoding is copied into the reply
+	 * of every invocation after; so even thousands of clients polling it cost
+	 * little more than a copy of its bytes each. The result arrives as usual;
+	 * clients cannot tell it was cached. Local invocations are given the
+	 * result itself.
+	 * <p>
+	 * <i><u>Note</u>:</i> cached invocations do not reach the internal object,
+	 * so any {@link Invoke Invoke} wrapper of it, such as a
+	 * {@link gnu.cajo.utils.MonitorItem MonitorItem}, does not see them. A
+	 * method returning a CompletionStage is not cached.
+	 *
+	 * @param method
+	 *            The name of the method, taking no arguments
+	 * @return A reference to this wrapper, to allow the convenient construct
+	 *         of:
+	 *         <p>
+	 *         <tt> new Remote(item).cache("getDescription");</tt>
+	 */
+	public Remote cache(String method) {
+		if (method == null)
+			throw new IllegalArgumentException("null method");
+		synchronized (this) {
+			if (cached == null)
+				cached = new ConcurrentHashMap();
+		}
+		cached.put(method, new Object());
+		return this;
+	}
+
+	/**
+	 * This method discards the encoded result of a {@link #cache cached}
+	 * method, when its value has changed. The method remains cached; its new
+	 * result is encoded on its next remote invocation.
+	 *
+	 * @param method
+	 *            The name of the method, or null, to discard the results of
+	 *            all the cached methods of this wrapper
+	 */
+	public void invalidate(String method) {
+		ConcurrentHashMap cached = this.cached;
+		if (cached == null)
+			return;
+		if (method != null) {
+			if (cached.containsKey(method))
+				cached.put(method, new Object()); // a new marker, see dispatch
+		} else
+			for (java.util.Iterator i = cached.keySet().iterator(); i.hasNext();)
+				cached.put(i.next(), new Object());
+	}
+
+	/**
+	 * This method discards the encoded result of a cached method, of each
+	 * wrapper of an object, as {@link #invalidate(String) invalidate} does.
+	 * It allows an object to invalidate its own results, without holding a
+	 * reference to its wrapper. Wrappers in {@link #clientScope clientScope}
+	 * are not found.
+	 *
+	 * @param item
+	 *            The wrapped object, or a wrapper
+	 * @param method
+	 *            The name of the method, or null, for all its cached methods
+	 */
+	public static void invalidate(Object item, String method) {
+		if (item instanceof Remote)
+			((Remote) item).invalidate(method);
+		else
+			synchronized (items) {
+				for (int i = 0; i < items.size(); i++) {
+					Remote remote = (Remote) items.elementAt(i);
+					if (remote.item == item)
+						remote.invalidate(method);
+				}
+			}
+	}
+
+	/**
+	 * When the multiplexed transport is enabled, this method substitutes a
+	 * {@link MuxStub MuxStub} for this wrapper, whenever it is serialised.
+	 * Otherwise, the RMI runtime substitutes its usual stub.
+	 *
+	 * @return The object to be serialised in place of this wrapper
+	 */
+	private Object writeReplace() {
+		MuxServer server = MuxServer.server;
+		if (server != null)
+			try {
+				return server.stub(this);
+			} catch (NoSuchObjectException x) {
+				/* not exported, let RMI report it */ }
+		return this;
 	}
 
 	/**
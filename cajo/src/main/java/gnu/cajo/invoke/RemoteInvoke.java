@@ -25,15 +25,14 @@ package gnu.cajo.invoke;
 
 /**
  * The Remote Component Communication Interface, and reason for this package. An
- * empty extension of the Invoke interface, it allows both local, and remote
+ * extension of the Invoke interface, it allows both local, and remote
  * objects, i.e. those from another VM, to be handled interchangably in code,
  * through their superclass interface Invoke. When a VM wishes to allow remote
  * access to an object, the local object would be passed to the constructor of
  * the {@link Remote Remote} class included in this package.
  * <p>
- * The implementation is so trivial, it is included it here:
- * <p>
- * <code>public interface RemoteInvoke extends Invoke, Remote {}</code>
+ * Beyond the invoke method, it only adds the ability to invoke methods by a
+ * numeric id, rather than by name, to reduce the size of each remote call.
  * <p>
  * <i>Note:</i> this interface is never implemented by classes directly, rather,
  * a client only uses this interface to test if an object is remote, in cases
@@ -55,4 +54,57 @@ package gnu.cajo.invoke;
  */
 
 public interface RemoteInvoke extends Invoke, java.rmi.Remote {
+	/**
+	 * This method is inherited from {@link Invoke Invoke}; it is redeclared here
+	 * only because the dynamic RMI stubs of current JREs refuse to invoke any
+	 * method not declared by an interface extending java.rmi.Remote.
+	 *
+	 * @param method
+	 *            The method to invoke on the remote object.
+	 * @param args
+	 *            The arguments to provide to the method for its invocation.
+	 * @return The data, if any, resulting from the invocation.
+	 * @throws Exception
+	 *             For network related reasons, or if the remote object rejected
+	 *             the invocation.
+	 */
+	Object invoke(String method, Object args) throws Exception;
+
+	/**
+	 * This method returns the method table of the remote object; the sorted
+	 * names of its public methods. A client may fetch it once, and thereafter
+	 * invoke methods by their index in the table, using the
+	 * {@link #invoke(int, Object) id-based} invoke method, rather than sending
+	 * the method name with every call.
+	 *
+	 * @return The method names, in ascending order, or null, if the remote
+	 *         object can only be invoked by name, e.g. as it implements the
+	 *         Invoke interface itself.
+	 * @throws java.rmi.RemoteException
+	 *             For network communication related reasons. A
+	 *             java.rmi.UnmarshalException, which RMI reports wrapped in a
+	 *             java.rmi.ServerException, indicates the server predates
+	 *             method tables.
+	 */
+	String[] methods() throws java.rmi.RemoteException;
+
+	/**
+	 * This method invokes a method, identified by its index in the table
+	 * returned by {@link #methods methods}, in exactly the same manner as
+	 * invoking it by name.
+	 *
+	 * @param method
+	 *            The index of the method name, in the remote object's method
+	 *            table.
+	 * @param args
+	 *            The arguments to provide to the method for its invocation. It
+	 *            can be a single object, an array of objects, or even null.
+	 * @return The data, if any, resulting from the invocation.
+	 * @throws NoSuchMethodException
+	 *             If the index is out of range, or no method of that name takes
+	 *             the arguments.
+	 * @throws Exception
+	 *             As for invocation by name.
+	 */
+	Object invoke(int method, Object args) throws Exception;
 }
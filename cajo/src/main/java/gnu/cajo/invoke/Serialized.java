@@ -0,0 +1,131 @@
+package gnu.cajo.invoke;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/*
+ * Serialised Result Form
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Serialized.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class holds the result of a {@link Remote#cache cached} method, in
+ * its encoded form. It is encoded once, on first use by each transport; an
+ * object stream for RMI, and a tagged value for the multiplexed transport,
+ * so that sending it again costs only a copy of the bytes. On arrival it
+ * resolves to the result itself, so the caller never sees it.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class Serialized implements Externalizable {
+	private static final long serialVersionUID = 1L;
+	private transient Object value;
+	private transient byte stream[], tagged[];
+
+	/**
+	 * The no-arg constructor is used only on deserialisation.
+	 */
+	public Serialized() {
+	}
+
+	Serialized(Object value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return The result this form encodes
+	 */
+	Object get() {
+		return value;
+	}
+
+	/**
+	 * This method returns the value, as written by a
+	 * {@link MarshalOutputStream MarshalOutputStream}.
+	 */
+	byte[] stream() throws IOException {
+		byte b[] = stream;
+		if (b == null) { // a race only encodes it twice
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+			ObjectOutputStream oos = new MarshalOutputStream(baos);
+			oos.writeObject(value);
+			oos.close();
+			stream = b = baos.toByteArray();
+		}
+		return b;
+	}
+
+	/**
+	 * This method returns the value, as written in a multiplexed transport
+	 * frame.
+	 */
+	byte[] tagged() throws IOException {
+		byte b[] = tagged;
+		if (b == null) {
+			MuxFrame.Buffer buffer = new MuxFrame.Buffer(0);
+			MuxFrame.write(buffer, value, null);
+			ByteBuffer payload = buffer.payload();
+			b = new byte[payload.remaining()];
+			payload.get(b);
+			tagged = b;
+		}
+		return b;
+	}
+
+	/**
+	 * This method writes the encoded value.
+	 *
+	 * @param out
+	 *            The stream on which to write it
+	 */
+	public void writeExternal(ObjectOutput out) throws IOException {
+		byte b[] = stream();
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	/**
+	 * This method reads the encoded value, and decodes it.
+	 *
+	 * @param in
+	 *            The stream from which to read it
+	 */
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		int n = in.readInt();
+		if (n < 0)
+			throw new StreamCorruptedException("invalid length " + n);
+		byte b[] = new byte[n];
+		in.readFully(b);
+		ObjectInputStream ois = new MarshalInputStream(new ByteArrayInputStream(b), null);
+		value = ois.readObject();
+		ois.close();
+	}
+
+	private Object readResolve() {
+		return value;
+	}
+}
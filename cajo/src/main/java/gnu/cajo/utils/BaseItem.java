@@ -135,15 +135,23 @@ public class BaseItem {
 	 *             object.
 	 */
 	public void setProxy(MarshalledObject proxy) {
-		if (this.proxy == null)
+		if (this.proxy == null) {
 			this.proxy = proxy;
-		else
+			Remote.invalidate(this, "getProxy");
+		} else
 			throw new IllegalArgumentException("Proxy already set");
 	}
 
 	/**
 	 * This remotely invokable method is called by the remote clients, to request
-	 * the server object's default proxy, if it supports one.
+	 * the server object's default proxy, if it supports one. Its result can be
+	 * {@link Remote#cache cached} by the item's wrapper, as returned by the
+	 * {@link ItemServer ItemServer}:
+	 * <p>
+	 * <tt> ItemServer.bind(item, "main").cache("getProxy");</tt>
+	 * <p>
+	 * A subclass changing it then, other than via {@link #setProxy setProxy},
+	 * must {@link Remote#invalidate(Object, String) invalidate} it.
 	 *
 	 * @return A the proxy serving this object, otherwise null.
 	 */
@@ -7,7 +7,6 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.rmi.RemoteException;
-import java.rmi.server.RemoteServer;
 import java.rmi.server.ServerNotActiveException;
 
 /*
@@ -167,7 +166,7 @@ public class MonitorItem implements Invoke {
 		int run = (int) (System.currentTimeMillis() - time);
 		String clientHost = null;
 		try {
-			clientHost = RemoteServer.getClientHost();
+			clientHost = Remote.getClientHost();
 		} catch (ServerNotActiveException x) {
 			StackTraceElement stes[] = x.getStackTrace();
 			StringBuffer sb = new StringBuffer("localhost <trace>");
@@ -50,6 +50,20 @@ import java.rmi.MarshalledObject;
  * @version 1.0, 01-Nov-99 Initial release
  */
 public final class Multicast implements Runnable {
+	private static final int SIZE = 0xFF00; // the largest announcement received
+
+	private static final class Packet extends ByteArrayOutputStream {
+		Packet() {
+			super(1024);
+		}
+
+		DatagramPacket packet(InetAddress group, int port) throws IOException {
+			if (count > SIZE)
+				throw new IOException("announcement of " + count + " bytes is too large");
+			return new DatagramPacket(buf, count, group, port); // not copied
+		}
+	}
+
 	private Object callback;
 	private Thread thread;
 	/**
@@ -178,8 +192,6 @@ public final class Multicast implements Runnable {
 	 *             not be sent.
 	 */
 	public void announce(Object item, int ttl) throws IOException {
-		InetAddress group = InetAddress.getByName(address);
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		if (!(item instanceof Remote))
 			item = new Remote(item);
 		try {
@@ -187,17 +199,7 @@ public final class Multicast implements Runnable {
 			Remote.invoke(item, "setProxy", new MarshalledObject(item));
 		} catch (Exception x) {
 		}
-		((Remote) item).zedmob(baos);
-		byte packet[] = baos.toByteArray();
-		baos.close();
-		MulticastSocket ms = new MulticastSocket();
-		try {
-			ms.setInterface(host);
-			ms.setTimeToLive(ttl);
-			ms.send(new DatagramPacket(packet, packet.length, group, port));
-		} finally {
-			ms.close();
-		}
+		send((Remote) item, ttl);
 	}
 
 	/**
@@ -225,8 +227,6 @@ public final class Multicast implements Runnable {
 	 *             not be sent.
 	 */
 	public void announce(Object item, int ttl, Object proxy) throws IOException {
-		InetAddress group = InetAddress.getByName(address);
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		if (!(item instanceof Remote))
 			item = new Remote(item);
 		try {
@@ -238,17 +238,7 @@ public final class Multicast implements Runnable {
 			Remote.invoke(item, "setProxy", new MarshalledObject(proxy));
 		} catch (Exception x) {
 		}
-		((Remote) item).zedmob(baos);
-		byte packet[] = baos.toByteArray();
-		baos.close();
-		MulticastSocket ms = new MulticastSocket();
-		try {
-			ms.setInterface(host);
-			ms.setTimeToLive(ttl);
-			ms.send(new DatagramPacket(packet, packet.length, group, port));
-		} finally {
-			ms.close();
-		}
+		send((Remote) item, ttl);
 	}
 
 	/**
@@ -279,6 +269,19 @@ public final class Multicast implements Runnable {
 			throw new IllegalArgumentException("Already listening");
 	}
 
+	private void send(Remote item, int ttl) throws IOException {
+		Packet packet = new Packet(); // the zedmob is written straight into it
+		item.zedmob(packet);
+		MulticastSocket ms = new MulticastSocket();
+		try {
+			ms.setInterface(host);
+			ms.setTimeToLive(ttl);
+			ms.send(packet.packet(InetAddress.getByName(address), port));
+		} finally {
+			ms.close();
+		}
+	}
+
 	/**
 	 * The monitor thread, it listens for multicasts. It will sleep until the
 	 * arrival of a message. The packet will be reconstituted into a remote object
@@ -299,11 +302,11 @@ public final class Multicast implements Runnable {
 			MulticastSocket ms = new MulticastSocket(port);
 			ms.setInterface(host);
 			ms.joinGroup(InetAddress.getByName(address));
-			DatagramPacket dp = new DatagramPacket(new byte[0xFF00], 0xFF00);
+			DatagramPacket dp = new DatagramPacket(new byte[SIZE], SIZE);
 			while (!thread.isInterrupted())
 				try {
 					ms.receive(dp);
-					ByteArrayInputStream bais = new ByteArrayInputStream(dp.getData());
+					ByteArrayInputStream bais = new ByteArrayInputStream(dp.getData(), dp.getOffset(), dp.getLength());
 					try {
 						item = (RemoteInvoke) Remote.zedmob(bais);
 						iaddr = dp.getAddress();
@@ -3,6 +3,7 @@ package gnu.cajo.utils.extra;
 import gnu.cajo.invoke.Remote;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.function.BiConsumer;
 
 /*
  * Asynchronous Method Invocation Class
@@ -29,11 +30,12 @@ import java.lang.reflect.InvocationTargetException;
 
 /**
  * This class is used to asynchronously invoke methods on objects. Each time the
- * invoke method is called, it spawns a one-use thread, to perform the method
- * invocation. From the perspective of the caller, the method returns
- * immediately. When the invocation is completed, it will callback the provided
- * listening object; invoking a method of the identical name as the one invoked
- * on the called object; passing a single object argument, which is either the
+ * invoke method is called, it performs the method invocation via
+ * {@link Remote#invokeAsync(Object, String, Object) Remote.invokeAsync}, so
+ * no thread is started per call. From the perspective of the caller, the
+ * method returns immediately. When the invocation is completed, it will
+ * callback the provided listening object; invoking a method of the identical
+ * name as the one invoked on the called object; passing a single object argument, which is either the
  * resulting data of the invocation, if any, or the exception resulting from the
  * invocation. Canonically the callback object should therfore define up to
  * three methods; each having the name of the method called. One method
@@ -132,17 +134,12 @@ public final class AsyncMethod implements gnu.cajo.invoke.Invoke {
 	 *            type, local or remote. If the argument is null, the invocation
 	 *            result will be silently discarded.
 	 */
-	public static void invoke(final Object item, final String method, final Object args, final Object callback) {
-		new Thread() {
-			public void run() {
-				Object result;
-				try {
-					result = Remote.invoke(item, method, args);
-				} catch (InvocationTargetException x) {
-					result = x.getTargetException();
-				} catch (Exception x) {
-					result = x;
-				}
+	public static void invoke(Object item, final String method, Object args, final Object callback) {
+		Remote.invokeAsync(item, method, args).whenComplete(new BiConsumer() {
+			public void accept(Object result, Object t) {
+				if (t != null)
+					result = t instanceof InvocationTargetException ? ((InvocationTargetException) t).getTargetException()
+							: t;
 				if (callback != null)
 					try {
 						Remote.invoke(callback, method, result);
@@ -150,6 +147,6 @@ public final class AsyncMethod implements gnu.cajo.invoke.Invoke {
 						x.printStackTrace();
 					}
 			}
-		}.start();
+		});
 	}
 }
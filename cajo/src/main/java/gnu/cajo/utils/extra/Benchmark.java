@@ -0,0 +1,393 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Codec;
+import gnu.cajo.invoke.MarshalInputStream;
+import gnu.cajo.invoke.MarshalOutputStream;
+import gnu.cajo.invoke.Remote;
+import gnu.cajo.utils.ItemServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.rmi.MarshalledObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/*
+ * Invocation Latency Benchmark
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Benchmark.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class measures the invocation rate between two JVMs, to compare the
+ * transports, and their configuration, on a given pair of hosts, or between
+ * JVMs on the same host. One JVM is started as a server:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark server [transport]
+ * </tt></blockquote>
+ * where the transport is one of <tt>rmi</tt>, <tt>mux</tt>, <tt>unix</tt>,
+ * or <tt>shm</tt>, by default mux; the last two also accept connections via a
+ * Unix domain socket file, and the last also offers shared memory segments,
+ * to clients on the same host. The server binds a benchmark item under the
+ * name "main", on the default rmiregistry port, 1099. The other is started
+ * as a client:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark client [url [calls
+ * [bytes]]]</tt></blockquote>
+ * where the url locates the server's item, by default //localhost/main; and
+ * the client makes the given number of calls, by default 100,000, echoing an
+ * array of the given number of bytes, by default zero. It reports the
+ * transport it used, and the mean time per call, for calls made one after
+ * another, and from several threads at once.
+ * <p>
+ * The cost of a local invocation is measured within a single JVM:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark invoke [count]
+ * </tt></blockquote>
+ * It reports the mean time per call, over the given number of calls, by
+ * default 10,000,000, of the benchmark item's method, called directly, via
+ * java.lang.reflect.Method.invoke, as invocations were made by earlier
+ * releases, and via {@link Remote#invoke(Object, String, Object)
+ * Remote.invoke}, first by reflection, then once
+ * {@link Remote#compile compiled}.
+ * <p>
+ * The cost of wrapping objects in {@link TransparentItemProxy
+ * TransparentItemProxies}, as is done for every non-serialisable argument
+ * and result of a remote call, is measured within a single JVM:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark wrap [count]
+ * </tt></blockquote>
+ * It reports the mean time to wrap an object in a proxy of all its
+ * interfaces, to create a proxy of a given pair of interfaces, and to wrap an
+ * object and invoke it through its proxy, over the given number of wraps, by
+ * default 1,000,000. The first two are also reported uncached, as proxies
+ * were made by earlier releases: collecting the object's interfaces afresh,
+ * and looking up the proxy class, on every wrap.
+ * <p>
+ * The cost of shipping a TransparentItemProxy of a remote item, as is done
+ * when binding or returning one, is measured within a single JVM:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark ship [count]
+ * </tt></blockquote>
+ * It reports the size of the encoded proxy, and the mean time to write and to
+ * read it, over the given number of copies, by default 10,000; as written to
+ * a plain object stream, wherein the item is nested in a
+ * java.rmi.MarshalledObject, as all proxies were by earlier releases; in a
+ * single pass, to a {@link MarshalOutputStream MarshalOutputStream}; and as
+ * {@link Remote#zedmob(java.io.OutputStream, Object, Codec) zedmobs},
+ * compressed with GZIP, and with LZ.
+ * <p>
+ * The cost of encoding typical arguments, and decoding them again, is
+ * measured within a single JVM:
+ * <blockquote><tt>
+ * java -cp cajo.jar gnu.cajo.utils.extra.Benchmark values [count]
+ * </tt></blockquote>
+ * For each of a few argument shapes, it reports the encoded size, and the
+ * mean time per round trip, over the given number of round trips, by default
+ * 100,000; in the compact form of the multiplexed transport, as an object
+ * stream, as its payloads were by earlier releases, and as a
+ * java.rmi.MarshalledObject. The compact form is reached by reflection, as
+ * it is internal to its package, which adds a little to its times.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public final class Benchmark {
+	/**
+	 * This method is the benchmark item's sole method.
+	 *
+	 * @param data
+	 *            Any data
+	 * @return The data provided
+	 */
+	public Object echo(Object data) {
+		return data;
+	}
+
+	private static final class Listener implements Runnable, java.util.EventListener { // not serialisable
+		public void run() {
+		}
+	}
+
+	private static Object uncached(Object object, Class interfaces[], InvocationHandler handler) {
+		if (interfaces == null) { // walked on every wrap, as proxy once did
+			java.util.HashSet set = new java.util.HashSet();
+			for (Class c = object.getClass(); c != null; c = c.getSuperclass())
+				set.addAll(java.util.Arrays.asList(c.getInterfaces()));
+			interfaces = (Class[]) set.toArray(new Class[set.size()]);
+		}
+		return Proxy.newProxyInstance(interfaces[0].getClassLoader(), interfaces, handler);
+	}
+
+	private static void wrap(int count) {
+		final Listener listener = new Listener();
+		Class pair[] = { Runnable.class, java.util.EventListener.class };
+		InvocationHandler handler = new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object args[]) throws Throwable {
+				return method.invoke(listener, args);
+			}
+		};
+		for (int round = 0; round < 3; round++) { // the first two warm up
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				uncached(listener, null, handler);
+			long proxyUncached = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				uncached(listener, pair, handler);
+			long getItemUncached = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				TransparentItemProxy.proxy(listener);
+			long proxy = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				TransparentItemProxy.getItem(listener, pair);
+			long getItem = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				((Runnable) TransparentItemProxy.proxy(listener)).run();
+			long end = System.nanoTime();
+			if (round == 2) {
+				System.out.println("proxy, uncached:   " + (proxyUncached - start) / count + "ns per wrap");
+				System.out.println("getItem, uncached: " + (getItemUncached - proxyUncached) / count + "ns per wrap");
+				System.out.println("proxy:             " + (proxy - getItemUncached) / count + "ns per wrap");
+				System.out.println("getItem:           " + (getItem - proxy) / count + "ns per wrap");
+				System.out.println("wrap and call:     " + (end - getItem) / count + "ns per call");
+			}
+		}
+	}
+
+	private static byte[] write(Object proxy, int form) throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		if (form < 2) {
+			ObjectOutputStream out = form == 0 ? new ObjectOutputStream(os) : new MarshalOutputStream(os);
+			try {
+				out.writeObject(proxy);
+			} finally {
+				out.close();
+			}
+		} else
+			Remote.zedmob(os, proxy, form == 2 ? Codec.GZIP : Codec.LZ);
+		return os.toByteArray();
+	}
+
+	private static Object read(byte b[], int form) throws Exception {
+		ByteArrayInputStream is = new ByteArrayInputStream(b);
+		if (form == 0)
+			return new ObjectInputStream(is).readObject();
+		return form == 1 ? new MarshalInputStream(is, null).readObject() : Remote.zedmob(is);
+	}
+
+	private static void ship(int count) throws Exception {
+		Remote ref = new Remote(new Benchmark());
+		Object proxy = TransparentItemProxy.getItem(ref, new Class[] { Runnable.class });
+		String forms[] = { "nested MarshalledObject: ", "single pass:             ", "zedmob, GZIP:            ",
+				"zedmob, LZ:              " };
+		for (int form = 0; form < forms.length; form++)
+			for (int round = 0; round < 3; round++) { // the first two warm up
+				byte b[] = null;
+				long start = System.nanoTime();
+				for (int i = 0; i < count; i++)
+					b = write(proxy, form);
+				long written = System.nanoTime();
+				for (int i = 0; i < count; i++)
+					read(b, form);
+				long end = System.nanoTime();
+				if (round == 2)
+					System.out.println(forms[form] + b.length + " bytes, written in " + (written - start) / count
+							+ "ns, read in " + (end - written) / count + "ns");
+			}
+		ref.unexport(true);
+	}
+
+	private static final class Mux { // the compact encoding, internal to its package
+		private final Constructor buffer;
+		private final Method write, payload, read;
+
+		Mux() throws Exception {
+			Class frame = Class.forName("gnu.cajo.invoke.MuxFrame");
+			Class buffer = Class.forName("gnu.cajo.invoke.MuxFrame$Buffer");
+			this.buffer = buffer.getDeclaredConstructor(new Class[] { int.class });
+			write = frame.getDeclaredMethod("write", new Class[] { buffer, Object.class, byte[].class });
+			payload = buffer.getDeclaredMethod("payload", new Class[0]);
+			read = frame.getDeclaredMethod("read", new Class[] { ByteBuffer.class, ClassLoader.class });
+			this.buffer.setAccessible(true);
+			write.setAccessible(true);
+			payload.setAccessible(true);
+			read.setAccessible(true);
+		}
+
+		ByteBuffer encode(Object o) throws Exception {
+			Object b = buffer.newInstance(new Object[] { new Integer(0) });
+			write.invoke(null, new Object[] { b, o, null });
+			return (ByteBuffer) payload.invoke(b, new Object[0]);
+		}
+
+		Object decode(ByteBuffer payload) throws Exception {
+			return read.invoke(null, new Object[] { payload, null });
+		}
+	}
+
+	private static int trip(Mux mux, Object value, int form) throws Exception { // the encoded size
+		if (form == 0) {
+			ByteBuffer payload = mux.encode(value);
+			int size = payload.remaining();
+			mux.decode(payload);
+			return size;
+		}
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ObjectOutputStream out = new MarshalOutputStream(os);
+		out.writeObject(form == 1 ? value : new MarshalledObject(value));
+		out.flush();
+		Object o = new MarshalInputStream(new ByteArrayInputStream(os.toByteArray()), null).readObject();
+		if (form == 2)
+			((MarshalledObject) o).get();
+		return os.size();
+	}
+
+	private static void values(int count) throws Exception {
+		Mux mux = new Mux();
+		Object values[] = { new Object[] { "getQuote", new Integer(42), new Double(1.25) }, new byte[256],
+				new Object[] { new int[64], "symbol" }, new double[128] };
+		String names[] = { "(\"getQuote\", 42, 1.25): ", "byte[256]:               ",
+				"(int[64], \"symbol\"):     ", "double[128]:             " };
+		String forms[] = { "compact ", ", object stream ", ", MarshalledObject " };
+		for (int v = 0; v < values.length; v++) {
+			StringBuffer sb = new StringBuffer(names[v]);
+			for (int form = 0; form < forms.length; form++)
+				for (int round = 0; round < 3; round++) { // the first two warm up
+					int size = 0;
+					long start = System.nanoTime();
+					for (int i = 0; i < count; i++)
+						size = trip(mux, values[v], form);
+					long time = System.nanoTime() - start;
+					if (round == 2)
+						sb.append(forms[form]).append(size).append("B ").append(time / count).append("ns");
+				}
+			System.out.println(sb);
+		}
+	}
+
+	private static void invoke(int count) throws Exception {
+		Benchmark item = new Benchmark();
+		Method echo = Benchmark.class.getMethod("echo", new Class[] { Object.class });
+		Object data = "data", sink = null, args[] = { data };
+		String modes[] = { "direct call:    ", "Method.invoke:  ", "Remote.invoke, reflected: ",
+				"Remote.invoke, compiled:  " };
+		for (int mode = 0; mode < modes.length; mode++) {
+			Remote.compile(mode == 3); // once compiled, a method stays so
+			for (int round = 0; round < 3; round++) { // the first two warm up
+				long start = System.nanoTime();
+				switch (mode) {
+				case 0:
+					for (int i = 0; i < count; i++)
+						sink = item.echo(data);
+					break;
+				case 1:
+					for (int i = 0; i < count; i++) { // as invocations were made
+						echo.setAccessible(true);
+						sink = echo.invoke(item, args);
+					}
+					break;
+				default:
+					for (int i = 0; i < count; i++)
+						sink = Remote.invoke(item, "echo", data);
+				}
+				long time = System.nanoTime() - start;
+				if (round == 2)
+					System.out.println(modes[mode] + time / count + "ns per call");
+			}
+		}
+		Remote.compile(false);
+		if (sink != data)
+			throw new IllegalStateException("wrong result");
+	}
+
+	private static long run(final Object item, final int calls, final Object data, int threads)
+			throws Exception {
+		Thread t[] = new Thread[threads];
+		final Exception failure[] = new Exception[1];
+		long start = System.nanoTime();
+		for (int i = 0; i < threads; i++) {
+			t[i] = new Thread() {
+				public void run() {
+					try {
+						for (int i = 0; i < calls; i++)
+							Remote.invoke(item, "echo", data);
+					} catch (Exception x) {
+						failure[0] = x;
+					}
+				}
+			};
+			t[i].start();
+		}
+		for (int i = 0; i < threads; i++)
+			t[i].join();
+		if (failure[0] != null)
+			throw failure[0];
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * The application method starts either the server, or the client, of the
+	 * benchmark.
+	 *
+	 * @param args
+	 *            As described in the class documentation
+	 * @throws Exception
+	 *             If the server could not be started, or the client failed to
+	 *             reach it
+	 */
+	public static void main(String args[]) throws Exception {
+		if (args.length > 0 && args[0].equals("server")) {
+			String transport = args.length > 1 ? args[1] : "mux";
+			String socket = System.getProperty("java.io.tmpdir") + "/cajo-benchmark.sock";
+			if (transport.equals("shm"))
+				Remote.sharedMemory = 1 << 20;
+			if (transport.equals("rmi"))
+				Remote.config(null, 1099, null, 0);
+			else
+				Remote.config(null, 1099, null, 0, 0, transport.equals("mux") ? null : socket);
+			ItemServer.bind(new Benchmark(), "main");
+			System.out.println("benchmark server ready, via " + transport);
+		} else if (args.length > 0 && args[0].equals("client")) {
+			Object item = Remote.getItem(args.length > 1 ? args[1] : "//localhost/main");
+			int calls = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+			byte data[] = new byte[args.length > 3 ? Integer.parseInt(args[3]) : 0];
+			System.out.println("item reference: " + item);
+			run(item, calls / 2, data, 1); // warm up
+			int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+			long time = run(item, calls, data, 1);
+			System.out.println("sequential: " + time / 1000 / calls + "us per call");
+			time = run(item, calls / threads, data, threads);
+			System.out.println(threads + " threads:  " + time / 1000 / (calls / threads * threads) + "us per call");
+			System.exit(0);
+		} else if (args.length > 0 && args[0].equals("invoke"))
+			invoke(args.length > 1 ? Integer.parseInt(args[1]) : 10000000);
+		else if (args.length > 0 && args[0].equals("wrap"))
+			wrap(args.length > 1 ? Integer.parseInt(args[1]) : 1000000);
+		else if (args.length > 0 && args[0].equals("ship"))
+			ship(args.length > 1 ? Integer.parseInt(args[1]) : 10000);
+		else if (args.length > 0 && args[0].equals("values"))
+			values(args.length > 1 ? Integer.parseInt(args[1]) : 100000);
+		else
+			System.err.println(
+					"usage: Benchmark server [rmi|mux|unix|shm] | client [url [calls [bytes]]] | invoke [count] | wrap [count] | ship [count] | values [count]");
+	}
+}
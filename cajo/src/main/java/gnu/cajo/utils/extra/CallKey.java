@@ -0,0 +1,74 @@
+package gnu.cajo.utils.extra;
+
+import java.util.Arrays;
+
+/*
+ * Invocation Identity Key
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file CallKey.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This internal use only class identifies an invocation, by its method name
+ * and arguments, for the wrappers which share or keep the results of
+ * identical invocations: the {@link Coalescer Coalescer}, and the
+ * {@link NearCache NearCache}. Two keys are equal if their method names
+ * are, and their arguments are, as compared by their equals methods; except
+ * arrays, at any depth, which are compared by their contents, as invocation
+ * arguments are typically freshly allocated for each call.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+final class CallKey {
+	private static final Object NOARGS[] = {};
+
+	/**
+	 * The name of the method invoked.
+	 */
+	final String method;
+	private final Object args[];
+	private final int hash;
+
+	/**
+	 * The constructor copies the arguments, as the caller may reuse its array.
+	 *
+	 * @param method
+	 *            The name of the method, it must not be null
+	 * @param args
+	 *            The arguments, as they would be passed to
+	 *            {@link gnu.cajo.invoke.Remote#invoke(Object, String, Object)
+	 *            Remote.invoke}
+	 */
+	CallKey(String method, Object args) {
+		this.method = method;
+		this.args = args == null ? NOARGS
+				: args instanceof Object[] ? (Object[]) ((Object[]) args).clone() : new Object[] { args };
+		hash = 31 * method.hashCode() + Arrays.deepHashCode(this.args);
+	}
+
+	public boolean equals(Object o) {
+		if (!(o instanceof CallKey))
+			return false;
+		CallKey key = (CallKey) o;
+		return hash == key.hash && method.equals(key.method) && Arrays.deepEquals(args, key.args);
+	}
+
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -6,6 +6,8 @@ import gnu.cajo.invoke.Remote;
 import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*
  * Callback proxy for a firewalled client, used by a server item
@@ -54,19 +56,26 @@ import java.rmi.server.UnicastRemoteObject;
  * remote client object. A practical usage <a
  * href=http://wiki.java.net/bin/view/Communications/FirewalledClients>
  * example</a> is available online.
+ * <p>
+ * The handshake between the threads uses a java.util.concurrent lock, rather
+ * than the object's monitor, so when invocations are executed on virtual
+ * threads, a blocked callback does not hold on to an operating system thread.
  *
  * @version 1.0, 28-Mar-04 Initial release
  */
 public final class ClientProxy implements Invoke {
 	private String method;
 	private Object args;
-	private boolean done, connected;
+	private boolean done, connected, severed;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition signal = lock.newCondition();
 	/**
 	 * This is the longest value, in milliseconds, that the server will wait for a
 	 * client invocation to execute before it aborts it. It is set by default to
 	 * 5000 (5 seconds). Depending on the type of functionality being performed in
 	 * the client methods, this time may require adjusting. When it is changed, the
-	 * new value will apply for all subsequent calls.
+	 * new value will apply for all subsequent calls. If it is zero, or negative,
+	 * the server will wait indefinitely.
 	 */
 	public int timeout = 5000;
 	/**
@@ -94,8 +103,8 @@ public final class ClientProxy implements Invoke {
 	 * client can detect the detachment, if it wishes, by implementing a similar
 	 * cutOff method. The client may also remotely invoke this method, if it wishes
 	 * to sever its link to the server. Any subsequent invocations by the server
-	 * will result in client timeout exceptions. This method also calls notify(), in
-	 * case there was an invocation in process when this happened.
+	 * will result in client timeout exceptions. This method also wakes the waiting
+	 * thread, in case there was an invocation in process when this happened.
 	 * <i><u>Note</u>:</i> it would not make sense to call this method more than
 	 * once, ever, for a given object instance.
 	 *
@@ -105,10 +114,31 @@ public final class ClientProxy implements Invoke {
 	 */
 	public void cutOff() throws NoSuchObjectException {
 		UnicastRemoteObject.unexportObject(remoteThis, true);
-		done = false;
-		synchronized (this) {
-			notify();
+		lock.lock();
+		try {
+			done = false;
+			severed = true;
+			signal.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private long deadline() { // of a wait on the client, if there is a timeout
+		int timeout = this.timeout;
+		return timeout > 0 ? System.nanoTime() + timeout * 1000000L : Long.MAX_VALUE;
+	}
+
+	private boolean await(long deadline) throws InterruptedException { // false once past
+		if (deadline == Long.MAX_VALUE) {
+			signal.await();
+			return true;
 		}
+		long left = deadline - System.nanoTime();
+		if (left <= 0)
+			return false;
+		signal.awaitNanos(left);
+		return true;
 	}
 
 	/**
@@ -134,33 +164,42 @@ public final class ClientProxy implements Invoke {
 	 * @throws Exception
 	 *             For any client specific reasons.
 	 */
-	public synchronized Object invoke(String method, Object args) throws Exception {
-		if (method == null) { // client callback response thread
-			connected = true; // indicate client is connected
-			this.args = args; // save the callback result
-			done = true; // indicate callback complete
-			notify(); // wake the server item thread
-			wait(); // suspend the client callback thread
-			return new Object[] { this.method, this.args };
-		} else if (method.equals("cutOff")
-				&& (args == null || (args instanceof Object[] && ((Object[]) args).length == 0))) {
-			cutOff(); // client or server wants to terminate
-			return null; // connexion to client is now severed
-		} else { // server callback invocation thread
-			if (!connected)
-				wait(timeout); // delay for initial client connect
-			if (!done)
-				throw new InterruptedException("Client not listening");
-			this.method = method; // save the client method to be invoked
-			this.args = args; // save the data to provide the invocation
-			done = false; // indicate callback pending
-			notify(); // wake the client callback thread
-			wait(timeout); // suspend the server item thread
-			if (!done)
-				throw new InterruptedException("Callback Timeout");
-			if (this.args instanceof Exception)
-				throw (Exception) this.args;
-			return this.args; // return the callback result
+	public Object invoke(String method, Object args) throws Exception {
+		lock.lock();
+		try {
+			if (method == null) { // client callback response thread
+				connected = true; // indicate client is connected
+				this.args = args; // save the callback result
+				done = true; // indicate callback complete
+				signal.signal(); // wake the server item thread
+				while (done && !severed)
+					signal.await(); // suspend the client callback thread
+				return new Object[] { this.method, this.args };
+			} else if (method.equals("cutOff")
+					&& (args == null || (args instanceof Object[] && ((Object[]) args).length == 0))) {
+				cutOff(); // client or server wants to terminate
+				return null; // connexion to client is now severed
+			} else { // server callback invocation thread
+				long deadline = deadline();
+				while (!connected && !severed && await(deadline))
+					; // delay for initial client connect
+				if (!done)
+					throw new InterruptedException("Client not listening");
+				this.method = method; // save the client method to be invoked
+				this.args = args; // save the data to provide the invocation
+				done = false; // indicate callback pending
+				signal.signal(); // wake the client callback thread
+				deadline = deadline();
+				while (!done && !severed && await(deadline))
+					; // suspend the server item thread
+				if (!done)
+					throw new InterruptedException("Callback Timeout");
+				if (this.args instanceof Exception)
+					throw (Exception) this.args;
+				return this.args; // return the callback result
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 }
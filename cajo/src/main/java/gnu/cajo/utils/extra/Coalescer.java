@@ -0,0 +1,160 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Invoke;
+import gnu.cajo.invoke.Remote;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Concurrent Call Coalescer
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file Coalescer.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class merges identical invocations of selected methods of an item,
+ * made by several threads at once, into one. While an invocation is in
+ * progress, other threads calling the same method, with equal arguments, as
+ * compared by their equals methods, except arrays, which are compared by
+ * their contents, do not invoke the item; they wait for it
+ * instead, and receive its result, or exception, too. It wraps the item
+ * reference, and is used in its place, typically under a
+ * {@link TransparentItemProxy TransparentItemProxy}:<blockquote><tt><pre>
+ * Coalescer coalescer = new Coalescer(reference).coalesce("getConfig");
+ * Service service = (Service)cajo.proxy(coalescer, Service.class);
+ * </pre></tt></blockquote>
+ * Only methods without side effects should be selected, as the item sees
+ * fewer calls than were made; the invocations of all others are simply passed
+ * on to the item. Results are not kept once the invocation completes; for
+ * that, a {@link NearCache NearCache} may be wrapped around the coalescer,
+ * whose misses will then be coalesced.
+ * <p>
+ * <i><u>Note</u>:</i> all the threads waiting on an invocation receive the
+ * same result object, so it should be treated as immutable.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class Coalescer implements Invoke {
+	private final ConcurrentHashMap methods = new ConcurrentHashMap(); // selected
+	private final ConcurrentHashMap flights = new ConcurrentHashMap(); // CallKey -> future
+	private final AtomicLong issued = new AtomicLong(), coalesced = new AtomicLong();
+
+	/**
+	 * This is the item whose invocations are coalesced. It is declared public
+	 * to allow it to be invoked directly, bypassing the coalescer.
+	 */
+	public final Object item;
+
+	/**
+	 * The constructor wraps the item; none of its methods are coalesced, until
+	 * selected via {@link #coalesce coalesce}.
+	 *
+	 * @param item
+	 *            The item whose invocations are to be coalesced, normally a
+	 *            remote reference
+	 */
+	public Coalescer(Object item) {
+		this.item = item;
+	}
+
+	/**
+	 * This method selects a method whose concurrent invocations are to be
+	 * coalesced.
+	 *
+	 * @param method
+	 *            The name of the method, all its overloads are coalesced alike
+	 * @return This object, so that several methods may be selected in a single
+	 *         statement
+	 */
+	public Coalescer coalesce(String method) {
+		methods.put(method, method);
+		return this;
+	}
+
+	private static Exception rethrow(Throwable t) { // errors as they are
+		if (t instanceof Error)
+			throw (Error) t;
+		return t instanceof Exception ? (Exception) t : new Exception(t.getMessage(), t);
+	}
+
+	/**
+	 * This method invokes a selected method on the item, unless an identical
+	 * invocation is already in progress, in which case it waits for that one
+	 * to complete, and returns its result.
+	 *
+	 * @param method
+	 *            The method to be invoked
+	 * @param args
+	 *            The arguments to provide to the method
+	 * @return The result of the invocation, shared or not
+	 * @throws Exception
+	 *             If the item rejected the invocation, for any reason; an
+	 *             error thrown by the item is rethrown as it is
+	 */
+	public Object invoke(String method, Object args) throws Exception {
+		if (method == null || !methods.containsKey(method))
+			return Remote.invoke(item, method, args);
+		CallKey key = new CallKey(method, args);
+		CompletableFuture flight = new CompletableFuture();
+		CompletableFuture leader = (CompletableFuture) flights.putIfAbsent(key, flight);
+		if (leader != null) { // join the invocation in progress
+			coalesced.incrementAndGet();
+			try {
+				return leader.join();
+			} catch (CompletionException x) {
+				throw rethrow(x.getCause());
+			}
+		}
+		issued.incrementAndGet();
+		Object result;
+		try {
+			result = Remote.invoke(item, method, args);
+		} catch (Throwable t) {
+			flights.remove(key, flight);
+			flight.completeExceptionally(t);
+			throw rethrow(t);
+		}
+		flights.remove(key, flight); // later calls are made afresh
+		flight.complete(result);
+		return result;
+	}
+
+	/**
+	 * This method reports how many invocations of the selected methods were
+	 * actually made on the item.
+	 *
+	 * @return The number of invocations issued
+	 */
+	public long getIssued() {
+		return issued.get();
+	}
+
+	/**
+	 * This method reports how many invocations of the selected methods were
+	 * not made on the item, but shared the result of an identical one already
+	 * in progress; each is a round trip saved.
+	 *
+	 * @return The number of invocations coalesced
+	 */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+}
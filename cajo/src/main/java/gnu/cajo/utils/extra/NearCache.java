@@ -0,0 +1,235 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Invoke;
+import gnu.cajo.invoke.Remote;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Client Side Result Cache
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file NearCache.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class keeps the results of selected read-only methods of an item, on
+ * the client, so that calling them again, with equal arguments, costs no
+ * round trip to the server. It wraps the item reference, and is used in its
+ * place, typically under a {@link TransparentItemProxy TransparentItemProxy}:
+ * <blockquote><tt><pre>
+ * NearCache cache = new NearCache(reference, 1000).
+ *    cache("getDescription", 0).cache("getCatalog", 60000);
+ * Service service = (Service)cajo.proxy(cache, Service.class);
+ * </pre></tt></blockquote>
+ * Each method is cached for its own time to live; the calls to configure it
+ * are its descriptor. Results are kept for each distinct set of arguments,
+ * as compared by their equals methods, except arrays, which are compared by
+ * their contents; up to a total number, beyond which
+ * the least recently used are evicted. The calls of all other methods, and
+ * those which throw an exception, are simply passed on to the item.
+ * <p>
+ * <i><u>Note</u>:</i> all callers of a method receive the same cached result
+ * object, so it should be treated as immutable. If the item changes, the
+ * client must {@link #invalidate(String) invalidate} the results affected,
+ * e.g. on notification from the server; a result being fetched while it is
+ * invalidated is not kept.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class NearCache implements Invoke {
+	private static final class Entry { // a result, and when it was fetched
+		private final Object result;
+		private final long fetched, ttl;
+
+		private Entry(Object result, long fetched, long ttl) {
+			this.result = result;
+			this.fetched = fetched;
+			this.ttl = ttl;
+		}
+	}
+
+	private final ConcurrentHashMap ttls = new ConcurrentHashMap(); // method -> Long ns
+	private final LinkedHashMap entries; // CallKey -> Entry, in order of use
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+	private long generation; // of invalidations, guarded by entries
+
+	/**
+	 * This is the item whose results are cached. It is declared public to
+	 * allow it to be invoked directly, bypassing the cache.
+	 */
+	public final Object item;
+
+	/**
+	 * The constructor wraps the item; none of its methods are cached, until
+	 * selected via {@link #cache cache}.
+	 *
+	 * @param item
+	 *            The item whose results are to be cached, normally a remote
+	 *            reference
+	 * @param size
+	 *            The most results to keep, for all methods together
+	 */
+	public NearCache(Object item, final int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("size must be positive");
+		this.item = item;
+		entries = new LinkedHashMap(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry eldest) {
+				if (size() <= size)
+					return false;
+				evictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * This method selects a method whose results are to be cached.
+	 *
+	 * @param method
+	 *            The name of the method, all its overloads are cached alike
+	 * @param ttl
+	 *            How long a result is kept, in milliseconds, zero for until it
+	 *            is evicted or invalidated
+	 * @return This object, so that several methods may be selected in a single
+	 *         statement
+	 */
+	public NearCache cache(String method, long ttl) {
+		if (ttl < 0)
+			throw new IllegalArgumentException("ttl must not be negative");
+		ttls.put(method, new Long(TimeUnit.MILLISECONDS.toNanos(ttl))); // at most Long.MAX_VALUE
+		return this;
+	}
+
+	/**
+	 * This method returns the cached result of a selected method, if it has
+	 * one which has not expired, otherwise it invokes the method on the item.
+	 *
+	 * @param method
+	 *            The method to be invoked
+	 * @param args
+	 *            The arguments to provide to the method
+	 * @return The result of the invocation, cached or not
+	 * @throws Exception
+	 *             If the item rejected the invocation, for any reason
+	 */
+	public Object invoke(String method, Object args) throws Exception {
+		Long ttl = method != null ? (Long) ttls.get(method) : null;
+		if (ttl == null)
+			return Remote.invoke(item, method, args);
+		CallKey key = new CallKey(method, args);
+		long generation;
+		synchronized (entries) {
+			Entry entry = (Entry) entries.get(key);
+			if (entry != null)
+				if (entry.ttl == 0 || System.nanoTime() - entry.fetched < entry.ttl) {
+					hits.incrementAndGet();
+					return entry.result;
+				} else
+					entries.remove(key);
+			generation = this.generation;
+		}
+		misses.incrementAndGet();
+		long fetched = System.nanoTime();
+		Object result = Remote.invoke(item, method, args);
+		synchronized (entries) {
+			if (generation == this.generation) // else it may be stale already
+				entries.put(key, new Entry(result, fetched, ttl.longValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * This method discards all of the cached results of a method.
+	 *
+	 * @param method
+	 *            The name of the method
+	 */
+	public void invalidate(String method) {
+		synchronized (entries) {
+			generation++;
+			for (Iterator i = entries.keySet().iterator(); i.hasNext();)
+				if (((CallKey) i.next()).method.equals(method))
+					i.remove();
+		}
+	}
+
+	/**
+	 * This method discards the cached result of a method, for one set of
+	 * arguments.
+	 *
+	 * @param method
+	 *            The name of the method
+	 * @param args
+	 *            Its arguments, as they would be passed to
+	 *            {@link #invoke invoke}
+	 */
+	public void invalidate(String method, Object args) {
+		synchronized (entries) {
+			generation++;
+			entries.remove(new CallKey(method, args));
+		}
+	}
+
+	/**
+	 * This method discards all of the cached results.
+	 */
+	public void invalidate() {
+		synchronized (entries) {
+			generation++;
+			entries.clear();
+		}
+	}
+
+	/**
+	 * This method reports how many invocations were answered from the cache,
+	 * each one a round trip to the item saved.
+	 *
+	 * @return The number of cache hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * This method reports how many invocations of the selected methods had to
+	 * be passed on to the item, as their results were not cached, or had
+	 * expired. The hit rate is the number of hits, divided by the sum of hits
+	 * and misses.
+	 *
+	 * @return The number of cache misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * This method reports how many results have been discarded, to keep the
+	 * cache within its size.
+	 *
+	 * @return The number of results evicted
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+}
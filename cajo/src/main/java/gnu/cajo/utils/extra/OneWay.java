@@ -0,0 +1,134 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Invoke;
+import gnu.cajo.invoke.Remote;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/*
+ * One-Way Invocation Wrapper
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file OneWay.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class makes the invocations of selected methods of an item one way:
+ * they are {@link Remote#post posted}, and return null at once, rather than
+ * wait for the item to be invoked. It wraps the item reference, and is used
+ * in its place, typically under a {@link TransparentItemProxy
+ * TransparentItemProxy}:<blockquote><tt><pre>
+ * OneWay oneWay = new OneWay(reference).post("report").post("setStatus");
+ * Monitor monitor = (Monitor)cajo.proxy(oneWay, Monitor.class);
+ * </pre></tt></blockquote>
+ * Only methods declared void, or returning an object which is not needed,
+ * should be selected; the invocations of all others are simply passed on to
+ * the item. As the caller has returned by then, the failure of a posted
+ * invocation is counted, and passed to the
+ * {@link TransparentItemProxy#handler handler} of the proxies, if one is
+ * assigned.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class OneWay implements Invoke {
+	private final ConcurrentHashMap methods = new ConcurrentHashMap(); // selected
+	private final AtomicLong posted = new AtomicLong(), failures = new AtomicLong();
+
+	/**
+	 * This is the item whose invocations are posted. It is declared public to
+	 * allow it to be invoked directly, waiting for the outcome.
+	 */
+	public final Object item;
+
+	/**
+	 * The constructor wraps the item; none of its methods are posted, until
+	 * selected via {@link #post post}.
+	 *
+	 * @param item
+	 *            The item whose invocations are to be posted, normally a
+	 *            remote reference
+	 */
+	public OneWay(Object item) {
+		this.item = item;
+	}
+
+	/**
+	 * This method selects a method whose invocations are to be posted.
+	 *
+	 * @param method
+	 *            The name of the method, all its overloads are posted alike
+	 * @return This object, so that several methods may be selected in a single
+	 *         statement
+	 */
+	public OneWay post(String method) {
+		methods.put(method, method);
+		return this;
+	}
+
+	/**
+	 * This method posts the invocation of a selected method, and returns at
+	 * once, otherwise it invokes the method on the item.
+	 *
+	 * @param method
+	 *            The method to be invoked
+	 * @param args
+	 *            The arguments to provide to the method
+	 * @return The result of the invocation, or null, if it was posted
+	 * @throws Exception
+	 *             If the item rejected an invocation not posted
+	 */
+	public Object invoke(final String method, final Object args) throws Exception {
+		if (method == null || !methods.containsKey(method))
+			return Remote.invoke(item, method, args);
+		posted.incrementAndGet();
+		Remote.post(item, method, args).whenComplete(new BiConsumer() {
+			public void accept(Object result, Object t) {
+				if (t == null)
+					return;
+				failures.incrementAndGet();
+				Object handler = TransparentItemProxy.handler;
+				if (handler != null)
+					try {
+						Remote.invoke(handler, "handle", new Object[] { item, method, args, t });
+					} catch (Exception x) {
+						/* there is no one left to report it to */ }
+			}
+		});
+		return null;
+	}
+
+	/**
+	 * This method reports how many invocations have been posted.
+	 *
+	 * @return The number of invocations posted
+	 */
+	public long getPosted() {
+		return posted.get();
+	}
+
+	/**
+	 * This method reports how many posted invocations have failed, or could
+	 * not be sent.
+	 *
+	 * @return The number of posted invocations which failed
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+}
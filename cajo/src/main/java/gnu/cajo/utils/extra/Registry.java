@@ -63,7 +63,7 @@ public final class Registry {
 	 *            The remote reference to the object to be registered
 	 */
 	public void post(RemoteInvoke ref) throws ServerNotActiveException {
-		entries.put(java.rmi.server.RemoteServer.getClientHost(), ref);
+		entries.put(Remote.getClientHost(), ref);
 	} // technically it couldn't ever throw this exception at a remote client
 
 	/**
@@ -0,0 +1,383 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Remote;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/*
+ * Static Stub and Skeleton Source Generator
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file StubGenerator.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This class writes Java source for a typed client stub, and a server
+ * skeleton, for a service interface. It is intended to be run as part of a
+ * build, after the interface has been compiled, and before the code using the
+ * stubs is; e.g. via the exec-maven-plugin in the generate-sources phase.
+ * <p>
+ * The generated <tt>&lt;Interface&gt;Stub</tt> class implements the interface
+ * directly, and forwards each call to its item via
+ * {@link gnu.cajo.invoke.Remote#invoke Remote.invoke}. It is a drop-in
+ * replacement for a {@link TransparentItemProxy TransparentItemProxy}, without
+ * the dynamic proxy class generation and reflective method lookup at the
+ * client. Its methods are always invoked synchronously, and checked exceptions
+ * not declared by the interface are rethrown wrapped in a
+ * java.lang.reflect.UndeclaredThrowableException, as a dynamic proxy would.
+ * Its equals, hashCode, and toString methods are its own, based on the item,
+ * even where the interface redeclares them, as e.g. java.util.Comparator does.
+ * <p>
+ * The generated <tt>&lt;Interface&gt;Skeleton</tt> class implements
+ * {@link gnu.cajo.invoke.Invoke Invoke}, and wraps a server object implementing
+ * the interface. It is remoted in place of the server object. Incoming calls
+ * are mapped to a method id, by a switch on the method name's hash, and then
+ * dispatched by a switch on the id, calling the interface method directly.
+ * Overloads are tried narrowest first, subtypes before their supertypes, and
+ * primitives before their wrappers, so a more specific overload is never
+ * shadowed by a more general one; for arguments of exactly the declared
+ * types, this is the overload {@link gnu.cajo.invoke.Remote#findBestMethod
+ * findBestMethod} selects. Calls it does not recognise, e.g. with unexpected argument types, or to methods outside
+ * the interface, are passed to the server object via reflection, as before.
+ * The stubs and skeletons work with each other, and interchangeably with
+ * dynamic proxies and plain remoted objects.
+ * <p>
+ * The generated source uses no language features beyond those of Java 1.3,
+ * generic types are emitted as their erasures.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public final class StubGenerator {
+	private static final Comparator ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			int order = ((Method) o1).getName().compareTo(((Method) o2).getName());
+			return order != 0 ? order : signature((Method) o1).compareTo(signature((Method) o2));
+		}
+	};
+
+	private StubGenerator() {
+	}
+
+	private static String signature(Method m) {
+		StringBuffer sb = new StringBuffer();
+		Class types[] = m.getParameterTypes();
+		for (int i = 0; i < types.length; i++)
+			sb.append(name(types[i])).append(',');
+		return sb.toString();
+	}
+
+	private static String name(Class type) {
+		return type.isArray() ? name(type.getComponentType()) + "[]" : type.getName().replace('$', '.');
+	}
+
+	private static String simpleName(Class type) {
+		String name = type.getName();
+		return name.substring(name.lastIndexOf('.') + 1).replace('$', '_');
+	}
+
+	private static Method[] methods(Class type) {
+		if (!type.isInterface())
+			throw new IllegalArgumentException(type.getName() + " is not an interface");
+		Method all[] = type.getMethods();
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < all.length; i++)
+			if (!Modifier.isStatic(all[i].getModifiers()))
+				list.add(all[i]);
+		Method methods[] = (Method[]) list.toArray(new Method[list.size()]);
+		Arrays.sort(methods, ORDER);
+		return methods;
+	}
+
+	private static boolean inherited(Method m) { // i.e. redeclared from Object
+		try {
+			Object.class.getMethod(m.getName(), m.getParameterTypes());
+			return true;
+		} catch (NoSuchMethodException x) {
+			return false;
+		}
+	}
+
+	private static String[] names(Method methods[]) { // the method ids
+		ArrayList names = new ArrayList();
+		for (int i = 0; i < methods.length; i++)
+			if (!names.contains(methods[i].getName()))
+				names.add(methods[i].getName());
+		return (String[]) names.toArray(new String[names.size()]);
+	}
+
+	private static boolean precedes(Method m1, Method m2) { // m1 narrower
+		Class t1[] = m1.getParameterTypes(), t2[] = m2.getParameterTypes();
+		if (m1 == m2 || t1.length != t2.length)
+			return false;
+		boolean narrower = false;
+		for (int i = 0; i < t1.length; i++) {
+			Class c1 = Remote.autobox(t1[i]), c2 = Remote.autobox(t2[i]);
+			if (!c2.isAssignableFrom(c1))
+				return false;
+			if (c1 != c2 || t1[i].isPrimitive() && !t2[i].isPrimitive())
+				narrower = true;
+		}
+		return narrower;
+	}
+
+	private static Method[] overloads(Method methods[], String name) {
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < methods.length; i++)
+			if (methods[i].getName().equals(name))
+				list.add(methods[i]);
+		Method overloads[] = new Method[list.size()];
+		for (int i = 0; i < overloads.length; i++) { // narrowest first
+			int next = 0; // if none is, e.g. f(int, Integer) and f(Integer, int)
+			scan: for (int j = 0; j < list.size(); j++) {
+				for (int k = 0; k < list.size(); k++)
+					if (precedes((Method) list.get(k), (Method) list.get(j)))
+						continue scan;
+				next = j;
+				break;
+			}
+			overloads[i] = (Method) list.remove(next);
+		}
+		return overloads;
+	}
+
+	private static String box(Class type, String value) {
+		if (!type.isPrimitive())
+			return value;
+		if (type == boolean.class)
+			return '(' + value + " ? Boolean.TRUE : Boolean.FALSE)";
+		return "new " + Remote.autobox(type).getName() + '(' + value + ')';
+	}
+
+	private static String unbox(Class type, String value) {
+		if (type == Object.class)
+			return value;
+		if (!type.isPrimitive())
+			return "((" + name(type) + ") " + value + ')';
+		return "((" + Remote.autobox(type).getName() + ") " + value + ")." + type.getName() + "Value()";
+	}
+
+	private static String[] header(Class type, String kind) {
+		Package pkg = type.getPackage();
+		return new String[] { pkg != null ? "package " + pkg.getName() + ";\n\n" : "",
+				"// " + kind + " for " + name(type) + ", generated by " + StubGenerator.class.getName()
+						+ ", do not edit.\n" };
+	}
+
+	/**
+	 * This method generates the source of a client stub for the interface
+	 * provided. The stub class is named after the interface, suffixed with
+	 * <tt>Stub</tt>, and placed in the same package.
+	 *
+	 * @param type
+	 *            The service interface to be implemented by the stub
+	 * @return The Java source of the stub class
+	 * @throws IllegalArgumentException
+	 *             If the class provided is not an interface
+	 */
+	public static String stub(Class type) {
+		Method methods[] = methods(type);
+		String stub = simpleName(type) + "Stub";
+		String header[] = header(type, "Client stub");
+		StringBuffer sb = new StringBuffer(header[0]).append(header[1]);
+		sb.append("public final class ").append(stub).append(" implements ").append(name(type));
+		sb.append(", java.io.Serializable {\n");
+		sb.append("\tprivate static final long serialVersionUID = 1L;\n\n");
+		sb.append("\t/**\n\t * The local or remote object on which the methods are invoked.\n\t */\n");
+		sb.append("\tpublic final Object item;\n\n");
+		sb.append("\tpublic ").append(stub).append("(Object item) {\n\t\tthis.item = item;\n\t}\n");
+		for (int i = 0; i < methods.length; i++) {
+			Method m = methods[i];
+			if (inherited(m))
+				continue; // the stub's own are generated below
+			Class types[] = m.getParameterTypes(), result = m.getReturnType();
+			sb.append("\n\tpublic ").append(name(result)).append(' ').append(m.getName()).append('(');
+			for (int j = 0; j < types.length; j++)
+				sb.append(j > 0 ? ", " : "").append(name(types[j])).append(" a").append(j);
+			sb.append(')');
+			Class thrown[] = m.getExceptionTypes();
+			boolean checked = false; // whether any checked exception is passed as is
+			ArrayList rethrown = new ArrayList();
+			scan: for (int j = 0; j < thrown.length; j++) {
+				if (RuntimeException.class.isAssignableFrom(thrown[j]) || Error.class.isAssignableFrom(thrown[j]))
+					continue;
+				for (int k = 0; k < thrown.length; k++)
+					if (k != j && thrown[k] != thrown[j] && thrown[k].isAssignableFrom(thrown[j]))
+						continue scan; // covered by its superclass
+				if (thrown[j].isAssignableFrom(Exception.class))
+					checked = true;
+				else if (!rethrown.contains(thrown[j]))
+					rethrown.add(thrown[j]);
+			}
+			if (thrown.length > 0) {
+				sb.append(" throws ");
+				for (int j = 0; j < thrown.length; j++)
+					sb.append(j > 0 ? ", " : "").append(name(thrown[j]));
+			}
+			sb.append(" {\n");
+			String indent = checked ? "\t\t" : "\t\t\t";
+			if (!checked)
+				sb.append("\t\ttry {\n");
+			StringBuffer call = new StringBuffer("gnu.cajo.invoke.Remote.invoke(item, \"");
+			call.append(m.getName()).append("\", ");
+			if (types.length == 0)
+				call.append("null)");
+			else {
+				call.append("new Object[] { ");
+				for (int j = 0; j < types.length; j++)
+					call.append(j > 0 ? ", " : "").append(box(types[j], "a" + j));
+				call.append(" })");
+			}
+			if (result == void.class)
+				sb.append(indent).append(call).append(";\n");
+			else
+				sb.append(indent).append("return ").append(unbox(result, call.toString())).append(";\n");
+			if (!checked) {
+				sb.append("\t\t} catch (RuntimeException x) {\n\t\t\tthrow x;\n");
+				for (int j = 0; j < rethrown.size(); j++)
+					sb.append("\t\t} catch (").append(name((Class) rethrown.get(j))).append(" x) {\n\t\t\tthrow x;\n");
+				sb.append("\t\t} catch (Exception x) {\n");
+				sb.append("\t\t\tthrow new java.lang.reflect.UndeclaredThrowableException(x);\n\t\t}\n");
+			}
+			sb.append("\t}\n");
+		}
+		sb.append("\n\tpublic boolean equals(Object o) {\n");
+		sb.append("\t\treturn o instanceof ").append(stub).append(" && item.equals(((").append(stub);
+		sb.append(") o).item);\n\t}\n");
+		sb.append("\n\tpublic int hashCode() {\n\t\treturn item.hashCode();\n\t}\n");
+		sb.append("\n\tpublic String toString() {\n\t\treturn \"").append(stub).append("->\" + item;\n\t}\n");
+		return sb.append("}\n").toString();
+	}
+
+	/**
+	 * This method generates the source of a server skeleton for the interface
+	 * provided. The skeleton class is named after the interface, suffixed with
+	 * <tt>Skeleton</tt>, and placed in the same package.
+	 *
+	 * @param type
+	 *            The service interface implemented by the server object
+	 * @return The Java source of the skeleton class
+	 * @throws IllegalArgumentException
+	 *             If the class provided is not an interface
+	 */
+	public static String skeleton(Class type) {
+		Method methods[] = methods(type);
+		String names[] = names(methods);
+		String skeleton = simpleName(type) + "Skeleton";
+		String header[] = header(type, "Server skeleton");
+		StringBuffer sb = new StringBuffer(header[0]).append(header[1]);
+		sb.append("public final class ").append(skeleton).append(" implements gnu.cajo.invoke.Invoke {\n");
+		sb.append("\tprivate static final long serialVersionUID = 1L;\n");
+		sb.append("\tprivate static final Object NOARGS[] = {};\n\n");
+		sb.append("\t/**\n\t * The server object on which the methods are invoked.\n\t */\n");
+		sb.append("\tpublic final ").append(name(type)).append(" item;\n\n");
+		sb.append("\tpublic ").append(skeleton).append('(').append(name(type)).append(" item) {\n");
+		sb.append("\t\tthis.item = item;\n\t}\n\n");
+		sb.append("\tprivate static int id(String method) {\n\t\tif (method != null)\n");
+		sb.append("\t\t\tswitch (method.hashCode()) {\n");
+		int hashes[] = new int[names.length];
+		for (int i = 0; i < names.length; i++)
+			hashes[i] = names[i].hashCode();
+		boolean done[] = new boolean[names.length];
+		for (int i = 0; i < names.length; i++) {
+			if (done[i])
+				continue;
+			sb.append("\t\t\tcase ").append(hashes[i]).append(":\n");
+			for (int j = i; j < names.length; j++)
+				if (hashes[j] == hashes[i]) { // colliding names share a case
+					done[j] = true;
+					sb.append("\t\t\t\tif (\"").append(names[j]).append("\".equals(method))\n");
+					sb.append("\t\t\t\t\treturn ").append(j).append(";\n");
+				}
+			sb.append("\t\t\t\tbreak;\n");
+		}
+		sb.append("\t\t\t}\n\t\treturn -1;\n\t}\n\n");
+		sb.append("\tpublic Object invoke(String method, Object args) throws Exception {\n");
+		sb.append("\t\tObject a[] = args instanceof Object[] ? (Object[]) args : args != null ? new Object[] { args }");
+		sb.append(" : NOARGS;\n");
+		sb.append("\t\tswitch (id(method)) {\n");
+		for (int i = 0; i < names.length; i++) {
+			sb.append("\t\tcase ").append(i).append(": // ").append(names[i]).append('\n');
+			Method overloads[] = overloads(methods, names[i]);
+			for (int j = 0; j < overloads.length; j++) {
+				Method m = overloads[j];
+				Class types[] = m.getParameterTypes();
+				sb.append("\t\t\tif (a.length == ").append(types.length);
+				for (int k = 0; k < types.length; k++)
+					if (types[k].isPrimitive())
+						sb.append(" && a[").append(k).append("] instanceof ")
+								.append(Remote.autobox(types[k]).getName());
+					else if (types[k] != Object.class)
+						sb.append(" && (a[").append(k).append("] == null || a[").append(k).append("] instanceof ")
+								.append(name(types[k])).append(')');
+				sb.append(")");
+				StringBuffer call = new StringBuffer("item.").append(m.getName()).append('(');
+				for (int k = 0; k < types.length; k++)
+					call.append(k > 0 ? ", " : "").append(unbox(types[k], "a[" + k + ']'));
+				call.append(')');
+				if (m.getReturnType() == void.class)
+					sb.append(" {\n\t\t\t\t").append(call).append(";\n\t\t\t\treturn null;\n\t\t\t}\n");
+				else
+					sb.append("\n\t\t\t\treturn ").append(box(m.getReturnType(), call.toString())).append(";\n");
+			}
+			sb.append("\t\t\tbreak;\n");
+		}
+		sb.append("\t\t}\n\t\treturn gnu.cajo.invoke.Remote.invoke(item, method, args);\n\t}\n");
+		return sb.append("}\n").toString();
+	}
+
+	private static void write(File dir, Class type, String suffix, String source) throws IOException {
+		Package pkg = type.getPackage();
+		if (pkg != null)
+			dir = new File(dir, pkg.getName().replace('.', File.separatorChar));
+		dir.mkdirs();
+		FileWriter fw = new FileWriter(new File(dir, simpleName(type) + suffix + ".java"));
+		try {
+			fw.write(source);
+		} finally {
+			fw.close();
+		}
+	}
+
+	/**
+	 * The application method writes the stub and skeleton sources for each of
+	 * the interfaces named. The interfaces must be on the classpath.
+	 * <ul>
+	 * <li>args[0] The directory under which to write the sources, in their
+	 * package directories.
+	 * <li>args[1...] The fully qualified names of the service interfaces.
+	 * </ul>
+	 */
+	public static void main(String args[]) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: StubGenerator <output directory> <interface> [interface...]");
+			System.exit(1);
+		}
+		File dir = new File(args[0]);
+		for (int i = 1; i < args.length; i++) {
+			Class type = Class.forName(args[i]);
+			write(dir, type, "Stub", stub(type));
+			write(dir, type, "Skeleton", skeleton(type));
+		}
+	}
+}
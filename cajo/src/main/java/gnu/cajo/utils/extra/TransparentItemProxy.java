@@ -1,19 +1,24 @@
 package gnu.cajo.utils.extra;
 
+import gnu.cajo.invoke.Batch;
+import gnu.cajo.invoke.MarshalOutputStream;
 import gnu.cajo.invoke.Remote;
+import gnu.cajo.invoke.RemoteInvoke;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /*
  * Item Transparent Dynamic Proxy (requires JRE 1.5+)
@@ -79,6 +84,18 @@ import java.util.concurrent.TimeoutException;
  * will return immediately, and the future will contain the result when the
  * invocation is completed. You can then peridocally check to see if it is done,
  * and extract the result.
+ * <p>
+ * If the method is instead declared to return a
+ * java.util.concurrent.CompletionStage, or CompletableFuture, further
+ * processing of the result can be chained onto the stage. Either way, the
+ * invocation is made via {@link Remote#invokeAsync(Object, String, Object)
+ * Remote.invokeAsync}, so no thread is dedicated to waiting for it; it is
+ * sent at once to an item using the multiplexed transport, otherwise made
+ * on the shared pool, which is sized via
+ * {@link Remote#asyncExecutor(int, int) Remote.asyncExecutor}.
+ * <p>
+ * Several calls on a proxy can be sent to the item in a single request,
+ * within a {@link #batch batch} scope.
  *
  * @author John Catherino
  */
@@ -86,83 +103,78 @@ public final class TransparentItemProxy implements InvocationHandler, Serializab
 	private static final long serialVersionUID = 5L;
 	private static final Object NULL[] = {};
 	private static final Class CLASS[] = {};
+	private static final String NONE[] = {};
 
-	private static final class ProxyFuture implements Future { // async helper
-		private Thread thread;
-		private boolean cancelled;
-		private volatile boolean done;
-		private volatile Object result;
-		private volatile Exception exception;
-
-		private ProxyFuture setThread(Thread thread) {
-			this.thread = thread;
-			thread.start();
-			return this;
+	private static final ThreadLocal recording = new ThreadLocal();
+	private static final ClassValue allInterfaces = new ClassValue() { // of a class, for proxy
+		protected Object computeValue(Class type) {
+			java.util.LinkedHashSet set = new java.util.LinkedHashSet();
+			for (Class c = type; c != null; c = c.getSuperclass())
+				set.addAll(java.util.Arrays.asList(c.getInterfaces()));
+			return set.toArray(CLASS);
 		}
-
-		public boolean isDone() {
-			return done;
-		}
-
-		public boolean isCancelled() {
-			return cancelled;
-		}
-
-		public boolean cancel(boolean interrupt) {
-			if (cancelled || done)
-				return false;
-			try {
-				return cancelled = true;
-			} finally {
-				if (interrupt)
-					thread.interrupt();
-			}
+	};
+	private static final ClassValue constructors = new ClassValue() { // by first interface, thus loader
+		protected Object computeValue(Class type) {
+			return new ConcurrentHashMap(); // interfaces -> proxy class constructor
 		}
+	};
+	private static final java.util.HashMap ZEROS = new java.util.HashMap();
+	static {
+		ZEROS.put(boolean.class, Boolean.FALSE);
+		ZEROS.put(char.class, new Character('\0'));
+		ZEROS.put(byte.class, new Byte((byte) 0));
+		ZEROS.put(short.class, new Short((short) 0));
+		ZEROS.put(int.class, new Integer(0));
+		ZEROS.put(long.class, new Long(0));
+		ZEROS.put(float.class, new Float(0));
+		ZEROS.put(double.class, new Double(0));
+	}
 
-		public Object get() throws InterruptedException, ExecutionException {
-			if (!done && !cancelled)
-				thread.join();
-			if (exception != null)
-				throw new ExecutionException(exception);
-			return result;
-		}
+	private static final class Recording { // the calls of a batching scope
+		private final TransparentItemProxy proxy;
+		private final java.util.ArrayList methods = new java.util.ArrayList();
+		private final java.util.ArrayList args = new java.util.ArrayList();
 
-		public Object get(long timeout, TimeUnit unit)
-				throws InterruptedException, ExecutionException, TimeoutException {
-			if (!done && !cancelled) {
-				if (unit == TimeUnit.NANOSECONDS)
-					thread.join(0L, (int) timeout);
-				else if (unit == TimeUnit.MICROSECONDS)
-					thread.join(0L, (int) (timeout * 1000));
-				else
-					thread.join(unit.toMillis(timeout));
-			}
-			if (!done)
-				throw new TimeoutException();
-			if (exception != null)
-				throw new ExecutionException(exception);
-			return result;
+		private Recording(TransparentItemProxy proxy) {
+			this.proxy = proxy;
 		}
 	}
 
 	private transient Object item;
+	private transient volatile String[] methods; // the item's method ids
 	private String toString;
 
 	private void writeObject(java.io.ObjectOutputStream out) throws IOException {
 		out.defaultWriteObject();
-		out.writeObject(
-				new java.rmi.MarshalledObject(item instanceof Serializable ? item : new Remote(item).clientScope()));
+		Object ref = item instanceof Serializable ? item : new Remote(item).clientScope();
+		// earlier releases expect a MarshalledObject, e.g. over RMI, or in a gzip zedmob
+		out.writeObject(out instanceof MarshalOutputStream && !(ref instanceof java.rmi.MarshalledObject) ? ref
+				: new java.rmi.MarshalledObject(ref));
 	}
 
 	private void readObject(java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
 		in.defaultReadObject();
-		item = ((java.rmi.MarshalledObject) in.readObject()).get();
+		item = in.readObject();
+		if (item instanceof java.rmi.MarshalledObject)
+			item = ((java.rmi.MarshalledObject) item).get();
 	}
 
 	private TransparentItemProxy(Object item) {
 		this.item = item;
 	}
 
+	private Object invoke(String name, Object args[]) throws Exception {
+		String methods[] = this.methods;
+		if (methods == null && item instanceof RemoteInvoke)
+			try { // fetch the remote method table once
+				methods = Remote.methods(item);
+				this.methods = methods = methods != null ? methods : NONE;
+			} catch (RemoteException x) {
+				/* invoke by name, and try again on the next call */ }
+		return Remote.invoke(item, methods, name, args);
+	}
+
 	/**
 	 * An optional centralised invocation error handler. If an invocation on a
 	 * remote object results in a checked or unchecked exception being thrown; this
@@ -238,30 +250,40 @@ public final class TransparentItemProxy implements InvocationHandler, Serializab
 			if (args.length < 1 || args[0] instanceof Long && (args.length < 2 ? true : args[1] instanceof Long)
 					&& (args.length < 3 ? true : args[2] instanceof Integer))
 				throw new IllegalMonitorStateException("Cannot wait on transparent proxy object");
-		if (Future.class.isAssignableFrom(method.getReturnType())) {
-			final ProxyFuture future = new ProxyFuture();
-			return future.setThread(new Thread() {
-				public void run() {
-					try {
-						future.result = Remote.invoke(item, name, args);
-					} catch (Throwable t) {
-						if (handler != null)
-							try {
-								future.result = Remote.invoke(handler, "handle", new Object[] { item, name, args, t });
-							} catch (Exception x) {
-								future.exception = x;
-							}
-						else
-							future.exception = t instanceof Exception ? (Exception) t
-									: new Exception(t.getMessage(), t.getCause());
-					} finally {
-						future.done = true;
-					}
+		Class returns = method.getReturnType();
+		Recording recording = (Recording) TransparentItemProxy.recording.get();
+		if (recording != null && recording.proxy == this) { // defer it
+			recording.methods.add(name);
+			recording.args.add(args);
+			return returns.isPrimitive() ? ZEROS.get(returns) : null;
+		} else if ((CompletionStage.class.isAssignableFrom(returns) || Future.class.isAssignableFrom(returns))
+				&& returns.isAssignableFrom(CompletableFuture.class)) {
+			final CompletableFuture future = Remote.invokeAsync(item, name, args);
+			if (handler == null)
+				return future;
+			final CompletableFuture handled = new CompletableFuture();
+			future.whenComplete(new BiConsumer() {
+				public void accept(Object result, Object t) {
+					if (t == null)
+						handled.complete(result);
+					else
+						try {
+							handled.complete(Remote.invoke(handler, "handle", new Object[] { item, name, args, t }));
+						} catch (Exception x) {
+							handled.completeExceptionally(x);
+						}
 				}
 			});
+			handled.whenComplete(new BiConsumer() {
+				public void accept(Object result, Object t) {
+					if (handled.isCancelled()) // before it is made, if queued
+						future.cancel(false);
+				}
+			});
+			return handled;
 		} else
 			try {
-				return Remote.invoke(item, name, args);
+				return invoke(name, args);
 			} catch (Throwable t) {
 				if (handler != null)
 					return Remote.invoke(handler, "handle", new Object[] { item, name, args, t });
@@ -270,27 +292,98 @@ public final class TransparentItemProxy implements InvocationHandler, Serializab
 			}
 	}
 
+	/**
+	 * This method provides a batching scope for the methods of a proxy. The
+	 * methods called on the proxy by the calls object, on the thread calling
+	 * this method, are not invoked straight away; instead they return null, or
+	 * zero, or false, and once the calls object returns, are invoked together
+	 * in a single request, via
+	 * {@link Remote#invokeBatch(Object, String[], Object[], boolean)
+	 * Remote.invokeBatch}. For example:<blockquote><tt><pre>
+	 * Batch b = TransparentItemProxy.batch(service, new Runnable() {
+	 *    public void run() {
+	 *       service.getLoad();
+	 *       service.getUsers();
+	 *    }
+	 * }, false);
+	 * Integer load = (Integer)b.get(0);</pre></tt></blockquote>
+	 * The {@link #handler handler} is not consulted for failures, the outcome
+	 * of each call is obtained from the batch returned.
+	 *
+	 * @param proxy
+	 *            A proxy created by this class
+	 * @param calls
+	 *            The object making the calls to batch
+	 * @param parallel
+	 *            If true, the methods are invoked concurrently, otherwise in
+	 *            the order in which they were called
+	 * @return The outcome of each call, in the order in which they were made
+	 * @throws IllegalArgumentException
+	 *             If the object is not a proxy created by this class
+	 * @throws java.rmi.RemoteException
+	 *             For network communication related reasons
+	 * @throws Exception
+	 *             If the batch as a whole was rejected by the item
+	 */
+	public static Batch batch(Object proxy, Runnable calls, boolean parallel) throws Exception {
+		if (proxy == null || !Proxy.isProxyClass(proxy.getClass())
+				|| !(Proxy.getInvocationHandler(proxy) instanceof TransparentItemProxy))
+			throw new IllegalArgumentException("not a transparent item proxy");
+		Recording scope = new Recording((TransparentItemProxy) Proxy.getInvocationHandler(proxy));
+		Object outer = recording.get();
+		recording.set(scope);
+		try {
+			calls.run();
+		} finally {
+			recording.set(outer);
+		}
+		return Remote.invokeBatch(scope.proxy.item, (String[]) scope.methods.toArray(NONE),
+				scope.args.toArray(), parallel);
+	}
+
 	/**
 	 * This method creates a dynamic proxy reference object for the argument
 	 * supplied, implementing <i>all</i> of its interfaces. This method is typically
 	 * used by a <i>sender</i> of remote references, whereas the getItem methods are
-	 * generally used by <i>receivers.</i>
+	 * generally used by <i>receivers.</i> The interfaces of each class are
+	 * collected only once.
 	 *
 	 * @param object
 	 *            The object to be proxied
 	 * @return A proxy reference implementing the supplied object's interfaces
 	 */
 	public static Object proxy(Object object) {
-		java.util.HashSet interfaces = new java.util.HashSet();
-		for (Class c = object.getClass(); c != null; c = c.getSuperclass())
-			interfaces.addAll(java.util.Arrays.asList(c.getInterfaces()));
-		return getItem(object, (Class[]) interfaces.toArray(CLASS));
+		return getItem(object, (Class[]) allInterfaces.get(object.getClass()));
+	}
+
+	private static Constructor constructor(Class interfaces[]) {
+		ConcurrentHashMap map = (ConcurrentHashMap) constructors.get(interfaces[0]);
+		Object key = interfaces.length == 1 ? (Object) interfaces[0] : java.util.Arrays.asList(interfaces);
+		Constructor constructor = (Constructor) map.get(key);
+		if (constructor == null) { // generate the class once, validating the interfaces
+			Class type = Proxy.newProxyInstance(interfaces[0].getClassLoader(), interfaces,
+					new TransparentItemProxy(null)).getClass();
+			try {
+				constructor = type.getConstructor(new Class[] { InvocationHandler.class });
+			} catch (NoSuchMethodException x) {
+				throw new InternalError(x.toString());
+			}
+			try { // as for a proxy class of non-public interfaces
+				constructor.setAccessible(true);
+			} catch (RuntimeException x) {
+				/* it is public, or cannot be made accessible */ }
+			map.put(interfaces.length == 1 ? key : java.util.Arrays.asList((Object[]) interfaces.clone()),
+					constructor);
+		}
+		return constructor;
 	}
 
 	/**
 	 * This generates a class definition for a any object reference at runtime, and
 	 * returns a local object instance. The resulting dynamic proxy object will
-	 * implement all the interfaces provided.
+	 * implement all the interfaces provided. The class is generated only once
+	 * for each set of interfaces, in order; its constructor is kept, so later
+	 * proxies cost only its invocation.
 	 *
 	 * @param item
 	 *            A reference to a either a remote object, or a local one<br>
@@ -305,7 +398,15 @@ public final class TransparentItemProxy implements InvocationHandler, Serializab
 	 *         then be typecast into any of the interfaces, as needed by the client.
 	 */
 	public static Object getItem(Object item, Class interfaces[]) {
-		return Proxy.newProxyInstance(interfaces[0].getClassLoader(), interfaces, new TransparentItemProxy(item));
+		try {
+			return constructor(interfaces).newInstance(new Object[] { new TransparentItemProxy(item) });
+		} catch (java.lang.reflect.InvocationTargetException x) {
+			throw new InternalError(x.getCause().toString());
+		} catch (InstantiationException x) {
+			throw new InternalError(x.toString());
+		} catch (IllegalAccessException x) {
+			throw new InternalError(x.toString());
+		}
 	}
 
 	/**
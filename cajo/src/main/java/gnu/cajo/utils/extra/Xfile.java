@@ -182,7 +182,7 @@ public class Xfile {
 	public static synchronized void fetch(Object item, String source, String dest) throws Exception {
 		if (!remoteInvoke)
 			try {
-				java.rmi.server.RemoteServer.getClientHost();
+				Remote.getClientHost();
 				throw new IllegalAccessException("remote fetch disabled");
 			} catch (java.rmi.server.ServerNotActiveException x) {
 			}
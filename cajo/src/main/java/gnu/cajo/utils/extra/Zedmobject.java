@@ -1,10 +1,10 @@
 package gnu.cajo.utils.extra;
 
+import gnu.cajo.invoke.Codec;
 import gnu.cajo.invoke.Invoke;
 import gnu.cajo.invoke.Remote;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -40,26 +40,26 @@ import java.io.ObjectOutputStream;
  * serialisation, and decompress it automatically upon deserialisation. This
  * will incur a small runtime penalty, however, if the object is large and
  * highly compressable, or the data link is slow, or the cost per byte to
- * transmit data is high, this can become highly advantageous.
+ * transmit data is high, this can become highly advantageous. The object is
+ * compressed straight into the stream serialising the zedmobject, and
+ * decompressed straight from it, so its compressed form is never held in
+ * memory whole.
  *
  * @author John Catherino
  * @version 1.0, 16-Mar-05 Initial release
  */
 public final class Zedmobject implements Invoke {
 	private static final long serialVersionUID = 0x369121518L;
-	private byte payload[]; // compressed object transport buffer
+	private byte payload[]; // the compressed object, as sent by earlier releases
 
 	private void writeObject(ObjectOutputStream out) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		Remote.zedmob(baos, object);
-		payload = baos.toByteArray();
 		out.defaultWriteObject();
+		Remote.zedmob(Codec.embed(out), object); // straight into the stream
 	}
 
 	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
 		in.defaultReadObject();
-		ByteArrayInputStream bais = new ByteArrayInputStream(payload);
-		object = Remote.zedmob(bais);
+		object = Remote.zedmob(payload != null ? new ByteArrayInputStream(payload) : Codec.embedded(in));
 		payload = null;
 	}
 
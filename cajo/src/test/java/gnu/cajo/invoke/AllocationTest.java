@@ -0,0 +1,202 @@
+package gnu.cajo.invoke;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.TestCase;
+
+/*
+ * Invocation Allocation Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file AllocationTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that the local invocation fast paths allocate nothing
+ * per call, for object and primitive signatures, once the method has been
+ * compiled; invoked by reflection, the default, a single argument is wrapped
+ * in an array on every call. It counts the bytes allocated by the calling thread,
+ * as reported by the JVM, so it is skipped on JVMs which do not support that,
+ * or cannot compile invokers.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class AllocationTest extends TestCase {
+	private static final int WARMUP = 20000, CALLS = 100000;
+	private static final Object ARG = "arg", ARGS[] = { "one", "two" }, INT = new Integer(21),
+			PRIMITIVES[] = { new Integer(1), new Long(2) };
+
+	private interface Call {
+		void call() throws Exception;
+	}
+
+	/**
+	 * The item invoked, with a method for each argument shape.
+	 */
+	public static class Item {
+		public Object none() {
+			return ARG;
+		}
+
+		public Object one(Object arg) {
+			return arg;
+		}
+
+		public Object two(Object arg1, Object arg2) {
+			return arg2;
+		}
+
+		public int twice(int i) { // its results are within the Integer cache
+			return 2 * i;
+		}
+
+		public long sum(int i, long l) {
+			return i + l;
+		}
+
+		public boolean odd(int i) {
+			return (i & 1) != 0;
+		}
+
+		public void set(int i) {
+		}
+	}
+
+	private final Item item = new Item();
+
+	protected void setUp() {
+		Remote.compile(true);
+	}
+
+	protected void tearDown() {
+		Remote.compile(false);
+	}
+
+	private static boolean supported() {
+		if (System.getProperty("java.specification.version").startsWith("1."))
+			return false; // invokers are not compiled before JRE 9
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		return bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void assertNoAllocation(String name, Call call) throws Exception {
+		if (!supported())
+			return;
+		for (int i = 0; i < WARMUP; i++)
+			call.call();
+		long bytes = 0;
+		for (int round = 0; round < 3; round++) { // the least, against stray allocation
+			long start = allocated();
+			for (int i = 0; i < CALLS; i++)
+				call.call();
+			long used = allocated() - start;
+			if (round == 0 || used < bytes)
+				bytes = used;
+		}
+		assertTrue(name + " allocated " + bytes + " bytes in " + CALLS + " calls", bytes < CALLS);
+	}
+
+	public void testInvokeNoArgs() throws Exception {
+		assertNoAllocation("invoke(item, name, null)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "none", null);
+			}
+		});
+	}
+
+	public void testInvokeOneArg() throws Exception {
+		assertNoAllocation("invoke(item, name, arg)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "one", ARG);
+			}
+		});
+	}
+
+	public void testInvokeArgs() throws Exception {
+		assertNoAllocation("invoke(item, name, args)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "two", ARGS);
+			}
+		});
+	}
+
+	public void testInvokePrimitives() throws Exception {
+		assertNoAllocation("invoke(item, name, int)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "twice", INT);
+			}
+		});
+		assertNoAllocation("invoke(item, name, int, long)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "sum", PRIMITIVES);
+			}
+		});
+		assertNoAllocation("invoke(item, name, int) returning boolean", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "odd", INT);
+			}
+		});
+		assertNoAllocation("invoke(item, name, int) returning void", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, "set", INT);
+			}
+		});
+	}
+
+	public void testInvokeById() throws Exception {
+		final int id = java.util.Arrays.binarySearch(Remote.methods(item), "one");
+		assertTrue(id >= 0);
+		assertNoAllocation("invoke(item, id, arg)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, id, ARG);
+			}
+		});
+	}
+
+	public void testInvokeByTable() throws Exception {
+		final String methods[] = Remote.methods(item);
+		assertNoAllocation("invoke(item, methods, name, arg)", new Call() {
+			public void call() throws Exception {
+				Remote.invoke(item, methods, "one", ARG);
+			}
+		});
+	}
+
+	public void testInvoker() throws Exception {
+		final Invoker none = MethodTable.of(Item.class).lookup("none");
+		final Invoker one = MethodTable.of(Item.class).lookup("one", String.class);
+		assertNotNull(none);
+		assertNotNull(one);
+		assertNoAllocation("invoke0", new Call() {
+			public void call() throws Exception {
+				none.invoke0(item);
+			}
+		});
+		assertNoAllocation("invoke1", new Call() {
+			public void call() throws Exception {
+				one.invoke1(item, ARG);
+			}
+		});
+	}
+}
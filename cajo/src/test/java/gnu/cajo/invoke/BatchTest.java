@@ -0,0 +1,147 @@
+package gnu.cajo.invoke;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+
+/*
+ * Batched Invocation Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file BatchTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks the outcomes of batched invocations on a local item, in
+ * order and in parallel, and the limits on a batch.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class BatchTest extends TestCase {
+	/**
+	 * The item invoked, which records how many of its calls overlap.
+	 */
+	public static class Item {
+		private int running, most;
+
+		public String echo(String s) {
+			return s;
+		}
+
+		public void fail(String message) throws IOException {
+			throw new IOException(message);
+		}
+
+		public void error() {
+			throw new StackOverflowError("deep");
+		}
+
+		public CompletableFuture later() {
+			CompletableFuture future = new CompletableFuture();
+			future.completeExceptionally(new AssertionError("late"));
+			return future;
+		}
+
+		public String slow(String s) throws InterruptedException {
+			synchronized (this) {
+				most = Math.max(most, ++running);
+			}
+			Thread.sleep(20);
+			synchronized (this) {
+				running--;
+			}
+			return s;
+		}
+
+		synchronized int most() {
+			return most;
+		}
+	}
+
+	private void checkMixed(boolean parallel) throws Exception {
+		Batch batch = Remote.invokeBatch(new Item(), new String[] { "echo", "fail", "missing", "error", "echo" },
+				new Object[] { "one", "broken", null, null, "two" }, parallel);
+		assertEquals(5, batch.size());
+		assertFalse(batch.failed(0));
+		assertEquals("one", batch.get(0));
+		assertTrue(batch.failed(1));
+		try {
+			batch.get(1);
+			fail("the exception was not rethrown");
+		} catch (IOException x) {
+			assertEquals("broken", x.getMessage());
+		}
+		assertTrue(batch.failed(2));
+		try {
+			batch.get(2);
+			fail("the missing method was found");
+		} catch (NoSuchMethodException x) {
+		}
+		assertTrue(batch.failed(3));
+		try {
+			batch.get(3);
+			fail("the error was not rethrown");
+		} catch (Exception x) { // errors are passed on as exceptions
+			assertEquals("deep", x.getMessage());
+			assertTrue(x.getCause() instanceof StackOverflowError);
+		}
+		assertEquals("two", batch.get(4));
+	}
+
+	public void testMixedInOrder() throws Exception {
+		checkMixed(false);
+	}
+
+	public void testMixedInParallel() throws Exception {
+		checkMixed(true);
+	}
+
+	public void testErrorRethrown() throws Exception {
+		Batch batch = Remote.invokeBatch(new Item(), new String[] { "later" }, new Object[] { null }, false);
+		assertTrue(batch.failed(0));
+		try {
+			batch.get(0);
+			fail("the error was not rethrown");
+		} catch (AssertionError x) {
+			assertEquals("late", x.getMessage());
+		}
+	}
+
+	public void testParallelismBounded() throws Exception {
+		Item item = new Item();
+		String methods[] = new String[64];
+		Object args[] = new Object[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			methods[i] = "slow";
+			args[i] = Integer.toString(i);
+		}
+		Batch batch = Remote.invokeBatch(item, methods, args, true);
+		for (int i = 0; i < methods.length; i++)
+			assertEquals(args[i], batch.get(i));
+		assertTrue(item.most() > 1);
+		assertTrue(item.most() <= Batch.THREADS + 1);
+	}
+
+	public void testOversized() throws Exception {
+		try {
+			Remote.invokeBatch(new Item(), new String[Batch.LIMIT + 1], null, true);
+			fail("the batch was accepted");
+		} catch (IllegalArgumentException x) {
+		}
+	}
+}
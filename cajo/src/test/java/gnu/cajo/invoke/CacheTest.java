@@ -0,0 +1,141 @@
+package gnu.cajo.invoke;
+
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+/*
+ * Cached Result Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file CacheTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that the results of {@link Remote#cache cached} methods
+ * are computed once, served in their encoded form to remote callers, and as
+ * themselves to local ones, and recomputed only once
+ * {@link Remote#invalidate(String) invalidated}.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class CacheTest extends TestCase {
+	/**
+	 * The item invoked, which counts how often each value is computed.
+	 */
+	public static class Item {
+		int values, sizes, version;
+		Remote handle; // if set, invalidated while computing a value
+
+		public HashMap getValue() {
+			values++;
+			if (handle != null)
+				handle.invalidate("getValue");
+			HashMap map = new HashMap();
+			map.put("version", new Integer(version));
+			return map;
+		}
+
+		public Integer getSize() {
+			return new Integer(++sizes);
+		}
+
+		public String echo(String s) {
+			return s;
+		}
+	}
+
+	private Item item;
+	private Remote handle;
+
+	protected void setUp() throws Exception {
+		item = new Item();
+		handle = new Remote(item).cache("getValue");
+	}
+
+	protected void tearDown() throws Exception {
+		handle.unexport(true);
+	}
+
+	private static Object version(Object result) {
+		assertTrue(result instanceof Serialized); // as a remote caller receives it
+		return ((HashMap) ((Serialized) result).get()).get("version");
+	}
+
+	public void testComputedOnce() throws Exception {
+		for (int i = 0; i < 10; i++)
+			assertEquals(new Integer(0), version(handle.dispatch("getValue", null)));
+		assertEquals(1, item.values);
+		assertSame(handle.dispatch("getValue", null), handle.dispatch("getValue", null));
+	}
+
+	public void testLocalCallers() throws Exception {
+		handle.dispatch("getValue", null);
+		Object result = handle.invoke("getValue", null);
+		assertTrue(result instanceof HashMap);
+		assertEquals(new Integer(0), ((HashMap) result).get("version"));
+		assertEquals(1, item.values);
+	}
+
+	public void testUncached() throws Exception {
+		assertEquals(new Integer(1), handle.dispatch("getSize", null));
+		assertEquals(new Integer(2), handle.dispatch("getSize", null));
+		assertEquals("x", handle.dispatch("echo", "x")); // with arguments
+		try {
+			handle.cache(null);
+			fail("cached a null method");
+		} catch (IllegalArgumentException x) {
+		}
+	}
+
+	public void testInvalidate() throws Exception {
+		version(handle.dispatch("getValue", null));
+		item.version = 1;
+		assertEquals(new Integer(0), version(handle.dispatch("getValue", null)));
+		handle.invalidate("getValue");
+		assertEquals(new Integer(1), version(handle.dispatch("getValue", null)));
+		assertEquals(new Integer(1), version(handle.dispatch("getValue", null)));
+		assertEquals(2, item.values);
+		handle.invalidate("getSize"); // not cached, so ignored
+		assertEquals(new Integer(1), handle.dispatch("getSize", null));
+		item.version = 2;
+		handle.invalidate(null);
+		assertEquals(new Integer(2), version(handle.dispatch("getValue", null)));
+		assertEquals(3, item.values);
+	}
+
+	public void testInvalidateByItem() throws Exception {
+		handle.dispatch("getValue", null);
+		item.version = 1;
+		Remote.invalidate(item, "getValue"); // finds its wrapper
+		assertEquals(new Integer(1), version(handle.dispatch("getValue", null)));
+		item.version = 2;
+		Remote.invalidate(handle, null);
+		assertEquals(new Integer(2), version(handle.dispatch("getValue", null)));
+		assertEquals(3, item.values);
+	}
+
+	public void testInvalidatedWhileComputing() throws Exception {
+		item.handle = handle;
+		handle.dispatch("getValue", null);
+		handle.dispatch("getValue", null); // not kept, as invalidated meanwhile
+		item.handle = null;
+		handle.dispatch("getValue", null);
+		handle.dispatch("getValue", null);
+		assertEquals(3, item.values);
+	}
+}
@@ -0,0 +1,193 @@
+package gnu.cajo.invoke;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.rmi.MarshalledObject;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+/*
+ * Zedmob Codec Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file CodecTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that zedmobs written by each built in codec are read
+ * back intact, that by default they are written in the original format, and
+ * that truncated LZ blocks are rejected.
+ * It also uses the pooled compression contexts from several threads at once,
+ * for many streams and blocks, some failing or abandoned, and checks that the
+ * pools, and the memory of the process, stay within bounds.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class CodecTest extends TestCase {
+	private static HashMap sample() {
+		HashMap map = new HashMap();
+		for (int i = 0; i < 1000; i++)
+			map.put("key " + i, "value " + i % 10);
+		return map;
+	}
+
+	private static byte[] zedmob(Object ref, Codec codec) throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		if (codec != null)
+			Remote.zedmob(os, ref, codec);
+		else
+			Remote.zedmob(os, ref);
+		return os.toByteArray();
+	}
+
+	public void testDefaultIsOriginalFormat() throws Exception {
+		assertSame(Codec.GZIP, Remote.codec);
+		HashMap map = sample();
+		byte z[] = zedmob(map, null);
+		assertEquals((byte) 0x1f, z[0]); // the gzip signature, no header
+		assertEquals((byte) 0x8b, z[1]);
+		ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(z)));
+		assertEquals(map, ((MarshalledObject) ois.readObject()).get()); // as earlier releases read it
+		ois.close();
+	}
+
+	public void testRoundTrips() throws Exception {
+		HashMap map = sample();
+		Codec codecs[] = { Codec.NONE, Codec.LZ, Codec.deflate(1), Codec.deflate(9), Codec.GZIP };
+		for (int i = 0; i < codecs.length; i++)
+			assertEquals(codecs[i].toString(), map,
+					Remote.zedmob(new ByteArrayInputStream(zedmob(map, codecs[i]))));
+	}
+
+	private static void corrupt(byte block[]) throws Exception {
+		byte secret[] = new byte[100];
+		Arrays.fill(secret, (byte) 's');
+		OutputStream os = Codec.LZ.encoder(new ByteArrayOutputStream());
+		os.write(secret); // leaves it in the pooled block
+		os.close();
+		InputStream is = Codec.LZ.decoder(new ByteArrayInputStream(block));
+		try {
+			is.read(new byte[100]);
+			fail("a corrupt block was read");
+		} catch (StreamCorruptedException x) {
+		} finally {
+			is.close();
+		}
+	}
+
+	public void testShortBlocks() throws Exception {
+		corrupt(new byte[] { 0, 0, 0, 100, 0, 0, 0, 1, 0x00 }); // ends short of its length
+		corrupt(new byte[] { 0, 0, 0, 100, 0, 0, 0, 1, (byte) 0xf0 }); // literal count cut off
+		corrupt(new byte[] { 0, 0, 0, 100, 0, 0, 0, 2, 0x30, 'a' }); // literals cut off
+		corrupt(new byte[] { 0, 0, 0, 100, 0, 0, 0, 3, 0x1f, 'a', 1 }); // match distance cut off
+		corrupt(new byte[] { 0, 0, 0, 100, 0, 0, 0, 4, 0x1f, 'a', 1, 0 }); // match length cut off
+	}
+
+	private static void stress(int round) throws Exception {
+		byte data[] = new byte[1000 + round % 3000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) ("cajo".charAt(i % 4) + i / 97);
+		byte z[] = Codec.deflate(data, 0, data.length, null); // a frame
+		assertNotNull(z);
+		assertTrue(Arrays.equals(data, Codec.inflate(z, 0, z.length, data.length)));
+		try { // a corrupted frame still returns its inflater
+			z[z.length / 2] ^= 0x55;
+			Codec.inflate(z, 0, z.length, data.length);
+		} catch (IOException x) {
+		}
+		Codec codec = round % 3 == 0 ? Codec.GZIP : round % 3 == 1 ? Codec.deflate(1) : Codec.LZ;
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		OutputStream encoder = Codec.output(os, codec);
+		encoder.write(data);
+		if (round % 10 == 0) // abandoned, left to the garbage collector
+			return;
+		encoder.close();
+		InputStream decoder = Codec.input(new ByteArrayInputStream(os.toByteArray()), new int[1]);
+		byte copy[] = new byte[data.length];
+		for (int n = 0, r; n < copy.length; n += r)
+			assertTrue((r = decoder.read(copy, n, copy.length - n)) > 0);
+		assertEquals(-1, decoder.read());
+		decoder.close();
+		assertTrue(Arrays.equals(data, copy));
+	}
+
+	private static long resident() throws IOException { // in pages, or -1
+		File statm = new File("/proc/self/statm");
+		if (!statm.canRead())
+			return -1;
+		InputStream is = new FileInputStream(statm);
+		try {
+			byte b[] = new byte[256];
+			String fields[] = new String(b, 0, Math.max(0, is.read(b))).trim().split(" ");
+			return Long.parseLong(fields[1]);
+		} finally {
+			is.close();
+		}
+	}
+
+	private static long heap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void stress(int threads, final int rounds) throws Exception {
+		final Exception failure[] = new Exception[1];
+		Thread workers[] = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread() {
+				public void run() {
+					try {
+						for (int round = 0; round < rounds; round++)
+							stress(round);
+					} catch (Exception x) {
+						failure[0] = x;
+					}
+				}
+			};
+			workers[i].start();
+		}
+		for (int i = 0; i < threads; i++)
+			workers[i].join();
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	public void testPoolsBounded() throws Exception {
+		stress(4, 2000); // warm up
+		long heap = heap(), resident = resident();
+		stress(4, 20000);
+		int pooled[] = Codec.pooled();
+		for (int i = 0; i < pooled.length; i++)
+			assertTrue("pool " + i + " holds " + pooled[i], pooled[i] <= Codec.IDLE);
+		assertTrue("heap grew from " + heap + " to " + heap(), heap() - heap < 16 << 20);
+		if (resident >= 0) // abandoned contexts are freed by their cleaners
+			assertTrue("resident pages grew from " + resident + " to " + resident(),
+					resident() - resident < (64 << 20) / 4096);
+	}
+}
@@ -0,0 +1,61 @@
+package gnu.cajo.invoke;
+
+import junit.framework.TestCase;
+
+/*
+ * Method Invoker Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file InvokerTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that methods already compiled are invoked by reflection
+ * again once compilation is disabled.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class InvokerTest extends TestCase {
+	/**
+	 * The item invoked.
+	 */
+	public static class Item {
+		public Boolean reflected(Object arg) { // whether invoked by reflection
+			StackTraceElement trace[] = new Throwable().getStackTrace();
+			for (int i = 1; !trace[i].getClassName().equals(Invoker.class.getName()); i++)
+				if (trace[i].getClassName().indexOf(".reflect.") >= 0)
+					return Boolean.TRUE; // between it and its invoker
+			return Boolean.FALSE;
+		}
+	}
+
+	protected void tearDown() {
+		Remote.compile(false);
+	}
+
+	public void testCompileDisabled() throws Exception {
+		if (System.getProperty("java.specification.version").startsWith("1."))
+			return; // invokers are not compiled before JRE 9
+		Item item = new Item();
+		Remote.compile(true);
+		assertEquals(Boolean.FALSE, Remote.invoke(item, "reflected", "arg"));
+		Remote.compile(false);
+		assertEquals(Boolean.TRUE, Remote.invoke(item, "reflected", "arg"));
+		Remote.compile(true);
+		assertEquals(Boolean.FALSE, Remote.invoke(item, "reflected", "arg"));
+	}
+}
@@ -0,0 +1,94 @@
+package gnu.cajo.invoke;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+/*
+ * Method Dispatch Table Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MethodTableTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that signatures with argument classes from a classloader
+ * the item class' cannot see are cached, up to a limit, without keeping that
+ * loader from being collected.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class MethodTableTest extends TestCase {
+	/**
+	 * The argument class, loaded afresh by a foreign classloader.
+	 */
+	public static class Arg {
+	}
+
+	/**
+	 * The item invoked.
+	 */
+	public static class Item {
+		public String take(Object o) {
+			return "taken";
+		}
+	}
+
+	private static Class foreign() throws Exception { // by a loader with no parent
+		URL classes = MethodTableTest.class.getProtectionDomain().getCodeSource().getLocation();
+		return new URLClassLoader(new URL[] { classes }, null).loadClass(Arg.class.getName());
+	}
+
+	public void testForeignCached() throws Exception {
+		Item item = new Item();
+		Object arg = foreign().newInstance();
+		long foreign = Remote.getDispatchForeign();
+		for (int i = 0; i < 3; i++)
+			assertEquals("taken", Remote.invoke(item, "take", arg));
+		assertEquals(foreign + 1, Remote.getDispatchForeign());
+	}
+
+	public void testForeignBounded() throws Exception {
+		Item item = new Item();
+		Object args[] = new Object[MethodTable.FOREIGN + 1];
+		for (int i = 0; i < args.length; i++)
+			args[i] = foreign().newInstance();
+		long foreign = Remote.getDispatchForeign();
+		for (int i = 0; i < args.length; i++)
+			Remote.invoke(item, "take", args[i]);
+		assertEquals(foreign + args.length, Remote.getDispatchForeign());
+		Remote.invoke(item, "take", args[args.length - 1]); // kept
+		assertEquals(foreign + args.length, Remote.getDispatchForeign());
+		Remote.invoke(item, "take", args[0]); // the oldest, replaced
+		assertEquals(foreign + args.length + 1, Remote.getDispatchForeign());
+	}
+
+	public void testForeignLoaderCollected() throws Exception {
+		Item item = new Item();
+		Class type = foreign();
+		Remote.invoke(item, "take", type.newInstance());
+		WeakReference loader = new WeakReference(type.getClassLoader());
+		type = null;
+		for (int i = 0; i < 50 && loader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull("the loader was kept", loader.get());
+	}
+}
@@ -0,0 +1,97 @@
+package gnu.cajo.invoke;
+
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+
+import junit.framework.TestCase;
+
+/*
+ * Remote Method Table Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MethodsTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks how clients fetch and use the method tables of remote
+ * references, against stand-ins for the references of older and current
+ * servers.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class MethodsTest extends TestCase {
+	private static class Server implements RemoteInvoke {
+		private static final long serialVersionUID = 1L;
+		private final String methods[];
+		int byName, byId;
+
+		private Server(String methods[]) {
+			this.methods = methods;
+		}
+
+		public Object invoke(String method, Object args) {
+			byName++;
+			return method;
+		}
+
+		public String[] methods() throws RemoteException {
+			if (methods == null) // as RMI reports an unknown method hash
+				throw new ServerException("older server", new UnmarshalException("unrecognized method hash"));
+			return methods;
+		}
+
+		public Object invoke(int method, Object args) {
+			byId++;
+			return methods[method];
+		}
+	}
+
+	public void testOlderServer() throws Exception {
+		Server server = new Server(null);
+		assertNull(Remote.methods(server));
+		assertEquals("getName", Remote.invoke(server, (String[]) null, "getName", null));
+		assertEquals(1, server.byName);
+	}
+
+	public void testOtherServerException() {
+		RemoteInvoke server = new Server(null) {
+			private static final long serialVersionUID = 1L;
+
+			public String[] methods() throws RemoteException {
+				throw new ServerException("failed", new RemoteException("elsewhere"));
+			}
+		};
+		try {
+			Remote.methods(server);
+			fail("the exception was not passed on");
+		} catch (RemoteException x) {
+			assertTrue(x instanceof ServerException);
+		}
+	}
+
+	public void testEqualsByTable() throws Exception {
+		Server server = new Server(new String[] { "equals", "getName", "hashCode" });
+		String methods[] = Remote.methods(server);
+		assertEquals(Boolean.TRUE, Remote.invoke(server, methods, "equals", server));
+		assertEquals(Boolean.FALSE, Remote.invoke(server, methods, "equals", new Object[] { "other" }));
+		assertEquals(new Integer(server.hashCode()), Remote.invoke(server, methods, "hashCode", null));
+		assertEquals(0, server.byId + server.byName); // answered locally
+		assertEquals("getName", Remote.invoke(server, methods, "getName", null));
+		assertEquals(1, server.byId);
+	}
+}
@@ -0,0 +1,222 @@
+package gnu.cajo.invoke;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+/*
+ * Multiplexed Transport Frame Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file MuxFrameTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test round trips a value of every tag of the
+ * {@link MuxFrame multiplexed transport's} wire format, and checks that
+ * arrays appearing more than once in a value arrive shared, as by RMI, and
+ * that values with corrupted lengths, or tags, are rejected with a
+ * java.io.StreamCorruptedException, rather than read, or allocated.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class MuxFrameTest extends TestCase {
+	private static final byte OBJECT = 1, INT = 7, LATIN1 = 11, UTF16 = 12, BYTES = 13, INTS = 14, ARRAY = 17,
+			DEFLATED = 18; // as in MuxFrame
+
+	private static ByteBuffer encode(Object o, byte dictionary[]) throws IOException {
+		MuxFrame.Buffer buffer = new MuxFrame.Buffer(0);
+		MuxFrame.write(buffer, o, dictionary);
+		return buffer.payload();
+	}
+
+	private static byte tag(Object o, byte dictionary[]) throws IOException {
+		ByteBuffer payload = encode(o, dictionary);
+		return payload.get(payload.position());
+	}
+
+	private static Object trip(Object o) throws Exception {
+		return MuxFrame.read(encode(o, null), null);
+	}
+
+	private static void assertTrip(Object o) throws Exception {
+		Object copy = trip(o);
+		assertTrue(String.valueOf(o), Arrays.deepEquals(new Object[] { o }, new Object[] { copy }));
+	}
+
+	private static Object nested(int depth) { // arrays within arrays
+		Object o = "leaf";
+		for (int i = 0; i < depth; i++)
+			o = new Object[] { o, new Integer(i) };
+		return o;
+	}
+
+	private static void assertCorrupt(byte value[]) throws Exception {
+		try {
+			MuxFrame.read(ByteBuffer.wrap(value), null);
+			fail("read " + Arrays.toString(value));
+		} catch (StreamCorruptedException x) {
+		}
+	}
+
+	public void testPrimitives() throws Exception {
+		assertNull(trip(null));
+		assertTrip(Boolean.TRUE);
+		assertTrip(Boolean.FALSE);
+		assertTrip(new Byte((byte) -128));
+		assertTrip(new Short(Short.MIN_VALUE));
+		assertTrip(new Character('￿'));
+		assertTrip(new Integer(Integer.MIN_VALUE));
+		assertTrip(new Long(Long.MAX_VALUE));
+		assertTrip(new Float(Float.NaN));
+		assertTrip(new Double(-0.0));
+		assertTrip(new Double(Double.NEGATIVE_INFINITY));
+	}
+
+	public void testStrings() throws Exception {
+		String strings[] = { "", "invoke", "café ÿ", "π", "😀",
+				"\ud800", "a\udc00b", "\udc00\ud800", "x\ud800" };
+		for (int i = 0; i < strings.length; i++) {
+			assertEquals(strings[i], trip(strings[i]));
+			byte tag = tag(strings[i], null);
+			assertEquals(strings[i], i < 3 ? LATIN1 : UTF16, tag);
+		}
+	}
+
+	public void testArrays() throws Exception {
+		assertTrip(new byte[0]);
+		assertTrip(new int[0]);
+		assertTrip(new long[0]);
+		assertTrip(new double[0]);
+		assertTrip(new Object[0]);
+		assertTrip(new byte[] { 1, -1, 127 });
+		assertTrip(new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE });
+		assertTrip(new long[] { Long.MIN_VALUE, 0, Long.MAX_VALUE });
+		assertTrip(new double[] { Double.NaN, -0.0, Double.MAX_VALUE });
+		assertTrip(new Object[] { null, "s", new Integer(1), new byte[] { 2 }, new Object[] { Boolean.TRUE } });
+	}
+
+	public void testSharedArrays() throws Exception {
+		byte b[] = { 1, 2 };
+		int i[] = { 3 };
+		Object args[] = { b, b, i, new Object[] { i } };
+		assertEquals(OBJECT, tag(args, null));
+		Object copy[] = (Object[]) trip(args);
+		assertSame(copy[0], copy[1]);
+		assertSame(copy[2], ((Object[]) copy[3])[0]);
+		assertTrip(args);
+		assertEquals(ARRAY, tag(new Object[] { b, new byte[] { 1, 2 }, "s", "s" }, null));
+	}
+
+	public void testDepth() throws Exception {
+		for (int depth = 1; depth <= 6; depth++) {
+			Object o = nested(depth);
+			assertTrip(o);
+			assertEquals("depth " + depth, depth <= 4 ? ARRAY : OBJECT, tag(o, null));
+		}
+	}
+
+	public void testObjects() throws Exception {
+		ArrayList list = new ArrayList();
+		list.add("element");
+		assertTrip(list);
+		assertTrip(new Object[] { list, "mixed" }); // sent as an object stream
+		assertEquals(OBJECT, tag(new Object[] { list }, null));
+	}
+
+	public void testDeflated() throws Exception {
+		byte dictionary[] = "java.util.HashMap java.lang.String value key".getBytes("ISO-8859-1");
+		Codec.register(dictionary);
+		HashMap map = new HashMap();
+		for (int i = 0; i < 200; i++)
+			map.put("key " + i, "value " + i);
+		ByteBuffer payload = encode(map, dictionary);
+		assertEquals(DEFLATED, payload.get(payload.position()));
+		assertEquals(map, MuxFrame.read(payload, null));
+	}
+
+	public void testDeflatedBounds() throws Exception {
+		byte dictionary[] = "java.util.ArrayList".getBytes("ISO-8859-1");
+		Codec.register(dictionary);
+		ArrayList zeros = new ArrayList(); // would inflate more than accepted
+		zeros.add(new byte[1 << 20]);
+		ByteBuffer payload = encode(zeros, dictionary);
+		assertEquals(OBJECT, payload.get(payload.position()));
+		assertEquals(1 << 20, ((byte[]) ((ArrayList) MuxFrame.read(payload, null)).get(0)).length);
+		byte bytes[] = new byte[4096];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte) (i * i >> 3);
+		ByteBuffer raw = encode(bytes, null);
+		int n = raw.remaining();
+		byte z[] = Codec.deflate(raw.array(), raw.position(), n, null);
+		ByteBuffer value = ByteBuffer.allocate(5 + z.length);
+		value.put(DEFLATED).putInt(n).put(z);
+		value.flip();
+		assertTrue(Arrays.equals(bytes, (byte[]) MuxFrame.read(value.duplicate(), null)));
+		int lies[] = { n - 1, n + 1, 64 * z.length + 64, MuxFrame.MAX };
+		for (int i = 0; i < lies.length; i++) {
+			value.putInt(1, lies[i]);
+			try {
+				MuxFrame.read(value.duplicate(), null);
+				fail("read a deflated length of " + lies[i]);
+			} catch (java.util.zip.ZipException x) { // found inflating
+				assertTrue(i < 2);
+			} catch (StreamCorruptedException x) { // found before allocating
+				assertTrue(i >= 2);
+			}
+		}
+	}
+
+	public void testCorruptLengths() throws Exception {
+		assertCorrupt(new byte[] { LATIN1, 0, 0, 0, 5, 'a', 'b' });
+		assertCorrupt(new byte[] { LATIN1, -1, -1, -1, -1 });
+		assertCorrupt(new byte[] { UTF16, 0, 0, 0, 2, 0, 'a' });
+		assertCorrupt(new byte[] { BYTES, 0x7f, -1, -1, -1 });
+		assertCorrupt(new byte[] { INTS, 0, 0, 0, 2, 0, 0, 0, 1 });
+		assertCorrupt(new byte[] { ARRAY, 0x7f, -1, -1, -1 });
+		assertCorrupt(new byte[] { ARRAY, 0, 0, 0, 1, INT, 0 }); // truncated element
+		assertCorrupt(new byte[] { DEFLATED, 0, 0, 0, 0 });
+		assertCorrupt(new byte[] { DEFLATED, 0x7f, -1, -1, -1 });
+		assertCorrupt(new byte[] { INT, 0, 0 });
+		assertCorrupt(new byte[] { 99 });
+		assertCorrupt(new byte[0]);
+	}
+
+	public void testCorruptDepth() throws Exception {
+		byte value[] = new byte[6 * 5];
+		for (int i = 0; i < 6; i++) { // beyond the depth ever written compactly
+			value[5 * i] = ARRAY;
+			value[5 * i + 4] = 1;
+		}
+		assertCorrupt(value);
+	}
+
+	public void testMethodName() throws Exception {
+		MuxFrame.Buffer buffer = new MuxFrame.Buffer(0);
+		MuxFrame.write(buffer, new Integer(1), null);
+		try {
+			MuxFrame.string(buffer.payload());
+			fail("an int was read as a method name");
+		} catch (StreamCorruptedException x) {
+		}
+	}
+}
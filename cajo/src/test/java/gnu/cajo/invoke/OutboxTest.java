@@ -0,0 +1,156 @@
+package gnu.cajo.invoke;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/*
+ * One-Way Invocation Buffer Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file OutboxTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that calls {@link Remote#post posted} to an item reach it
+ * in the order posted, that each local item receives only its own calls,
+ * however it defines equality, and that calls posted beyond the
+ * {@link Remote#postBacklog backlog} are rejected.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class OutboxTest extends TestCase {
+	/**
+	 * The item posted to, which records its calls; all items are equal.
+	 */
+	public static class Item {
+		private final List calls = new ArrayList();
+		private boolean held, blocked;
+
+		public synchronized Integer record(Integer n) throws InterruptedException {
+			blocked = true;
+			notifyAll();
+			while (held)
+				wait();
+			calls.add(n);
+			return n;
+		}
+
+		synchronized void hold(boolean held) {
+			this.held = held;
+			notifyAll();
+		}
+
+		synchronized void awaitBlocked() throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 10000;
+			while (!blocked && System.currentTimeMillis() < deadline)
+				wait(100);
+			assertTrue("the item was never called", blocked);
+		}
+
+		synchronized List calls() {
+			return new ArrayList(calls);
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof Item;
+		}
+
+		public int hashCode() {
+			return 0;
+		}
+	}
+
+	private int batch, backlog;
+
+	protected void setUp() {
+		batch = Remote.postBatch;
+		backlog = Remote.postBacklog;
+	}
+
+	protected void tearDown() {
+		Remote.postBatch = batch;
+		Remote.postBacklog = backlog;
+	}
+
+	private static Object result(CompletableFuture future) throws Exception {
+		return future.get(10, TimeUnit.SECONDS);
+	}
+
+	private static List expected(int from, int to) {
+		List list = new ArrayList();
+		for (int i = from; i < to; i++)
+			list.add(new Integer(i));
+		return list;
+	}
+
+	public void testOrder() throws Exception {
+		Remote.postBatch = 16;
+		Item item = new Item();
+		CompletableFuture futures[] = new CompletableFuture[1000];
+		for (int i = 0; i < futures.length; i++)
+			futures[i] = Remote.post(item, "record", new Integer(i));
+		for (int i = 0; i < futures.length; i++)
+			assertEquals(new Integer(i), result(futures[i]));
+		assertEquals(expected(0, futures.length), item.calls());
+	}
+
+	public void testLocalIdentity() throws Exception {
+		Item a = new Item(), b = new Item();
+		assertEquals(a, b);
+		CompletableFuture futures[] = new CompletableFuture[10];
+		for (int i = 0; i < futures.length; i++)
+			futures[i] = Remote.post(i % 2 == 0 ? a : b, "record", new Integer(i));
+		List even = new ArrayList(), odd = new ArrayList();
+		for (int i = 0; i < futures.length; i++) {
+			result(futures[i]);
+			(i % 2 == 0 ? even : odd).add(new Integer(i));
+		}
+		assertEquals(even, a.calls());
+		assertEquals(odd, b.calls());
+	}
+
+	public void testBacklog() throws Exception {
+		Remote.postBacklog = 10;
+		Item item = new Item();
+		item.hold(true);
+		CompletableFuture first = Remote.post(item, "record", new Integer(0));
+		item.awaitBlocked(); // the first batch is being sent
+		CompletableFuture futures[] = new CompletableFuture[12];
+		for (int i = 0; i < futures.length; i++)
+			futures[i] = Remote.post(item, "record", new Integer(i + 1));
+		for (int i = 10; i < futures.length; i++)
+			try {
+				assertTrue(futures[i].isDone());
+				result(futures[i]);
+				fail("accepted beyond the backlog");
+			} catch (ExecutionException x) {
+				assertTrue(x.getCause() instanceof RejectedExecutionException);
+			}
+		item.hold(false);
+		result(first);
+		for (int i = 0; i < 10; i++)
+			result(futures[i]);
+		assertEquals(expected(0, 11), item.calls());
+		assertEquals(new Integer(12), result(Remote.post(item, "record", new Integer(12)))); // drained
+	}
+}
@@ -0,0 +1,85 @@
+package gnu.cajo.invoke;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import junit.framework.TestCase;
+
+/*
+ * Remote Invocation Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file RemoteTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that an asynchronous invocation which times out is
+ * completed on a pool thread, so an action depending on it which blocks
+ * delays no other timeout.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class RemoteTest extends TestCase {
+	/**
+	 * The item invoked.
+	 */
+	public static class Item {
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		public void slow() throws InterruptedException {
+			release.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private static CompletableFuture thread(CompletableFuture future) { // on which it completed
+		final CompletableFuture thread = new CompletableFuture();
+		future.whenComplete(new BiConsumer() {
+			public void accept(Object result, Object t) {
+				thread.complete(new Object[] { Thread.currentThread().getName(), t });
+			}
+		});
+		return thread;
+	}
+
+	public void testTimeoutOnPool() throws Exception {
+		Item item = new Item();
+		try {
+			final CountDownLatch blocked = new CountDownLatch(1);
+			CompletableFuture first = Remote.invokeAsync(item, "slow", null, 50, TimeUnit.MILLISECONDS);
+			first.whenComplete(new BiConsumer() {
+				public void accept(Object result, Object t) {
+					try { // a dependent action which blocks
+						blocked.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException x) {
+					}
+				}
+			});
+			Object completed[] = (Object[]) thread(first).get(5, TimeUnit.SECONDS);
+			assertEquals("cajo async", completed[0]);
+			assertTrue(completed[1] instanceof TimeoutException);
+			CompletableFuture second = Remote.invokeAsync(item, "slow", null, 50, TimeUnit.MILLISECONDS);
+			completed = (Object[]) thread(second).get(5, TimeUnit.SECONDS); // not held up by the first
+			assertTrue(completed[1] instanceof TimeoutException);
+			blocked.countDown();
+		} finally {
+			item.release.countDown();
+		}
+	}
+}
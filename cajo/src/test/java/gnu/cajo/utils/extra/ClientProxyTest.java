@@ -0,0 +1,82 @@
+package gnu.cajo.utils.extra;
+
+import junit.framework.TestCase;
+
+/*
+ * Firewalled Client Callback Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file ClientProxyTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks the handshake between the server and client threads of a
+ * {@link ClientProxy ClientProxy}, with the client played by a local thread,
+ * as an {@link ItemProxy ItemProxy} would.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class ClientProxyTest extends TestCase {
+	private ClientProxy proxy;
+
+	protected void setUp() throws Exception {
+		proxy = new ClientProxy();
+	}
+
+	protected void tearDown() throws Exception {
+		proxy.cutOff();
+	}
+
+	private Thread client(final long delay) { // answers a single callback
+		Thread client = new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(delay);
+					Object call[] = (Object[]) proxy.invoke(null, null);
+					proxy.invoke(null, call[0] + " " + call[1]);
+				} catch (Exception x) {
+					/* cut off */ }
+			}
+		};
+		client.setDaemon(true);
+		client.start();
+		return client;
+	}
+
+	public void testNoTimeout() throws Exception {
+		proxy.timeout = 0; // wait as long as it takes
+		client(200);
+		assertEquals("greet world", proxy.invoke("greet", "world"));
+	}
+
+	public void testTimeout() throws Exception {
+		proxy.timeout = 100;
+		long start = System.currentTimeMillis();
+		try {
+			proxy.invoke("greet", "world");
+			fail("no client is listening");
+		} catch (InterruptedException x) {
+			assertEquals("Client not listening", x.getMessage());
+		}
+		assertTrue(System.currentTimeMillis() - start >= 100);
+	}
+
+	public void testCallback() throws Exception {
+		client(0);
+		assertEquals("greet world", proxy.invoke("greet", "world"));
+	}
+}
@@ -0,0 +1,150 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Invoke;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/*
+ * Invocation Coalescer Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file CoalescerTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that a {@link Coalescer Coalescer} merges identical
+ * invocations made while one is in progress, including those with arrays of
+ * equal contents, and that the threads waiting on the invocation receive its
+ * result, or the exception it threw.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class CoalescerTest extends TestCase {
+	private static final int WAITERS = 4;
+
+	/**
+	 * The item invoked, whose calls block until released.
+	 */
+	public static class Item {
+		private boolean released;
+		private int calls;
+
+		private synchronized void hold() throws InterruptedException {
+			calls++;
+			while (!released)
+				wait();
+		}
+
+		synchronized int calls() {
+			return calls;
+		}
+
+		synchronized void release() {
+			released = true;
+			notifyAll();
+		}
+
+		public int[] get(int values[]) throws InterruptedException {
+			hold();
+			return (int[]) values.clone();
+		}
+
+		public Object fail(String message) throws Exception {
+			hold();
+			throw new IOException(message);
+		}
+	}
+
+	private Item item;
+	private Coalescer coalescer;
+
+	protected void setUp() throws Exception {
+		item = new Item();
+		coalescer = new Coalescer(item).coalesce("get").coalesce("fail");
+	}
+
+	// makes the invocation once from the leader, then from each waiter
+	private Object[] invoke(final String method, final Object args) throws Exception {
+		final Object results[] = new Object[WAITERS + 1];
+		Thread threads[] = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int n = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						results[n] = coalescer.invoke(method,
+								args instanceof int[] ? ((int[]) args).clone() : args);
+					} catch (Throwable t) {
+						results[n] = t;
+					}
+				}
+			};
+			threads[i].start();
+			if (i == 0)
+				while (item.calls() == 0)
+					Thread.sleep(1);
+		}
+		while (coalescer.getCoalesced() < WAITERS)
+			Thread.sleep(1);
+		item.release();
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join();
+		assertEquals(1, item.calls());
+		assertEquals(1, coalescer.getIssued());
+		return results;
+	}
+
+	public void testResultShared() throws Exception {
+		Object results[] = invoke("get", new int[] { 1, 2 }); // equal copies
+		for (int i = 0; i < results.length; i++)
+			assertSame(results[0], results[i]);
+	}
+
+	public void testExceptionShared() throws Exception {
+		Object results[] = invoke("fail", "leader's");
+		assertTrue(results[0] instanceof IOException);
+		assertEquals("leader's", ((IOException) results[0]).getMessage());
+		for (int i = 0; i < results.length; i++)
+			assertSame(results[0], results[i]);
+	}
+
+	public void testSequentialCallsNotShared() throws Exception {
+		item.release();
+		Object first = coalescer.invoke("get", new int[] { 1 });
+		assertNotSame(first, coalescer.invoke("get", new int[] { 1 }));
+		assertEquals(2, coalescer.getIssued());
+		assertEquals(0, coalescer.getCoalesced());
+	}
+
+	public void testErrorPassedOn() throws Exception {
+		final Error error = new StackOverflowError("deep");
+		Coalescer thrower = new Coalescer(new Invoke() {
+			public Object invoke(String method, Object args) {
+				throw error;
+			}
+		}).coalesce("error");
+		try {
+			thrower.invoke("error", null);
+			fail("the error was not rethrown");
+		} catch (StackOverflowError x) {
+			assertSame(error, x);
+		}
+		assertEquals(1, thrower.getIssued());
+	}
+}
@@ -0,0 +1,174 @@
+package gnu.cajo.utils.extra;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/*
+ * Client Side Result Cache Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file NearCacheTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that a {@link NearCache NearCache} keeps results for
+ * equal arguments, including arrays of equal contents, for their time to
+ * live, evicts the least recently used beyond its size, and forgets those
+ * invalidated.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class NearCacheTest extends TestCase {
+	/**
+	 * The item cached, which counts its invocations.
+	 */
+	public static class Item {
+		int calls;
+		NearCache cache; // if set, invalidated while fetching
+
+		public Integer get(String key) {
+			calls++;
+			if (cache != null)
+				cache.invalidate("get");
+			return new Integer(key.length());
+		}
+
+		public Integer sum(int values[]) {
+			calls++;
+			int sum = 0;
+			for (int i = 0; i < values.length; i++)
+				sum += values[i];
+			return new Integer(sum);
+		}
+
+		public Integer count(Object values[], String s) {
+			calls++;
+			return new Integer(values.length + s.length());
+		}
+
+		public Integer fail(String s) throws IOException {
+			calls++;
+			throw new IOException(s);
+		}
+	}
+
+	private Item item;
+
+	protected void setUp() throws Exception {
+		item = new Item();
+	}
+
+	public void testArrayArguments() throws Exception {
+		NearCache cache = new NearCache(item, 10).cache("sum", 0).cache("count", 0);
+		assertEquals(new Integer(6), cache.invoke("sum", new int[] { 1, 2, 3 }));
+		assertEquals(new Integer(6), cache.invoke("sum", new int[] { 1, 2, 3 }));
+		assertEquals(new Integer(3), cache.invoke("sum", new int[] { 1, 2 }));
+		Object args[] = { new Object[] { new int[] { 1 }, "a" }, "xy" };
+		assertEquals(new Integer(4), cache.invoke("count", args));
+		args = new Object[] { new Object[] { new int[] { 1 }, "a" }, "xy" }; // equal, nested
+		assertEquals(new Integer(4), cache.invoke("count", args));
+		assertEquals(3, item.calls);
+		assertEquals(2, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	public void testArgumentsCopied() throws Exception {
+		NearCache cache = new NearCache(item, 10).cache("get", 0);
+		Object args[] = { "abc" };
+		cache.invoke("get", args);
+		args[0] = "abcdef"; // the caller reuses its array
+		assertEquals(new Integer(6), cache.invoke("get", args));
+		assertEquals(new Integer(3), cache.invoke("get", "abc"));
+		assertEquals(2, item.calls);
+	}
+
+	public void testTimeToLive() throws Exception {
+		NearCache cache = new NearCache(item, 10).cache("get", 200).cache("sum", Long.MAX_VALUE);
+		cache.invoke("get", "a");
+		cache.invoke("get", "a");
+		assertEquals(1, item.calls);
+		Thread.sleep(300);
+		cache.invoke("get", "a");
+		assertEquals(2, item.calls);
+		for (int i = 0; i < 3; i++) // kept indefinitely, rather than overflowing
+			cache.invoke("sum", new int[] { i });
+		Thread.sleep(10);
+		for (int i = 0; i < 3; i++)
+			cache.invoke("sum", new int[] { i });
+		assertEquals(5, item.calls);
+		try {
+			cache.cache("get", -1);
+			fail("accepted a negative time to live");
+		} catch (IllegalArgumentException x) {
+		}
+	}
+
+	public void testLeastRecentlyUsed() throws Exception {
+		NearCache cache = new NearCache(item, 2).cache("get", 0);
+		cache.invoke("get", "a");
+		cache.invoke("get", "bb");
+		cache.invoke("get", "a"); // now the most recently used
+		cache.invoke("get", "ccc"); // evicts bb
+		assertEquals(1, cache.getEvictions());
+		assertEquals(3, item.calls);
+		cache.invoke("get", "a");
+		cache.invoke("get", "ccc");
+		assertEquals(3, item.calls);
+		cache.invoke("get", "bb");
+		assertEquals(4, item.calls);
+		assertEquals(2, cache.getEvictions());
+	}
+
+	public void testInvalidate() throws Exception {
+		NearCache cache = new NearCache(item, 10).cache("get", 0).cache("sum", 0);
+		cache.invoke("get", "a");
+		cache.invoke("get", "bb");
+		cache.invoke("sum", new int[] { 1 });
+		cache.invalidate("get", "a");
+		cache.invoke("get", "a");
+		cache.invoke("get", "bb");
+		assertEquals(4, item.calls);
+		cache.invalidate("get");
+		cache.invoke("get", "bb");
+		cache.invoke("sum", new int[] { 1 });
+		assertEquals(5, item.calls);
+		cache.invalidate();
+		cache.invoke("sum", new int[] { 1 });
+		assertEquals(6, item.calls);
+		item.cache = cache; // a result invalidated while fetched is not kept
+		cache.invoke("get", "a");
+		item.cache = null;
+		cache.invoke("get", "a");
+		assertEquals(8, item.calls);
+	}
+
+	public void testUncached() throws Exception {
+		NearCache cache = new NearCache(item, 10).cache("fail", 0);
+		cache.invoke("get", "a");
+		cache.invoke("get", "a");
+		for (int i = 0; i < 2; i++)
+			try {
+				cache.invoke("fail", "x");
+				fail("no exception");
+			} catch (IOException x) {
+				assertEquals("x", x.getMessage());
+			}
+		assertEquals(4, item.calls);
+		assertEquals(0, cache.getHits());
+	}
+}
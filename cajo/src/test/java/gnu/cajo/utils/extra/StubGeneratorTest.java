@@ -0,0 +1,209 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Invoke;
+import gnu.cajo.invoke.Remote;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import junit.framework.TestCase;
+
+/*
+ * Stub Generator Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file StubGeneratorTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test compiles the generated stubs and skeletons, and checks which
+ * method of the server object each call reaches: among overloads, and for
+ * interfaces which redeclare the methods of java.lang.Object.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class StubGeneratorTest extends TestCase {
+	/**
+	 * A service with overloads which a first-match dispatch could shadow.
+	 */
+	public interface Service {
+		String foo(Object o);
+
+		String foo(String s);
+
+		String foo(CharSequence s);
+
+		String bar(Integer i);
+
+		String bar(int i);
+
+		String baz(Number n, Object o);
+
+		String baz(Long l, String s);
+	}
+
+	/**
+	 * A service which redeclares the methods of java.lang.Object, as e.g.
+	 * java.util.Comparator does.
+	 */
+	public interface Named {
+		boolean equals(Object o);
+
+		int hashCode();
+
+		String toString();
+
+		String name();
+	}
+
+	private static final class Name implements Named {
+		public String name() {
+			return "name";
+		}
+	}
+
+	private static final class Server implements Service {
+		public String foo(Object o) {
+			return "foo(Object)";
+		}
+
+		public String foo(String s) {
+			return "foo(String)";
+		}
+
+		public String foo(CharSequence s) {
+			return "foo(CharSequence)";
+		}
+
+		public String bar(Integer i) {
+			return "bar(Integer)";
+		}
+
+		public String bar(int i) {
+			return "bar(int)";
+		}
+
+		public String baz(Number n, Object o) {
+			return "baz(Number, Object)";
+		}
+
+		public String baz(Long l, String s) {
+			return "baz(Long, String)";
+		}
+	}
+
+	private File dir;
+	private URLClassLoader loader;
+
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("stubs", "");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	protected void tearDown() throws Exception {
+		if (loader != null)
+			loader.close();
+		delete(dir);
+	}
+
+	private static void delete(File file) {
+		File files[] = file.listFiles();
+		for (int i = 0; files != null && i < files.length; i++)
+			delete(files[i]);
+		file.delete();
+	}
+
+	private static String path(Class type) throws Exception {
+		return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+	}
+
+	private Class compile(Class type, String suffix, String source) throws Exception {
+		String name = type.getName();
+		String simple = name.substring(name.lastIndexOf('.') + 1).replace('$', '_') + suffix;
+		File file = new File(dir, simple + ".java");
+		FileWriter fw = new FileWriter(file);
+		try {
+			fw.write(source);
+		} finally {
+			fw.close();
+		}
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("no compiler in this runtime", javac);
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		String classpath = path(Remote.class) + File.pathSeparator + path(StubGeneratorTest.class)
+				+ File.pathSeparator + path(TestCase.class);
+		int status = javac.run(null, null, err,
+				new String[] { "-d", dir.getPath(), "-cp", classpath, file.getPath() });
+		assertEquals(source + err, 0, status);
+		if (loader == null)
+			loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+		return loader.loadClass(type.getPackage().getName() + '.' + simple);
+	}
+
+	private Invoke skeleton(Class type, Object item) throws Exception {
+		Class skeleton = compile(type, "Skeleton", StubGenerator.skeleton(type));
+		return (Invoke) skeleton.getConstructor(new Class[] { type }).newInstance(new Object[] { item });
+	}
+
+	private Object stub(Class type, Object item) throws Exception {
+		Class stub = compile(type, "Stub", StubGenerator.stub(type));
+		return stub.getConstructor(new Class[] { Object.class }).newInstance(new Object[] { item });
+	}
+
+	public void testSkeletonPrefersNarrowestOverload() throws Exception {
+		Server server = new Server();
+		Invoke skeleton = skeleton(Service.class, server);
+		Object exact[][] = { // as Remote.invoke would select
+				{ "foo", "s" }, { "foo", new Object() }, { "baz", new Object[] { new Long(1), "s" } }, };
+		for (int i = 0; i < exact.length; i++) {
+			String method = (String) exact[i][0];
+			assertEquals(method, Remote.invoke(server, method, exact[i][1]), skeleton.invoke(method, exact[i][1]));
+		}
+		assertEquals("foo(String)", skeleton.invoke("foo", "s"));
+		assertEquals("foo(CharSequence)", skeleton.invoke("foo", new StringBuffer("s")));
+		assertEquals("foo(Object)", skeleton.invoke("foo", new Integer(1)));
+		assertEquals("bar(int)", skeleton.invoke("bar", new Integer(1)));
+		assertEquals("baz(Long, String)", skeleton.invoke("baz", new Object[] { new Long(1), "s" }));
+		assertEquals("baz(Number, Object)", skeleton.invoke("baz", new Object[] { new Long(1), new Object() }));
+		assertEquals("baz(Number, Object)", skeleton.invoke("baz", new Object[] { new Integer(1), "s" }));
+	}
+
+	public void testRedeclaredObjectMethods() throws Exception {
+		Name item = new Name();
+		Named stub = (Named) stub(Named.class, item);
+		assertEquals("name", stub.name());
+		assertEquals(item.hashCode(), stub.hashCode());
+		assertTrue(stub.equals(stub(Named.class, item)));
+		assertFalse(stub.equals(item));
+		assertTrue(stub.toString().endsWith("->" + item));
+	}
+
+	public void testSkeletonDispatchesRedeclared() throws Exception {
+		Name item = new Name();
+		Invoke skeleton = skeleton(Named.class, item);
+		assertEquals("name", skeleton.invoke("name", null));
+		assertEquals(Boolean.TRUE, skeleton.invoke("equals", item));
+		assertEquals(Boolean.FALSE, skeleton.invoke("equals", "a"));
+	}
+}
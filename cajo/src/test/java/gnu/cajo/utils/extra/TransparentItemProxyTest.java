@@ -0,0 +1,116 @@
+package gnu.cajo.utils.extra;
+
+import gnu.cajo.invoke.Codec;
+import gnu.cajo.invoke.Remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.rmi.MarshalledObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+/*
+ * Item Transparent Dynamic Proxy Test
+ * Copyright (C) 2026 The cajo project
+ * The cajo project: https://github.com/ravn/cajo
+ *
+ * This file TransparentItemProxyTest.java is part of the cajo library.
+ *
+ * The cajo library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public Licence as published
+ * by the Free Software Foundation, at version 3 of the licence, or (at your
+ * option) any later version.
+ *
+ * The cajo library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public Licence for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public Licence
+ * along with this library. If not, see http://www.gnu.org/licenses/lgpl.html
+ */
+
+/**
+ * This test checks that proxies serialised by earlier releases are read, and
+ * that proxies are still serialised in their form wherever earlier releases
+ * may read them: on plain streams, within a MarshalledObject, and in gzip
+ * zedmobs.
+ *
+ * @version 1.0, 16-Oct-26 Initial release
+ */
+public class TransparentItemProxyTest extends TestCase {
+	// a proxy of a list holding "old", as serialised by an earlier release
+	private static final String PLAIN = "rO0ABXN9AAAAAQAOamF2YS51dGlsLkxpc3R4cgAXamF2YS5sYW5nLnJlZmxlY3QuUHJveHnh"
+			+ "J9ogzBBDywIAAUwAAWh0ACVMamF2YS9sYW5nL3JlZmxlY3QvSW52b2NhdGlvbkhhbmRsZXI7"
+			+ "eHBzcgApZ251LmNham8udXRpbHMuZXh0cmEuVHJhbnNwYXJlbnRJdGVtUHJveHkAAAAAAAAA"
+			+ "BQMAAUwACHRvU3RyaW5ndAASTGphdmEvbGFuZy9TdHJpbmc7eHBwc3IAGWphdmEucm1pLk1h"
+			+ "cnNoYWxsZWRPYmplY3R8vR6X7WP8PgIAA0kABGhhc2hbAAhsb2NCeXRlc3QAAltCWwAIb2Jq"
+			+ "Qnl0ZXNxAH4ACHhwDWRdGnB1cgACW0Ks8xf4BghU4AIAAHhwAAAAQKztAAVzcgATamF2YS51"
+			+ "dGlsLkFycmF5TGlzdHiB0h2Zx2GdAwABSQAEc2l6ZXhwAAAAAXcEAAAAAXQAA29sZHh4";
+	// the same proxy, within a MarshalledObject
+	private static final String MARSHALLED = "rO0ABXNyABlqYXZhLnJtaS5NYXJzaGFsbGVkT2JqZWN0fL0el+1j/D4CAANJAARoYXNoWwAI"
+			+ "bG9jQnl0ZXN0AAJbQlsACG9iakJ5dGVzcQB+AAF4cIhbQGBwdXIAAltCrPMX+AYIVOACAAB4"
+			+ "cAAAAXes7QAFc30AAAABAA5qYXZhLnV0aWwuTGlzdHhyABdqYXZhLmxhbmcucmVmbGVjdC5Q"
+			+ "cm94eeEn2iDMEEPLAgABTAABaHQAJUxqYXZhL2xhbmcvcmVmbGVjdC9JbnZvY2F0aW9uSGFu"
+			+ "ZGxlcjt4cHNyAClnbnUuY2Fqby51dGlscy5leHRyYS5UcmFuc3BhcmVudEl0ZW1Qcm94eQAA"
+			+ "AAAAAAAFAwABTAAIdG9TdHJpbmd0ABJMamF2YS9sYW5nL1N0cmluZzt4cHBzcgAZamF2YS5y"
+			+ "bWkuTWFyc2hhbGxlZE9iamVjdHy9HpftY/w+AgADSQAEaGFzaFsACGxvY0J5dGVzdAACW0Jb"
+			+ "AAhvYmpCeXRlc3EAfgAIeHANZF0acHVyAAJbQqzzF/gGCFTgAgAAeHAAAABArO0ABXNyABNq"
+			+ "YXZhLnV0aWwuQXJyYXlMaXN0eIHSHZnHYZ0DAAFJAARzaXpleHAAAAABdwQAAAABdAADb2xk"
+			+ "eHg=";
+
+	private static Object proxy() {
+		ArrayList list = new ArrayList();
+		list.add("old");
+		return TransparentItemProxy.getItem(list, new Class[] { List.class });
+	}
+
+	private static Object read(byte b[]) throws Exception {
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(b));
+		try {
+			return ois.readObject();
+		} finally {
+			ois.close();
+		}
+	}
+
+	private static byte[] write(Object o) throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(os);
+		oos.writeObject(o);
+		oos.close();
+		return os.toByteArray();
+	}
+
+	public void testReadsOldForm() throws Exception {
+		List list = (List) read(Base64.getDecoder().decode(PLAIN));
+		assertEquals("old", list.get(0));
+		MarshalledObject mo = (MarshalledObject) read(Base64.getDecoder().decode(MARSHALLED));
+		assertEquals("old", ((List) mo.get()).get(0));
+	}
+
+	public void testWritesOldForm() throws Exception {
+		assertTrue(Arrays.equals(Base64.getDecoder().decode(PLAIN), write(proxy())));
+		MarshalledObject old = (MarshalledObject) read(Base64.getDecoder().decode(MARSHALLED));
+		assertEquals(old, new MarshalledObject(proxy()));
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Remote.zedmob(os, proxy(), Codec.GZIP);
+		ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(os.toByteArray())));
+		assertEquals(old, ois.readObject());
+		ois.close();
+	}
+
+	public void testCurrentForm() throws Exception {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Remote.zedmob(os, proxy(), Codec.NONE);
+		List list = (List) Remote.zedmob(new ByteArrayInputStream(os.toByteArray()));
+		assertEquals("old", list.get(0));
+	}
+}
@@ -26,6 +26,20 @@ package cajo.sdk;
  * @author John Catherino
  */
 abstract class AbstractObject {
+   private static final String[] NONE = {};
+   private static final java.util.Map<Object, String[]> methods =
+      new java.util.WeakHashMap<Object, String[]>();
+   private static String[] methods(Object object) {
+      if (!(object instanceof gnu.cajo.invoke.RemoteInvoke)) return null;
+      String[] table;
+      synchronized(methods) { table = methods.get(object); }
+      if (table == null) try { // fetch the remote method table once
+         table = gnu.cajo.invoke.Remote.methods(object);
+         if (table == null) table = NONE;
+         synchronized(methods) { methods.put(object, table); }
+      } catch(java.rmi.RemoteException x) {} // invoke by name, retry later
+      return table;
+   }
    /**
     * This utility function can be used to invoke a public method on either a
     * remote, or a local, object reference. It is an alternative to the proxy
@@ -34,7 +48,8 @@ abstract class AbstractObject {
     * public, but the class implementing the method need not. This is how the
     * cajo project implements <a href=http://en.wikipedia.org/wiki/Dynamic_dispatch>
     * <i>dynamic dispatch,</i></a> as the Java language does not currently
-    * support it natively.
+    * support it natively. Methods on remote objects are invoked by their id
+    * in the object's method table, which is fetched once per reference.
     * @param <T> The coercable primitive type, class or superclass, of the
     * expected method invocation return, this applies only if the result is
     * being assigned to a variable, it is not specified, rather it is
@@ -57,7 +72,8 @@ abstract class AbstractObject {
    @SuppressWarnings("unchecked")
    protected static final <T> T
       invoke(Object object, String method, Object... args) throws Exception {
-      return (T)gnu.cajo.invoke.Remote.invoke(object, method, args);
+      return (T)gnu.cajo.invoke.Remote.invoke(
+         object, methods(object), method, args);
    }
    /**
     * This utility function dynamically casts a service, sent agent,
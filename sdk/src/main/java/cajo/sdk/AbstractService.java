@@ -179,6 +179,20 @@ public abstract class AbstractService extends AbstractReference
       ItemServer.bind(serviceRef, name); // put in local static registry
       remref = cajo.export(this, logger); // add to cajo dynamic federation
    }
+   /**
+    * This method allows a started service to have the result of one of its
+    * invariant no-argument methods, e.g. getDescription, serialised just once,
+    * rather than for every client requesting it. It must be called again
+    * following each startup.<br>
+    * <i><u>NB</u>:</i> cached invocations do not reach the {@link #logger
+    * logger}, so they will <i>not</i> appear in the service's log.
+    * @param method The name of the method whose result is to be cached
+    * @throws IllegalStateException If the service is not started
+    */
+   protected final void cache(String method) {
+      if (remref == null) throw new IllegalStateException("not started");
+      ((Remote)serviceRef).cache(method);
+   }
    /**
     * This method disconnects the service from any further remote client use. The
     * It can be put back into service by calling its startup method.<br>